@@ -1,18 +1,47 @@
 package com.rag.chat;
 
+import com.rag.chat.config.ArchiveProperties;
+import com.rag.chat.config.BulkheadProperties;
+import com.rag.chat.config.ChatCacheProperties;
+import com.rag.chat.config.ChatPartitionProperties;
+import com.rag.chat.config.ChunkStoreProperties;
+import com.rag.chat.config.CompressionProperties;
+import com.rag.chat.config.IdempotencyProperties;
 import com.rag.chat.config.LoggingAspectProperties;
+import com.rag.chat.config.PurgeProperties;
+import com.rag.chat.config.ReadReplicaProperties;
+import com.rag.chat.config.SessionActivityProperties;
+import com.rag.chat.config.SessionLookupProperties;
+import com.rag.chat.config.SessionPreviewProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
 @SpringBootApplication
-@EnableJpaAuditing
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
 @EnableCaching
-@EnableConfigurationProperties(LoggingAspectProperties.class)
+@EnableConfigurationProperties({LoggingAspectProperties.class, ChatCacheProperties.class, ChatPartitionProperties.class,
+        CompressionProperties.class, ChunkStoreProperties.class, ArchiveProperties.class,
+        PurgeProperties.class, ReadReplicaProperties.class, BulkheadProperties.class, IdempotencyProperties.class,
+        SessionActivityProperties.class, SessionLookupProperties.class, SessionPreviewProperties.class})
 public class RagChatServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(RagChatServiceApplication.class, args);
     }
+
+    /**
+     * createdAt/updatedAt at the precision PostgreSQL stores, so a freshly saved entity and its re-read row agree
+     */
+    @Bean
+    public DateTimeProvider auditingDateTimeProvider() {
+        return () -> Optional.of(Instant.now().truncatedTo(ChronoUnit.MICROS));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.rag.chat.activity;
+
+import com.rag.chat.cache.SessionCacheInvalidator;
+import com.rag.chat.config.SessionActivityProperties;
+import com.rag.chat.repository.SessionActivityRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last activity of sessions receiving appends, kept in memory and written back to chat_session.updated_at every
+ * app.activity.flush-interval. However many appends a session gets in an interval, it costs one row update, made by
+ * a single background writer instead of every appending transaction; concurrent appends to one session therefore
+ * never queue on its row or bump its version. Activity is recorded only once the append has committed.
+ * The flushed sessions are evicted from the second-level cache, whose copies lag by at most one interval.
+ */
+@Slf4j
+@Component
+public class SessionActivityTracker {
+
+    private final SessionActivityRepository repository;
+    private final SessionActivityProperties properties;
+    private final SessionCacheInvalidator cacheInvalidator;
+    private final Map<UUID, Instant> pending = new ConcurrentHashMap<>();
+    private volatile Map<UUID, Instant> flushing = Map.of();
+
+    private final Counter touched;
+    private final Counter failed;
+    private final Timer flushTimer;
+
+    public SessionActivityTracker(SessionActivityRepository repository, SessionActivityProperties properties,
+                                  SessionCacheInvalidator cacheInvalidator, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties;
+        this.cacheInvalidator = cacheInvalidator;
+        this.touched = meterRegistry.counter("chat.session.activity.touched");
+        this.failed = meterRegistry.counter("chat.session.activity.flush.failed");
+        this.flushTimer = Timer.builder("chat.session.activity.flush")
+                .description("Latency of writing back pending session activity")
+                .register(meterRegistry);
+        Gauge.builder("chat.session.activity.pending", pending, Map::size)
+                .description("Sessions with activity not yet written back")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records activity of a session when the current transaction commits, or right away without one
+     */
+    public void recordAfterCommit(UUID sessionId, Instant activeAt) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(sessionId, activeAt);
+                }
+            });
+        } else {
+            record(sessionId, activeAt);
+        }
+    }
+
+    public void record(UUID sessionId, Instant activeAt) {
+        pending.merge(sessionId, activeAt, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    /**
+     * Whether the session has activity that updatedAt does not show yet
+     */
+    public boolean isPending(UUID sessionId) {
+        return pending.containsKey(sessionId) || flushing.containsKey(sessionId);
+    }
+
+    /**
+     * Writes back pending activity in batches of app.activity.batch-size. A failed batch goes back to pending and is
+     * retried by the next flush.
+     * @return number of sessions whose updatedAt moved
+     */
+    @Scheduled(fixedDelayString = "${app.activity.flush-interval:PT1S}")
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<UUID> ids = new ArrayList<>(pending.keySet());
+        int total = 0;
+        for (int from = 0; from < ids.size(); from += properties.batchSize()) {
+            Map<UUID, Instant> batch = new LinkedHashMap<>();
+            for (UUID id : ids.subList(from, Math.min(from + properties.batchSize(), ids.size()))) {
+                Instant activeAt = pending.remove(id);
+                if (activeAt != null) {
+                    batch.put(id, activeAt);
+                }
+            }
+            flushing = batch;
+            try {
+                int count = flushTimer.record(() -> repository.touch(batch));
+                touched.increment(count);
+                cacheInvalidator.evictSessions(batch.keySet());
+                total += count;
+            } catch (RuntimeException e) {
+                batch.forEach(this::record);
+                failed.increment();
+                log.warn("Failed to write back activity of {} sessions: {}", batch.size(), e.getMessage());
+                break;
+            } finally {
+                flushing = Map.of();
+            }
+        }
+        return total;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,205 @@
+package com.rag.chat.archive;
+
+import com.rag.chat.entity.ChatMessage;
+import com.rag.chat.entity.ChatSession;
+import com.rag.chat.enums.SenderType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Uncompressed layout of one archived session (all integers big-endian).
+ * <pre>
+ * format (byte) | message count (int32) | message*
+ * message: id (2 x int64) | seq (int64) | role | createdAt | updatedAt | version (int64) | content | retrievedContext | metadata
+ * string:  length (int32, -1 = null) | UTF-8 bytes
+ * instant: epoch seconds (int64) | nanos (int32)
+ * </pre>
+ * JSON documents are kept exactly as stored, so chunk references stay resolvable through the chunk store.
+ * Format 1 blocks, written before messages had a seq, lack that field; their messages are numbered by position.
+ */
+final class ArchiveBlockCodec {
+
+    static final byte FORMAT = 2;
+    private static final byte FORMAT_WITHOUT_SEQ = 1;
+    private static final int INSTANT_BYTES = Long.BYTES + Integer.BYTES;
+
+    private ArchiveBlockCodec() {
+    }
+
+    static byte[] encode(List<ChatMessage> messages) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * (messages.size() + 1));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeInt(messages.size());
+            for (ChatMessage m : messages) {
+                out.writeLong(m.getId().getMostSignificantBits());
+                out.writeLong(m.getId().getLeastSignificantBits());
+                out.writeLong(m.getSeq());
+                writeString(out, m.getRole().name());
+                writeInstant(out, m.getCreatedAt());
+                writeInstant(out, m.getUpdatedAt() != null ? m.getUpdatedAt() : m.getCreatedAt());
+                out.writeLong(m.getVersion() != null ? m.getVersion() : 0L);
+                writeString(out, m.getContent());
+                writeString(out, m.getRetrievedContext());
+                writeString(out, m.getMetadata());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Sequential reader over a block, decoding one message at a time so a caller after a few messages neither
+     * materializes the rest nor holds the whole block. The id and seq of the next message can be looked at before
+     * choosing to decode or skip it; skipping reads past the remaining fields without building strings.
+     */
+    static final class Reader implements Closeable {
+
+        private final DataInputStream in;
+        private final ChatSession session;
+        private final boolean withSeq;
+        private final int count;
+        private int position;
+        private boolean peeked;
+        private UUID id;
+        private long seq;
+
+        /**
+         * @param block uncompressed block bytes, from the start
+         * @param session attached to every decoded message
+         */
+        Reader(InputStream block, ChatSession session) throws IOException {
+            this.in = new DataInputStream(block);
+            this.session = session;
+            byte format = in.readByte();
+            if (format != FORMAT && format != FORMAT_WITHOUT_SEQ) {
+                throw new IllegalStateException("Unknown archive block format " + format);
+            }
+            this.withSeq = format == FORMAT;
+            this.count = in.readInt();
+        }
+
+        /**
+         * @return number of messages in the block, read or not
+         */
+        int count() {
+            return count;
+        }
+
+        boolean hasNext() {
+            return position < count;
+        }
+
+        UUID peekId() throws IOException {
+            peek();
+            return id;
+        }
+
+        long peekSeq() throws IOException {
+            peek();
+            return seq;
+        }
+
+        /**
+         * @return the next message, detached
+         */
+        ChatMessage next() throws IOException {
+            peek();
+            ChatMessage m = new ChatMessage();
+            m.setId(id);
+            m.setSeq(seq);
+            m.setSession(session);
+            m.setRole(SenderType.valueOf(readString(in)));
+            m.setCreatedAt(readInstant(in));
+            m.setUpdatedAt(readInstant(in));
+            m.setVersion(in.readLong());
+            m.setContent(readString(in));
+            m.setRetrievedContext(readString(in));
+            m.setMetadata(readString(in));
+            advance();
+            return m;
+        }
+
+        /**
+         * Moves past the next message without decoding it
+         */
+        void skip() throws IOException {
+            peek();
+            skipString(in);
+            in.skipNBytes(2 * INSTANT_BYTES + Long.BYTES);
+            skipString(in);
+            skipString(in);
+            skipString(in);
+            advance();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private void peek() throws IOException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (!peeked) {
+                id = new UUID(in.readLong(), in.readLong());
+                seq = withSeq ? in.readLong() : position + 1;
+                peeked = true;
+            }
+        }
+
+        private void advance() {
+            position++;
+            peeked = false;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length > 0) {
+            in.skipNBytes(length);
+        }
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant value) throws IOException {
+        out.writeLong(value.getEpochSecond());
+        out.writeInt(value.getNano());
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return Instant.ofEpochSecond(in.readLong(), in.readInt());
+    }
+}
@@ -0,0 +1,200 @@
+package com.rag.chat.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read side of one segment: the data file is memory-mapped and the offset index is held in memory.
+ * <pre>
+ * segment-NNNNNN.dat   MAGIC | zstd frame*                 (append-only)
+ * segment-NNNNNN.idx   entry*: session id (2 x int64) | offset (int64) | frame length (int32) | block length (int32)
+ * </pre>
+ * The writer appends the frame and forces it to disk before appending its index entry, so every index entry
+ * points at complete data. The segment currently being written grows; both the mapping and the index are
+ * refreshed when a lookup goes past what has been seen so far. A later entry for the same session wins; an entry
+ * with a negative offset is a tombstone: the session's blocks were erased (zeroed) and it is no longer in the segment.
+ */
+final class ArchiveSegment implements Closeable {
+
+    static final byte[] MAGIC = {'R', 'C', 'S', 'E', 'G', 0, 0, 1};
+    static final int INDEX_ENTRY_BYTES = 2 * Long.BYTES + Long.BYTES + 2 * Integer.BYTES;
+
+    record Entry(long offset, int length, int blockLength) {
+    }
+
+    private final int id;
+    private final FileChannel data;
+    private final FileChannel index;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private volatile MappedByteBuffer mapped;
+    private long indexBytesRead;
+
+    private ArchiveSegment(int id, FileChannel data, FileChannel index) {
+        this.id = id;
+        this.data = data;
+        this.index = index;
+    }
+
+    static ArchiveSegment open(Path directory, int id) throws IOException {
+        FileChannel data = FileChannel.open(dataFile(directory, id), StandardOpenOption.READ);
+        FileChannel index;
+        try {
+            index = FileChannel.open(indexFile(directory, id), StandardOpenOption.READ);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+        ArchiveSegment segment = new ArchiveSegment(id, data, index);
+        try {
+            segment.remap();
+            segment.readNewEntries();
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            segment.close();
+            throw e;
+        }
+    }
+
+    static Path dataFile(Path directory, int id) {
+        return directory.resolve("segment-%06d.dat".formatted(id));
+    }
+
+    static Path indexFile(Path directory, int id) {
+        return directory.resolve("segment-%06d.idx".formatted(id));
+    }
+
+    static ByteBuffer tombstone(UUID sessionId) {
+        return indexEntry(sessionId, -1, 0, 0);
+    }
+
+    static ByteBuffer indexEntry(UUID sessionId, long offset, int length, int blockLength) {
+        return ByteBuffer.allocate(INDEX_ENTRY_BYTES)
+                .putLong(sessionId.getMostSignificantBits())
+                .putLong(sessionId.getLeastSignificantBits())
+                .putLong(offset)
+                .putInt(length)
+                .putInt(blockLength)
+                .flip();
+    }
+
+    int id() {
+        return id;
+    }
+
+    Optional<Entry> find(UUID sessionId) throws IOException {
+        Entry entry = entries.get(sessionId);
+        if (entry == null) {
+            readNewEntries();
+            entry = entries.get(sessionId);
+        }
+        return Optional.ofNullable(entry);
+    }
+
+    /**
+     * Every block indexed for the session, including ones superseded by a later entry (e.g. left by an archival
+     * that failed after its append); empty once the session has been erased
+     */
+    synchronized List<Entry> blocksOf(UUID sessionId) throws IOException {
+        List<Entry> blocks = new ArrayList<>();
+        ByteBuffer buffer = readIndex(0, index.size() / INDEX_ENTRY_BYTES * INDEX_ENTRY_BYTES);
+        while (buffer.remaining() >= INDEX_ENTRY_BYTES) {
+            UUID id = new UUID(buffer.getLong(), buffer.getLong());
+            Entry entry = new Entry(buffer.getLong(), buffer.getInt(), buffer.getInt());
+            if (id.equals(sessionId)) {
+                if (entry.offset() < 0) {
+                    blocks.clear();
+                } else {
+                    blocks.add(entry);
+                }
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * @return how many sessions the segment still holds
+     */
+    int liveSessions() throws IOException {
+        readNewEntries();
+        return entries.size();
+    }
+
+    /**
+     * A read-only view of the entry's compressed frame, backed by the mapping (no copy)
+     */
+    ByteBuffer frame(Entry entry) throws IOException {
+        MappedByteBuffer current = mapped;
+        if (entry.offset() + entry.length() > current.capacity()) {
+            current = remap();
+        }
+        if (entry.offset() + entry.length() > current.capacity()) {
+            throw new IOException("Archive segment " + id + " is truncated at offset " + entry.offset());
+        }
+        return current.slice(Math.toIntExact(entry.offset()), entry.length()).asReadOnlyBuffer();
+    }
+
+    private synchronized MappedByteBuffer remap() throws IOException {
+        long size = data.size();
+        if (mapped == null || mapped.capacity() < size) {
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Archive segment " + id + " exceeds 2 GiB");
+            }
+            mapped = data.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        return mapped;
+    }
+
+    /**
+     * Picks up complete entries appended since the last read; a torn trailing entry is left for the next call.
+     */
+    private synchronized void readNewEntries() throws IOException {
+        long complete = index.size() / INDEX_ENTRY_BYTES * INDEX_ENTRY_BYTES;
+        if (complete <= indexBytesRead) {
+            return;
+        }
+        ByteBuffer buffer = readIndex(indexBytesRead, complete);
+        while (buffer.remaining() >= INDEX_ENTRY_BYTES) {
+            UUID sessionId = new UUID(buffer.getLong(), buffer.getLong());
+            Entry entry = new Entry(buffer.getLong(), buffer.getInt(), buffer.getInt());
+            if (entry.offset() < 0) {
+                entries.remove(sessionId);
+            } else {
+                entries.put(sessionId, entry);
+            }
+        }
+        indexBytesRead = complete;
+    }
+
+    private ByteBuffer readIndex(long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(to - from));
+        long position = from;
+        while (buffer.hasRemaining()) {
+            int read = index.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Archive index " + id + " shrank while reading");
+            }
+            position += read;
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            index.close();
+        } finally {
+            data.close();
+        }
+    }
+}
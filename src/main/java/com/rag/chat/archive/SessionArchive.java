@@ -0,0 +1,393 @@
+package com.rag.chat.archive;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import com.rag.chat.config.ArchiveProperties;
+import com.rag.chat.entity.ChatMessage;
+import com.rag.chat.entity.ChatSession;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cold tier for sealed sessions: each session's messages become one zstd-compressed block appended to the
+ * current segment file (see {@link ArchiveSegment} for the layout). Reads stream-decode a block out of its
+ * memory-mapped segment and stop as soon as the requested messages are read.
+ * Appends are serialized within the instance; across instances the caller must hold a lock
+ * (the archival job takes a PostgreSQL advisory lock).
+ */
+@Slf4j
+@Component
+public class SessionArchive {
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("^segment-(\\d{6})\\.dat$");
+    private static final int READ_BUFFER_BYTES = 16 * 1024;
+
+    private final ArchiveProperties properties;
+    private final Path directory;
+    private final Map<Integer, ArchiveSegment> segments = new ConcurrentHashMap<>();
+
+    private FileChannel activeData;
+    private FileChannel activeIndex;
+    private int activeId;
+
+    public SessionArchive(ArchiveProperties properties) {
+        this.properties = properties;
+        this.directory = Path.of(properties.directory()).toAbsolutePath();
+    }
+
+    /**
+     * Append a session's messages as one block and force it to disk
+     * @param sessionId
+     * @param messages in transcript order
+     * @return id of the segment now holding the session
+     */
+    public synchronized int append(UUID sessionId, List<ChatMessage> messages) {
+        byte[] block = ArchiveBlockCodec.encode(messages);
+        byte[] frame = Zstd.compress(block, properties.compressionLevel());
+        try {
+            FileChannel data = activeSegment();
+            long offset = data.size();
+            writeFully(data, ByteBuffer.wrap(frame), offset);
+            data.force(false);
+            writeFully(activeIndex, ArchiveSegment.indexEntry(sessionId, offset, frame.length, block.length), activeIndex.size());
+            activeIndex.force(false);
+            log.debug("Archived {} messages of session {} into segment {} at offset {} ({} -> {} bytes)",
+                    messages.size(), sessionId, activeId, offset, block.length, frame.length);
+            return activeId;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append session " + sessionId + " to the archive", e);
+        }
+    }
+
+    /**
+     * Messages of an archived session, decoded from its memory-mapped segment. Use the range reads below when only
+     * part of the transcript is needed.
+     * @param session an archived session
+     * @return detached messages in transcript order, attached to {@code session}
+     */
+    public List<ChatMessage> read(ChatSession session) {
+        return slice(session, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Number of messages in an archived session; decodes only the block header
+     * @param session an archived session
+     */
+    public int count(ChatSession session) {
+        return scan(session, ArchiveBlockCodec.Reader::count);
+    }
+
+    /**
+     * A positional range of an archived transcript; the messages before {@code offset} are skipped undecoded and
+     * the block is not decompressed past the last message returned
+     * @param session an archived session
+     * @param offset number of leading messages to pass over
+     * @param limit maximum number of messages
+     * @return messages in transcript order
+     */
+    public List<ChatMessage> slice(ChatSession session, long offset, int limit) {
+        return scan(session, reader -> {
+            List<ChatMessage> messages = new ArrayList<>(Math.min(limit, reader.count()));
+            for (long i = 0; i < offset && reader.hasNext(); i++) {
+                reader.skip();
+            }
+            while (reader.hasNext() && messages.size() < limit) {
+                messages.add(reader.next());
+            }
+            return messages;
+        });
+    }
+
+    /**
+     * The archived counterpart of a keyset query forward: messages with a seq above {@code seq}, ascending
+     * @param session an archived session
+     * @param seq exclusive lower bound, 0 for the oldest messages
+     * @param limit maximum number of messages
+     */
+    public List<ChatMessage> after(ChatSession session, long seq, int limit) {
+        return scan(session, reader -> {
+            List<ChatMessage> messages = new ArrayList<>(Math.min(limit, reader.count()));
+            while (reader.hasNext() && messages.size() < limit) {
+                if (reader.peekSeq() > seq) {
+                    messages.add(reader.next());
+                } else {
+                    reader.skip();
+                }
+            }
+            return messages;
+        });
+    }
+
+    /**
+     * The archived counterpart of a keyset query backward: the last {@code limit} messages with a seq below
+     * {@code seq}, descending. Decoding stops at {@code seq}; at most {@code limit} messages are held at a time.
+     * @param session an archived session
+     * @param seq exclusive upper bound, {@link Long#MAX_VALUE} for the newest messages
+     * @param limit maximum number of messages
+     */
+    public List<ChatMessage> before(ChatSession session, long seq, int limit) {
+        return scan(session, reader -> {
+            Deque<ChatMessage> newest = new ArrayDeque<>(Math.min(limit, reader.count()) + 1);
+            if (seq == Long.MAX_VALUE) {
+                // the newest messages are the last ones; the others need not be decoded
+                for (int i = reader.count() - limit; i > 0; i--) {
+                    reader.skip();
+                }
+            }
+            while (reader.hasNext() && reader.peekSeq() < seq) {
+                newest.addFirst(reader.next());
+                if (newest.size() > limit) {
+                    newest.removeLast();
+                }
+            }
+            return new ArrayList<>(newest);
+        });
+    }
+
+    /**
+     * Archived messages by id; only those are decoded, and reading stops once all of them are found
+     * @param session an archived session
+     * @param ids
+     * @return the messages found, in transcript order
+     */
+    public List<ChatMessage> find(ChatSession session, Collection<UUID> ids) {
+        Set<UUID> wanted = new HashSet<>(ids);
+        return scan(session, reader -> {
+            List<ChatMessage> messages = new ArrayList<>(wanted.size());
+            while (reader.hasNext() && !wanted.isEmpty()) {
+                if (wanted.remove(reader.peekId())) {
+                    messages.add(reader.next());
+                } else {
+                    reader.skip();
+                }
+            }
+            return messages;
+        });
+    }
+
+    /**
+     * Hands an archived transcript to {@code action} one message at a time, without collecting it
+     * @param session an archived session
+     * @param action called in transcript order
+     * @return number of messages visited
+     */
+    public long forEach(ChatSession session, Consumer<ChatMessage> action) {
+        return scan(session, reader -> {
+            long visited = 0;
+            while (reader.hasNext()) {
+                action.accept(reader.next());
+                visited++;
+            }
+            return visited;
+        });
+    }
+
+    /**
+     * Removes a session from the archive for good: its blocks are overwritten with zeros and forced to disk, then
+     * a tombstone is appended to the segment's index. A sealed segment left without sessions is deleted. Erasing a
+     * session that is no longer in the segment (or a segment that is gone) is a no-op, so an interrupted erase can
+     * simply be repeated. Like {@link #append}, the caller must hold the archival lock across instances.
+     * @param segmentId the session's archive segment
+     * @param sessionId
+     */
+    public synchronized void erase(int segmentId, UUID sessionId) {
+        Path dataFile = ArchiveSegment.dataFile(directory, segmentId);
+        if (!segments.containsKey(segmentId) && Files.notExists(dataFile)) {
+            return;
+        }
+        try {
+            ArchiveSegment segment = segment(segmentId);
+            List<ArchiveSegment.Entry> blocks = segment.blocksOf(sessionId);
+            if (!blocks.isEmpty()) {
+                try (FileChannel data = FileChannel.open(dataFile, StandardOpenOption.WRITE)) {
+                    for (ArchiveSegment.Entry block : blocks) {
+                        writeFully(data, ByteBuffer.allocate(block.length()), block.offset());
+                    }
+                    data.force(false);
+                }
+                try (FileChannel index = FileChannel.open(ArchiveSegment.indexFile(directory, segmentId), StandardOpenOption.WRITE)) {
+                    writeFully(index, ArchiveSegment.tombstone(sessionId), index.size());
+                    index.force(false);
+                }
+                log.debug("Erased {} archived block(s) of session {} from segment {}", blocks.size(), sessionId, segmentId);
+            }
+            if (segment.liveSessions() == 0 && segmentId < Math.max(activeId, latestSegmentId())) {
+                segments.remove(segmentId).close();
+                Files.deleteIfExists(ArchiveSegment.indexFile(directory, segmentId));
+                Files.deleteIfExists(dataFile);
+                log.info("Deleted archive segment {}: no sessions left", segmentId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to erase session " + sessionId + " from archive segment " + segmentId, e);
+        }
+    }
+
+    /**
+     * Streams the session's block out of its memory-mapped frame: decompression proceeds only as far as
+     * {@code body} reads, so the whole block is never on the heap.
+     */
+    private <T> T scan(ChatSession session, BlockScan<T> body) {
+        Integer segmentId = session.getArchiveSegment();
+        if (segmentId == null) {
+            throw new IllegalStateException("Session " + session.getId() + " has no archive segment");
+        }
+        try {
+            ArchiveSegment segment = segment(segmentId);
+            ArchiveSegment.Entry entry = segment.find(session.getId())
+                    .orElseThrow(() -> new IllegalStateException(
+                            "Session " + session.getId() + " is missing from archive segment " + segmentId));
+            InputStream block = new BufferedInputStream(
+                    new ZstdInputStreamNoFinalizer(new ByteBufferInputStream(segment.frame(entry))), READ_BUFFER_BYTES);
+            try (ArchiveBlockCodec.Reader reader = new ArchiveBlockCodec.Reader(block, session)) {
+                return body.apply(reader);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read session " + session.getId() + " from the archive", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        closeActive();
+        for (ArchiveSegment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private ArchiveSegment segment(int id) {
+        return segments.computeIfAbsent(id, key -> {
+            try {
+                return ArchiveSegment.open(directory, key);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open archive segment " + key, e);
+            }
+        });
+    }
+
+    /**
+     * The segment being appended to; opens the newest one on first use and rolls over once it is full.
+     */
+    private FileChannel activeSegment() throws IOException {
+        if (activeData == null) {
+            Files.createDirectories(directory);
+            openActive(Math.max(latestSegmentId(), 1));
+        }
+        if (activeData.size() >= properties.segmentMaxBytes()) {
+            int next = activeId + 1;
+            closeActive();
+            openActive(next);
+        }
+        return activeData;
+    }
+
+    private void openActive(int id) throws IOException {
+        FileChannel data = FileChannel.open(ArchiveSegment.dataFile(directory, id),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index = FileChannel.open(ArchiveSegment.indexFile(directory, id),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (data.size() == 0) {
+            writeFully(data, ByteBuffer.wrap(ArchiveSegment.MAGIC), 0);
+            data.force(true);
+        }
+        // drop a torn trailing index entry left by a crash mid-append
+        index.truncate(index.size() / ArchiveSegment.INDEX_ENTRY_BYTES * ArchiveSegment.INDEX_ENTRY_BYTES);
+        activeData = data;
+        activeIndex = index;
+        activeId = id;
+        log.info("Archive segment {} open for appends in {}", id, directory);
+    }
+
+    private void closeActive() throws IOException {
+        if (activeData != null) {
+            try {
+                activeIndex.close();
+            } finally {
+                activeData.close();
+                activeData = null;
+                activeIndex = null;
+            }
+        }
+    }
+
+    private int latestSegmentId() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> SEGMENT_FILE.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .mapToInt(m -> Integer.parseInt(m.group(1)))
+                    .max()
+                    .orElse(0);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlockScan<T> {
+        T apply(ArchiveBlockCodec.Reader reader) throws IOException;
+    }
+
+    /**
+     * Reads a (mapped) buffer from its position to its limit
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
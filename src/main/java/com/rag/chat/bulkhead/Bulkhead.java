@@ -0,0 +1,75 @@
+package com.rag.chat.bulkhead;
+
+import com.rag.chat.config.BulkheadProperties.Limits;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit for one {@link RequestClass}: up to max-concurrent requests run, up to max-queue more wait at most
+ * queue-timeout for a slot, and the rest are turned away at once instead of piling up on shared threads and
+ * connections.
+ */
+public class Bulkhead {
+
+    private final RequestClass requestClass;
+    private final Limits limits;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter rejected;
+
+    public Bulkhead(RequestClass requestClass, Limits limits, MeterRegistry meterRegistry) {
+        this.requestClass = requestClass;
+        this.limits = limits;
+        this.permits = new Semaphore(limits.maxConcurrent(), true);
+        String tag = requestClass.tag();
+        Gauge.builder("chat.bulkhead.active", permits, p -> limits.maxConcurrent() - p.availablePermits())
+                .description("Requests of the class currently running")
+                .tag("class", tag)
+                .register(meterRegistry);
+        Gauge.builder("chat.bulkhead.queued", queued, AtomicInteger::get)
+                .description("Requests of the class waiting for a slot")
+                .tag("class", tag)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("chat.bulkhead.rejected")
+                .description("Requests of the class rejected because its bulkhead was full")
+                .tag("class", tag)
+                .register(meterRegistry);
+    }
+
+    public RequestClass getRequestClass() {
+        return requestClass;
+    }
+
+    /**
+     * Takes a slot, waiting in the class's queue if there is room in it
+     * @return false when the request must be rejected; otherwise the caller owes a {@link #release()}
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (queued.incrementAndGet() > limits.maxQueue()) {
+            queued.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(limits.queueTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+            rejected.increment();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+}
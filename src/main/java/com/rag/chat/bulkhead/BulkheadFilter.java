@@ -0,0 +1,122 @@
+package com.rag.chat.bulkhead;
+
+import com.rag.chat.util.Translator;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Classifies API requests, holds a slot of the class's {@link Bulkhead} for the whole request (including an async
+ * tail such as a streamed export) and binds the class to the thread for {@link RequestClassDataSource}.
+ * A request whose bulkhead is full is answered with 503 and Retry-After straight away.
+ */
+@Slf4j
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private final Map<RequestClass, Bulkhead> bulkheads;
+    private final Translator translator;
+
+    public BulkheadFilter(Map<RequestClass, Bulkhead> bulkheads, Translator translator) {
+        this.bulkheads = new EnumMap<>(bulkheads);
+        this.translator = translator;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return "OPTIONS".equalsIgnoreCase(request.getMethod()) || RequestClass.of(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Bulkhead bulkhead = bulkheads.get(RequestClass.of(request));
+        if (!acquire(bulkhead)) {
+            log.warn("Bulkhead {} full, rejecting {} {}", bulkhead.getRequestClass().tag(), request.getMethod(), request.getRequestURI());
+            reject(request, response);
+            return;
+        }
+        boolean releaseLater = false;
+        RequestClass.bind(bulkhead.getRequestClass());
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new Releasing(bulkhead));
+                releaseLater = true;
+            }
+        } finally {
+            RequestClass.clear();
+            if (!releaseLater) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    private static boolean acquire(Bulkhead bulkhead) {
+        try {
+            return bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String msg = translator.toLocale("bulkhead.rejected", Translator.getLocaleFromRequest(request));
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType("application/json; charset=UTF-8");
+        response.getWriter().write(
+                String.format("{\"status\":%d,\"code\":\"%s\",\"message\":\"%s\"}", 503, "BULKHEAD_FULL", msg)
+        );
+    }
+
+    /**
+     * Gives the slot back once the async part of the request is over, whichever way it ends
+     */
+    private static final class Releasing implements AsyncListener {
+
+        private final Bulkhead bulkhead;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Releasing(Bulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                bulkhead.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.rag.chat.bulkhead;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Request classes that get their own bulkhead and connection pool, so that a burst in one (agents ingesting
+ * messages, an analytics export) cannot starve the others (UI listing). The class of the request being handled is
+ * bound to the thread by {@link BulkheadFilter} and picked up by {@link RequestClassDataSource}.
+ */
+public enum RequestClass {
+
+    INGEST,
+    INTERACTIVE,
+    BULK;
+
+    private static final ThreadLocal<RequestClass> CURRENT = new ThreadLocal<>();
+
+    /**
+     * @return the class of an API request, or null for anything outside /api/ (actuator, API docs)
+     */
+    public static RequestClass of(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (!uri.startsWith("/api/")) {
+            return null;
+        }
+        if (uri.endsWith("/export")) {
+            return BULK;
+        }
+        return switch (request.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> INTERACTIVE;
+            default -> INGEST;
+        };
+    }
+
+    /**
+     * @return the class bound to this thread, or null outside a classified request (scheduled jobs, startup)
+     */
+    public static RequestClass current() {
+        return CURRENT.get();
+    }
+
+    public static void bind(RequestClass requestClass) {
+        if (requestClass == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(requestClass);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
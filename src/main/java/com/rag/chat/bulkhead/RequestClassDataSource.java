@@ -0,0 +1,40 @@
+package com.rag.chat.bulkhead;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Primary-side DataSource that hands out connections from the pool of the current {@link RequestClass}.
+ * Work outside a classified request (scheduled jobs, health checks, startup) uses the default pool.
+ */
+public class RequestClassDataSource extends AbstractRoutingDataSource {
+
+    private final Map<RequestClass, DataSource> pools;
+
+    public RequestClassDataSource(DataSource defaultPool, Map<RequestClass, DataSource> pools) {
+        this.pools = Map.copyOf(pools);
+        setDefaultTargetDataSource(defaultPool);
+        setTargetDataSources(new HashMap<>(pools));
+        setLenientFallback(true);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return RequestClass.current();
+    }
+
+    /**
+     * Closes the per-class pools; the default pool belongs to the application context
+     */
+    public void close() throws Exception {
+        for (DataSource pool : pools.values()) {
+            if (pool instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.rag.chat.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.rag.chat.entity.ChatMessage;
+import com.rag.chat.entity.ChatSession;
+import com.rag.chat.repository.MessageView;
+import com.rag.chat.repository.SessionView;
+import org.springframework.data.domain.Page;
+
+import java.util.Collection;
+
+/**
+ * Approximates the retained heap size of a cache entry in bytes,
+ * so cache bounds are expressed in memory rather than entry counts.
+ */
+public class CacheEntryWeigher implements Weigher<Object, Object> {
+
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final int REFERENCE = 8;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long bytes = estimate(key) + estimate(value);
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    static long estimate(Object o) {
+        if (o == null) {
+            return 0;
+        }
+        if (o instanceof String s) {
+            return 40L + s.length() * 2L;
+        }
+        if (o instanceof ChatMessage m) {
+            return OBJECT_OVERHEAD + 9 * REFERENCE + 136
+                    + estimate(m.getContent())
+                    + estimate(m.getRetrievedContext())
+                    + estimate(m.getMetadata());
+        }
+        if (o instanceof MessageView m) {
+            return OBJECT_OVERHEAD + 8 * REFERENCE + 80
+                    + estimate(m.content())
+                    + estimate(m.retrievedContext())
+                    + estimate(m.metadata());
+        }
+        if (o instanceof ChatSession s) {
+            return OBJECT_OVERHEAD + 7 * REFERENCE + 120 + estimate(s.getTitle());
+        }
+        if (o instanceof SessionView s) {
+            return OBJECT_OVERHEAD + 7 * REFERENCE + 72 + estimate(s.title());
+        }
+        if (o instanceof Page<?> page) {
+            return 96 + estimate(page.getContent());
+        }
+        if (o instanceof Collection<?> c) {
+            long sum = OBJECT_OVERHEAD + 16L + (long) c.size() * REFERENCE;
+            for (Object e : c) {
+                sum += estimate(e);
+            }
+            return sum;
+        }
+        return 64;
+    }
+}
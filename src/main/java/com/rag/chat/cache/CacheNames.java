@@ -0,0 +1,12 @@
+package com.rag.chat.cache;
+
+public final class CacheNames {
+
+    public static final String CHAT_MESSAGES = "chatMessages";
+    public static final String SESSION_PAGES = "sessionPages";
+    /** Hibernate second-level cache region of {@link com.rag.chat.entity.ChatSession} */
+    public static final String CHAT_SESSIONS = "chatSessions";
+
+    private CacheNames() {
+    }
+}
@@ -0,0 +1,95 @@
+package com.rag.chat.cache;
+
+import com.rag.chat.entity.ChatSession;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Evicts only the cached pages that belong to one session.
+ * Message page keys are prefixed with the session id and indexed by it ({@link SessionPageCache}), so an append
+ * to session X touches only X's pages and leaves other sessions warm.
+ * Inside a transaction the eviction runs after commit, so concurrent readers cannot re-cache pre-commit state.
+ * Also evicts ChatSession entities from the second-level cache after writes that bypass Hibernate.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class SessionCacheInvalidator {
+
+    private final CacheManager cacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public void evictSessionMessages(UUID sessionId) {
+        evictSessionMessages(List.of(sessionId));
+    }
+
+    /**
+     * Evicts the message pages of several sessions
+     */
+    public void evictSessionMessages(Collection<UUID> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        Set<UUID> ids = Set.copyOf(sessionIds);
+        afterCommit(() -> evictNow(ids));
+    }
+
+    /**
+     * Drops every cached favorites page, for session changes made outside the annotated service methods
+     */
+    public void evictSessionPages() {
+        Cache cache = cacheManager.getCache(CacheNames.SESSION_PAGES);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Drops second-level cache entries of sessions changed with plain SQL (activity write-back, retention expiry,
+     * purge, bulk updates); writes through the entity and JPQL updates are handled by Hibernate itself
+     */
+    public void evictSessions(Collection<UUID> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        List<UUID> ids = List.copyOf(sessionIds);
+        afterCommit(() -> {
+            jakarta.persistence.Cache cache = entityManagerFactory.getCache();
+            ids.forEach(id -> cache.evict(ChatSession.class, id));
+        });
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+
+    private void evictNow(Set<UUID> sessionIds) {
+        Cache cache = cacheManager.getCache(CacheNames.CHAT_MESSAGES);
+        if (cache instanceof SessionPageCache pages) {
+            pages.evictSessions(sessionIds);
+        } else if (cache != null) {
+            cache.clear();
+        }
+        log.debug("Evicted cached message pages for sessions {}", sessionIds);
+    }
+}
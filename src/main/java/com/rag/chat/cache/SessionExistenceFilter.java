@@ -0,0 +1,175 @@
+package com.rag.chat.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rag.chat.config.SessionLookupProperties;
+import com.rag.chat.exception.ResourceNotFoundException;
+import com.rag.chat.repository.SessionExistenceRepository;
+import com.rag.chat.util.UuidV7;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers lookups of session ids that are known not to exist without querying the database, so clients polling
+ * stale or deleted ids cost a map lookup and a stackless exception. Two sources, each only trusted for ids whose
+ * UUIDv7 timestamp is older than app.session-lookup.settle-time; younger ids (a session just created on another
+ * instance, or not yet on the replica that served the miss) are always looked up:
+ * <ul>
+ *     <li>a bounded negative cache of ids that were recently missed or deleted here</li>
+ *     <li>a Bloom filter of every live session id, rebuilt every app.session-lookup.bloom-rebuild-interval. An id
+ *     the filter has never seen and that predates the rebuild cannot exist. Deleted sessions stay in it until the
+ *     next rebuild and fall back to the negative cache.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class SessionExistenceFilter {
+
+    private final SessionExistenceRepository repository;
+    private final SessionLookupProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Clock clock;
+    private final Cache<UUID, Boolean> missing;
+    private volatile Snapshot snapshot;
+
+    private final Counter negativeHits;
+    private final Counter bloomHits;
+    private final AtomicLong bloomSessions = new AtomicLong();
+
+    /**
+     * Bloom filter of the ids that were live when the rebuild started; authoritative for ids created before trustedBefore
+     */
+    private record Snapshot(UuidBloomFilter filter, Instant trustedBefore) {
+    }
+
+    @Autowired
+    public SessionExistenceFilter(SessionExistenceRepository repository, SessionLookupProperties properties,
+                                  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this(repository, properties, transactionManager, meterRegistry, Clock.systemUTC());
+    }
+
+    public SessionExistenceFilter(SessionExistenceRepository repository, SessionLookupProperties properties,
+                                  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry, Clock clock) {
+        this.repository = repository;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.clock = clock;
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(properties.negativeMaxEntries())
+                .expireAfterWrite(properties.negativeTtl())
+                .build();
+        this.negativeHits = meterRegistry.counter("chat.session.lookup.rejected", "source", "negative");
+        this.bloomHits = meterRegistry.counter("chat.session.lookup.rejected", "source", "bloom");
+        Gauge.builder("chat.session.lookup.bloom.sessions", bloomSessions, AtomicLong::get)
+                .description("Live session ids in the current Bloom filter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Throws session.not.found when the session is known not to exist; otherwise the caller looks it up
+     */
+    public void rejectKnownMissing(UUID sessionId) {
+        if (isKnownMissing(sessionId)) {
+            throw new ResourceNotFoundException("session.not.found");
+        }
+    }
+
+    /**
+     * Whether the session is known not to exist, for batch lookups that skip such ids instead of failing
+     */
+    public boolean isKnownMissing(UUID sessionId) {
+        if (missing.getIfPresent(sessionId) != null) {
+            negativeHits.increment();
+            return true;
+        }
+        Snapshot current = snapshot;
+        if (current != null && createdBefore(sessionId, current.trustedBefore())
+                && !current.filter().mightContain(sessionId)) {
+            bloomHits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remembers an id the database did not find, once it is old enough for the miss to be final
+     */
+    public void recordMissing(UUID sessionId) {
+        if (createdBefore(sessionId, clock.instant().minus(properties.settleTime()))) {
+            missing.put(sessionId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Remembers a deleted session once the deleting transaction commits; deletion is final
+     */
+    public void recordDeleted(UUID sessionId) {
+        recordDeleted(List.of(sessionId));
+    }
+
+    public void recordDeleted(Collection<UUID> sessionIds) {
+        List<UUID> ids = List.copyOf(sessionIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ids.forEach(id -> missing.put(id, Boolean.TRUE));
+                }
+            });
+        } else {
+            ids.forEach(id -> missing.put(id, Boolean.TRUE));
+        }
+    }
+
+    /**
+     * Rebuilds the Bloom filter from chat_session, sized for the larger of the table estimate and
+     * app.session-lookup.expected-sessions. Until the first rebuild succeeds only the negative cache answers.
+     * @return number of live sessions loaded, or -1 when the rebuild failed and the previous filter stays
+     */
+    @Scheduled(fixedDelayString = "${app.session-lookup.bloom-rebuild-interval:PT1H}")
+    public long rebuild() {
+        Instant started = clock.instant();
+        try {
+            Long loaded = readOnlyTransaction.execute(status -> {
+                UuidBloomFilter filter = new UuidBloomFilter(
+                        Math.max(properties.expectedSessions(), repository.estimateCount() * 5 / 4),
+                        properties.falsePositiveRate());
+                long count = repository.forEachLiveId(filter::add);
+                snapshot = new Snapshot(filter, started.minus(properties.settleTime()));
+                return count;
+            });
+            bloomSessions.set(loaded);
+            log.info("Rebuilt session Bloom filter with {} ids in {} ms", loaded,
+                    clock.millis() - started.toEpochMilli());
+            return loaded;
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild session Bloom filter: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Non-v7 ids predate UUIDv7 keys (or were never issued by this service), so they count as old
+     */
+    private static boolean createdBefore(UUID sessionId, Instant instant) {
+        Instant createdAt = UuidV7.timestamp(sessionId);
+        return createdAt == null || createdAt.isBefore(instant);
+    }
+}
@@ -0,0 +1,133 @@
+package com.rag.chat.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caffeine cache of message pages keyed {@code "<session id>-..."} that indexes its keys by session,
+ * so evicting one session's pages costs as many operations as that session has pages instead of a walk
+ * over every key. Keys are indexed after they are stored and unindexed by the (synchronous) eviction listener
+ * or by the explicit removals below; an index entry whose page is already gone is harmless.
+ */
+public class SessionPageCache extends CaffeineCache {
+
+    private static final int SESSION_ID_LENGTH = 36;
+
+    private final ConcurrentMap<UUID, Set<Object>> keysBySession;
+
+    private SessionPageCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                             ConcurrentMap<UUID, Set<Object>> keysBySession) {
+        super(name, cache, false);
+        this.keysBySession = keysBySession;
+    }
+
+    public static SessionPageCache build(String name, Caffeine<Object, Object> builder) {
+        ConcurrentMap<UUID, Set<Object>> keysBySession = new ConcurrentHashMap<>();
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = builder
+                .evictionListener((key, value, cause) -> unindex(keysBySession, key))
+                .build();
+        return new SessionPageCache(name, cache, keysBySession);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, value);
+        index(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = super.putIfAbsent(key, value);
+        index(key);
+        return existing;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        T value = super.get(key, valueLoader);
+        index(key);
+        return value;
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        unindex(keysBySession, key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = super.evictIfPresent(key);
+        unindex(keysBySession, key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        keysBySession.clear();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        keysBySession.clear();
+        return super.invalidate();
+    }
+
+    /**
+     * Drops the cached pages of the given sessions
+     */
+    public void evictSessions(Collection<UUID> sessionIds) {
+        List<Object> keys = sessionIds.stream()
+                .map(keysBySession::remove)
+                .filter(Objects::nonNull)
+                .flatMap(Set::stream)
+                .toList();
+        if (!keys.isEmpty()) {
+            getNativeCache().invalidateAll(keys);
+        }
+    }
+
+    private void index(Object key) {
+        UUID sessionId = sessionOf(key);
+        if (sessionId != null) {
+            keysBySession.compute(sessionId, (id, keys) -> {
+                Set<Object> indexed = keys != null ? keys : new HashSet<>();
+                indexed.add(key);
+                return indexed;
+            });
+        }
+    }
+
+    private static void unindex(ConcurrentMap<UUID, Set<Object>> keysBySession, Object key) {
+        UUID sessionId = sessionOf(key);
+        if (sessionId != null) {
+            keysBySession.computeIfPresent(sessionId, (id, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private static UUID sessionOf(Object key) {
+        String k = key != null ? key.toString() : "";
+        if (k.length() <= SESSION_ID_LENGTH || k.charAt(SESSION_ID_LENGTH) != '-') {
+            return null;
+        }
+        try {
+            return UUID.fromString(k.substring(0, SESSION_ID_LENGTH));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.rag.chat.cache;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter of UUIDs, safe for concurrent adds and lookups. {@link #mightContain} never answers false
+ * for an added id; it answers true for an id never added with about the configured rate once the filter holds its
+ * expected number of ids. Bit positions come from two 64-bit hashes of the id (Kirsch-Mitzenmacher).
+ */
+public final class UuidBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public UuidBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashCount = (int) Math.max(1, Math.min(16, Math.round((double) bitCount / n * LN2)));
+    }
+
+    public void add(UUID id) {
+        long h1 = h1(id);
+        long h2 = h2(h1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.accumulateAndGet(word, mask, (a, b) -> a | b);
+            }
+        }
+    }
+
+    public boolean mightContain(UUID id) {
+        long h1 = h1(id);
+        long h2 = h2(h1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    private static long h1(UUID id) {
+        return mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+    }
+
+    private static long h2(long h1) {
+        return mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+    }
+
+    /** MurmurHash3 fmix64 finalizer */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
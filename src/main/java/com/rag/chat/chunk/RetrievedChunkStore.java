@@ -0,0 +1,198 @@
+package com.rag.chat.chunk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rag.chat.config.ChunkStoreProperties;
+import com.rag.chat.repository.RetrievedChunkRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.rag.chat.util.JSONSerializerDeserializerUtil.MAPPER;
+import static com.rag.chat.util.JSONSerializerDeserializerUtil.serialize;
+
+/**
+ * Deduplicates retrievedContext.chunks across messages.
+ * On ingest each large chunk becomes {@code {"id":..,"score":..,"$chunk":"<sha-256>"}} and its body is stored once
+ * in retrieved_chunk; on read references are resolved through a byte-weighted LRU in front of that table.
+ * Documents without references are passed through untouched, without parsing.
+ */
+@Slf4j
+@Component
+public class RetrievedChunkStore {
+
+    public static final String REF_FIELD = "$chunk";
+    private static final String REF_MARKER = "\"" + REF_FIELD + "\"";
+    private static final String CHUNKS_FIELD = "chunks";
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final RetrievedChunkRepository repository;
+    private final ChunkStoreProperties properties;
+    private final Cache<String, String> bodies;
+
+    public RetrievedChunkStore(RetrievedChunkRepository repository, ChunkStoreProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(properties.cacheMaxBytes())
+                .weigher((String hash, String body) -> 64 + 2 * body.length())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * A serialized retrievedContext and the chunk bodies it references
+     * @param json document to store on the message
+     * @param chunks body JSON by hash, to be saved with {@link #save(Map)}
+     */
+    public record Dehydrated(String json, Map<String, String> chunks) {
+    }
+
+    /**
+     * @throws IllegalArgumentException if a chunk carries the reserved {@code $chunk} key: only references
+     * created here are ever resolved, so a client cannot point its message at another chunk body or store a
+     * reference that fails to resolve
+     */
+    public Dehydrated dehydrate(Object retrievedContext) {
+        if (retrievedContext == null) {
+            return new Dehydrated(null, Map.of());
+        }
+        JsonNode root = MAPPER.valueToTree(retrievedContext);
+        if (!(root.get(CHUNKS_FIELD) instanceof ArrayNode chunkArray)) {
+            return new Dehydrated(serialize(root, "retrievedContext"), Map.of());
+        }
+        for (JsonNode chunk : chunkArray) {
+            if (chunk.has(REF_FIELD)) {
+                throw new IllegalArgumentException("retrievedContext.chunk.reserved");
+            }
+        }
+        if (!properties.enabled()) {
+            return new Dehydrated(serialize(root, "retrievedContext"), Map.of());
+        }
+        Map<String, String> chunks = new HashMap<>();
+        for (int i = 0; i < chunkArray.size(); i++) {
+            if (!(chunkArray.get(i) instanceof ObjectNode chunk)) {
+                continue;
+            }
+            ObjectNode body = chunk.deepCopy();
+            ObjectNode reference = MAPPER.createObjectNode();
+            for (String field : properties.inlineFields()) {
+                JsonNode value = body.remove(field);
+                if (value != null) {
+                    reference.set(field, value);
+                }
+            }
+            String bodyJson = body.toString();
+            byte[] bodyBytes = bodyJson.getBytes(StandardCharsets.UTF_8);
+            if (bodyBytes.length < properties.minBytes()) {
+                continue;
+            }
+            String hash = sha256(bodyBytes);
+            reference.put(REF_FIELD, hash);
+            chunkArray.set(i, reference);
+            chunks.put(hash, bodyJson);
+        }
+        return new Dehydrated(serialize(root, "retrievedContext"), chunks);
+    }
+
+    /**
+     * Persist chunk bodies in the caller's transaction and warm the read cache.
+     */
+    public void save(Map<String, String> chunks) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        repository.insertMissing(chunks);
+        bodies.putAll(chunks);
+    }
+
+    /**
+     * Resolve chunk references, loading all missing bodies with one query.
+     * @param stored retrievedContext documents as stored (null allowed)
+     * @return documents in the same order, with references replaced by the full chunks
+     */
+    public List<String> hydrate(List<String> stored) {
+        List<JsonNode> parsed = new ArrayList<>(stored.size());
+        Set<String> hashes = new LinkedHashSet<>();
+        for (String json : stored) {
+            JsonNode root = json != null && json.contains(REF_MARKER) ? readTree(json) : null;
+            parsed.add(root);
+            if (root != null && root.get(CHUNKS_FIELD) instanceof ArrayNode chunkArray) {
+                chunkArray.forEach(chunk -> {
+                    JsonNode ref = chunk.get(REF_FIELD);
+                    if (ref != null && ref.isTextual()) {
+                        hashes.add(ref.asText());
+                    }
+                });
+            }
+        }
+        if (hashes.isEmpty()) {
+            return stored;
+        }
+        Map<String, String> resolved = bodies.getAll(hashes, missing -> repository.findByHashes(List.copyOf(missing)));
+
+        List<String> result = new ArrayList<>(stored.size());
+        for (int i = 0; i < stored.size(); i++) {
+            JsonNode root = parsed.get(i);
+            result.add(root == null ? stored.get(i) : resolve(root, resolved));
+        }
+        return result;
+    }
+
+    public String hydrate(String stored) {
+        return hydrate(Collections.singletonList(stored)).get(0);
+    }
+
+    private String resolve(JsonNode root, Map<String, String> resolved) {
+        if (!(root.get(CHUNKS_FIELD) instanceof ArrayNode chunkArray)) {
+            return root.toString();
+        }
+        for (int i = 0; i < chunkArray.size(); i++) {
+            if (!(chunkArray.get(i) instanceof ObjectNode reference) || !reference.has(REF_FIELD)) {
+                continue;
+            }
+            String hash = reference.get(REF_FIELD).asText();
+            String body = resolved.get(hash);
+            if (body == null) {
+                log.warn("Retrieved chunk {} is missing; returning the reference", hash);
+                continue;
+            }
+            ObjectNode chunk = reference.deepCopy();
+            chunk.remove(REF_FIELD);
+            chunk.setAll((ObjectNode) readTree(body));
+            chunkArray.set(i, chunk);
+        }
+        return root.toString();
+    }
+
+    private static JsonNode readTree(String json) {
+        try {
+            return MAPPER.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored retrievedContext is not valid JSON", e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HEX.formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
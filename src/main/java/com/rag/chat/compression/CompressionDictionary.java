@@ -0,0 +1,7 @@
+package com.rag.chat.compression;
+
+/**
+ * A trained zstd dictionary; ids are never reused so every stored frame can find its dictionary
+ */
+public record CompressionDictionary(int id, byte[] bytes) {
+}
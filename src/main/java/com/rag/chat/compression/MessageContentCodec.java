@@ -0,0 +1,173 @@
+package com.rag.chat.compression;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdInputStream;
+import com.rag.chat.config.CompressionProperties;
+import com.rag.chat.repository.CompressionDictionaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes message text for the content column.
+ * <pre>
+ * 0x00 | UTF-8 bytes                          payloads below app.compression.min-bytes, or incompressible
+ * 0x01 | dictionary id (int32, 0 = none) | zstd frame
+ * </pre>
+ * New payloads use the latest dictionary; older frames name the dictionary they were written with,
+ * which is loaded on demand, so rows stay readable after retraining.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageContentCodec {
+
+    static final byte RAW = 0x00;
+    static final byte ZSTD = 0x01;
+    private static final int ZSTD_HEADER_BYTES = 1 + Integer.BYTES;
+    private static final int NO_DICTIONARY = 0;
+
+    private final CompressionDictionaryRepository dictionaryRepository;
+    private final CompressionProperties properties;
+
+    private final Map<Integer, ZstdDictDecompress> decompressors = new ConcurrentHashMap<>();
+    private volatile ActiveDictionary active;
+
+    private record ActiveDictionary(int id, ZstdDictCompress compressor, long checkedAtNanos) {
+    }
+
+    public byte[] encode(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        if (!properties.enabled() || utf8.length < properties.minBytes()) {
+            return raw(utf8);
+        }
+        ActiveDictionary dictionary = activeDictionary();
+        byte[] frame = dictionary.compressor() != null
+                ? Zstd.compress(utf8, dictionary.compressor())
+                : Zstd.compress(utf8, properties.level());
+        if (frame.length + ZSTD_HEADER_BYTES >= utf8.length + 1) {
+            return raw(utf8);
+        }
+        return ByteBuffer.allocate(ZSTD_HEADER_BYTES + frame.length)
+                .put(ZSTD)
+                .putInt(dictionary.id())
+                .put(frame)
+                .array();
+    }
+
+    public String decode(byte[] stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (stored.length == 0) {
+            return "";
+        }
+        return switch (stored[0]) {
+            case RAW -> new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+            case ZSTD -> decompress(stored);
+            default -> throw new IllegalStateException("Unknown content encoding marker " + stored[0]);
+        };
+    }
+
+    /**
+     * Decodes only the first {@code maxBytes} UTF-8 bytes of the text, e.g. for previews: a zstd frame is streamed
+     * and decompression stops there instead of inflating the whole message. A character cut at the limit decodes
+     * as U+FFFD.
+     */
+    public String decodePrefix(byte[] stored, int maxBytes) {
+        if (stored == null || stored.length == 0 || stored[0] != ZSTD) {
+            return stored == null || stored.length <= maxBytes + 1
+                    ? decode(stored)
+                    : new String(stored, 1, maxBytes, StandardCharsets.UTF_8);
+        }
+        int dictionaryId = ByteBuffer.wrap(stored, 1, Integer.BYTES).getInt();
+        try (ZstdInputStream in = new ZstdInputStream(new ByteArrayInputStream(
+                stored, ZSTD_HEADER_BYTES, stored.length - ZSTD_HEADER_BYTES))) {
+            if (dictionaryId != NO_DICTIONARY) {
+                in.setDict(decompressor(dictionaryId));
+            }
+            return new String(in.readNBytes(maxBytes), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt zstd content frame", e);
+        }
+    }
+
+    /**
+     * Make a freshly trained dictionary the one used for new payloads on this instance.
+     */
+    public void activate(CompressionDictionary dictionary) {
+        decompressors.computeIfAbsent(dictionary.id(), id -> new ZstdDictDecompress(dictionary.bytes()));
+        active = new ActiveDictionary(dictionary.id(), new ZstdDictCompress(dictionary.bytes(), properties.level()), System.nanoTime());
+        log.info("Activated compression dictionary id={} bytes={}", dictionary.id(), dictionary.bytes().length);
+    }
+
+    private String decompress(byte[] stored) {
+        ByteBuffer buffer = ByteBuffer.wrap(stored, 1, stored.length - 1);
+        int dictionaryId = buffer.getInt();
+        byte[] frame = Arrays.copyOfRange(stored, ZSTD_HEADER_BYTES, stored.length);
+        int originalSize = Math.toIntExact(Zstd.getFrameContentSize(frame));
+        byte[] utf8 = dictionaryId == NO_DICTIONARY
+                ? Zstd.decompress(frame, originalSize)
+                : Zstd.decompress(frame, decompressor(dictionaryId), originalSize);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private ZstdDictDecompress decompressor(int dictionaryId) {
+        return decompressors.computeIfAbsent(dictionaryId, id -> dictionaryRepository.findById(id)
+                .map(d -> new ZstdDictDecompress(d.bytes()))
+                .orElseThrow(() -> new IllegalStateException("Compression dictionary " + id + " is missing")));
+    }
+
+    /**
+     * The latest dictionary, re-read from the database at most once per refresh interval so instances pick up
+     * dictionaries trained elsewhere.
+     */
+    private ActiveDictionary activeDictionary() {
+        ActiveDictionary current = active;
+        if (isFresh(current)) {
+            return current;
+        }
+        synchronized (this) {
+            current = active;
+            if (isFresh(current)) {
+                return current;
+            }
+            Optional<CompressionDictionary> latest = dictionaryRepository.findLatest();
+            if (latest.isPresent() && (current == null || latest.get().id() != current.id())) {
+                activate(latest.get());
+            } else {
+                active = current == null
+                        ? new ActiveDictionary(NO_DICTIONARY, null, System.nanoTime())
+                        : new ActiveDictionary(current.id(), current.compressor(), System.nanoTime());
+            }
+            return active;
+        }
+    }
+
+    private boolean isFresh(ActiveDictionary dictionary) {
+        return dictionary != null
+                && System.nanoTime() - dictionary.checkedAtNanos() < properties.refreshInterval().toNanos();
+    }
+
+    private static byte[] raw(byte[] utf8) {
+        byte[] stored = new byte[utf8.length + 1];
+        stored[0] = RAW;
+        System.arraycopy(utf8, 0, stored, 1, utf8.length);
+        return stored;
+    }
+}
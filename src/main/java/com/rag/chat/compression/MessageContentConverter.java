@@ -0,0 +1,25 @@
+package com.rag.chat.compression;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Instantiated through Spring's bean container for Hibernate, so the codec is injected.
+ */
+@Converter
+@RequiredArgsConstructor
+public class MessageContentConverter implements AttributeConverter<String, byte[]> {
+
+    private final MessageContentCodec codec;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String attribute) {
+        return codec.encode(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] dbData) {
+        return codec.decode(dbData);
+    }
+}
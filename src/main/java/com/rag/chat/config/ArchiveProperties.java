@@ -0,0 +1,36 @@
+package com.rag.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Cold-tier archival of inactive sessions into append-only segment files
+ * @param enabled run the archival job; archived sessions are always readable while the directory is available
+ * @param directory where segment and index files live; must be shared by all instances
+ * @param inactiveAfter sessions without activity for this long are sealed and archived
+ * @param batchSize maximum number of sessions archived per run
+ * @param segmentMaxBytes a new segment is started once the current one reaches this size
+ * @param compressionLevel zstd level for archived session blocks
+ * @param cron when the archival job runs
+ */
+@ConfigurationProperties(prefix = "app.archive")
+public record ArchiveProperties(
+        boolean enabled,
+        String directory,
+        Duration inactiveAfter,
+        int batchSize,
+        long segmentMaxBytes,
+        int compressionLevel,
+        String cron
+) {
+
+    public ArchiveProperties {
+        if (directory == null || directory.isBlank()) directory = "data/archive";
+        if (inactiveAfter == null || inactiveAfter.isNegative() || inactiveAfter.isZero()) inactiveAfter = Duration.ofDays(30);
+        if (batchSize <= 0) batchSize = 100;
+        if (segmentMaxBytes <= 0) segmentMaxBytes = 256L * 1024 * 1024;
+        if (compressionLevel <= 0) compressionLevel = 9;
+        if (cron == null || cron.isBlank()) cron = "0 45 3 * * *";
+    }
+}
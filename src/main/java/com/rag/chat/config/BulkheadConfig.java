@@ -0,0 +1,77 @@
+package com.rag.chat.config;
+
+import com.rag.chat.bulkhead.Bulkhead;
+import com.rag.chat.bulkhead.BulkheadFilter;
+import com.rag.chat.bulkhead.RequestClass;
+import com.rag.chat.util.Translator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Request-class bulkheads. Ingest and interactive requests run on Tomcat workers gated by their class's
+ * {@link Bulkhead}; bulk exports additionally stream from their own bounded executor, which replaces the MVC async
+ * executor (exports are the only async responses). Each class also gets its own primary connection pool, see
+ * {@link DataSourceConfig}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.bulkhead", name = "enabled", havingValue = "true")
+public class BulkheadConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor bulkExecutor;
+
+    public BulkheadConfig(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        int threads = properties.bulk().maxConcurrent();
+        bulkExecutor = new ThreadPoolTaskExecutor();
+        bulkExecutor.setThreadNamePrefix("bulk-");
+        bulkExecutor.setCorePoolSize(threads);
+        bulkExecutor.setMaxPoolSize(threads);
+        // the bulk bulkhead already caps exports in flight; the queue only absorbs hand-off jitter
+        bulkExecutor.setQueueCapacity(threads);
+        bulkExecutor.setTaskDecorator(task -> () -> {
+            RequestClass.bind(RequestClass.BULK);
+            try {
+                task.run();
+            } finally {
+                RequestClass.clear();
+            }
+        });
+        bulkExecutor.initialize();
+        Gauge.builder("chat.bulkhead.executor.queued", bulkExecutor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Exports waiting for a bulk executor thread")
+                .tag("class", RequestClass.BULK.tag())
+                .register(meterRegistry);
+        Gauge.builder("chat.bulkhead.executor.active", bulkExecutor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Bulk executor threads streaming an export")
+                .tag("class", RequestClass.BULK.tag())
+                .register(meterRegistry);
+    }
+
+    @Bean
+    public BulkheadFilter bulkheadFilter(BulkheadProperties properties, Translator translator, MeterRegistry meterRegistry) {
+        Map<RequestClass, Bulkhead> bulkheads = new EnumMap<>(RequestClass.class);
+        bulkheads.put(RequestClass.INGEST, new Bulkhead(RequestClass.INGEST, properties.ingest(), meterRegistry));
+        bulkheads.put(RequestClass.INTERACTIVE, new Bulkhead(RequestClass.INTERACTIVE, properties.interactive(), meterRegistry));
+        bulkheads.put(RequestClass.BULK, new Bulkhead(RequestClass.BULK, properties.bulk(), meterRegistry));
+        return new BulkheadFilter(bulkheads, translator);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(bulkExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bulkExecutor.shutdown();
+    }
+}
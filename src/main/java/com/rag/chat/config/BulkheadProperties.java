@@ -0,0 +1,47 @@
+package com.rag.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Per-request-class bulkheads: concurrency, wait queue and database pool for each class
+ * @param enabled classify API requests and enforce the limits below
+ * @param ingest writes (POST, PUT, PATCH, DELETE)
+ * @param interactive reads (GET)
+ * @param bulk transcript export
+ */
+@ConfigurationProperties(prefix = "app.bulkhead")
+public record BulkheadProperties(
+        boolean enabled,
+        Limits ingest,
+        Limits interactive,
+        Limits bulk
+) {
+
+    public BulkheadProperties {
+        ingest = Limits.withDefaults(ingest, new Limits(16, 32, Duration.ofMillis(100), 4));
+        interactive = Limits.withDefaults(interactive, new Limits(32, 64, Duration.ofMillis(50), 4));
+        bulk = Limits.withDefaults(bulk, new Limits(2, 2, Duration.ZERO, 2));
+    }
+
+    /**
+     * @param maxConcurrent requests of the class in flight at once
+     * @param maxQueue requests allowed to wait for a slot; anything beyond is rejected immediately
+     * @param queueTimeout how long a queued request waits before it is rejected
+     * @param poolSize connections in the class's own pool on the primary
+     */
+    public record Limits(int maxConcurrent, int maxQueue, Duration queueTimeout, int poolSize) {
+
+        static Limits withDefaults(Limits limits, Limits defaults) {
+            if (limits == null) {
+                return defaults;
+            }
+            return new Limits(
+                    limits.maxConcurrent > 0 ? limits.maxConcurrent : defaults.maxConcurrent,
+                    limits.maxQueue >= 0 ? limits.maxQueue : defaults.maxQueue,
+                    limits.queueTimeout != null && !limits.queueTimeout.isNegative() ? limits.queueTimeout : defaults.queueTimeout,
+                    limits.poolSize > 0 ? limits.poolSize : defaults.poolSize);
+        }
+    }
+}
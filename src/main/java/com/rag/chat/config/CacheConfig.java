@@ -0,0 +1,105 @@
+package com.rag.chat.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.rag.chat.cache.CacheEntryWeigher;
+import com.rag.chat.cache.CacheNames;
+import com.rag.chat.cache.SessionPageCache;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.List;
+import java.util.OptionalLong;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Bounded Caffeine caches weighted by approximate entry size in bytes.
+     * Caffeine's W-TinyLFU policy handles admission and eviction; stats are recorded
+     * so actuator exposes cache.gets / cache.evictions per cache.
+     * @param properties
+     * @return
+     */
+    @Bean
+    public CacheManager cacheManager(ChatCacheProperties properties) {
+        SessionPageCache messages = SessionPageCache.build(CacheNames.CHAT_MESSAGES,
+                boundedCache(properties.messagesMaxBytes(), properties));
+        CaffeineCacheManager cacheManager = sessionPageCacheManager(messages);
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(CacheNames.SESSION_PAGES,
+                boundedCache(properties.sessionPagesMaxBytes(), properties).build());
+        return cacheManager;
+    }
+
+    /**
+     * JCache manager behind Hibernate's second-level cache. The ChatSession region is created here, bounded by entry
+     * count and sharing the ttl of the other caches; with missing_cache_strategy=fail Hibernate cannot fall back to an
+     * unbounded default region. Entries are Hibernate's immutable disassembled state, so they are stored by reference.
+     * @param properties
+     * @return
+     */
+    @Bean(destroyMethod = "close")
+    public javax.cache.CacheManager hibernateCacheManager(ChatCacheProperties properties) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        javax.cache.CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+
+        CaffeineConfiguration<Object, Object> sessions = new CaffeineConfiguration<>();
+        sessions.setMaximumSize(OptionalLong.of(properties.sessionsMaxEntries()));
+        sessions.setExpireAfterWrite(OptionalLong.of(properties.ttl().toNanos()));
+        sessions.setStoreByValue(false);
+        sessions.setStatisticsEnabled(true);
+        if (cacheManager.getCache(CacheNames.CHAT_SESSIONS) != null) {
+            cacheManager.destroyCache(CacheNames.CHAT_SESSIONS);
+        }
+        cacheManager.createCache(CacheNames.CHAT_SESSIONS, sessions);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(javax.cache.CacheManager hibernateCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    /**
+     * cache.gets{cache=chatSessions,result=hit|miss}, cache.puts and cache.removals of the second-level cache,
+     * next to the metrics of the Spring caches
+     */
+    @Bean
+    public MeterBinder chatSessionsCacheMetrics(javax.cache.CacheManager hibernateCacheManager) {
+        return registry -> new JCacheMetrics<>(hibernateCacheManager.getCache(CacheNames.CHAT_SESSIONS), List.of())
+                .bindTo(registry);
+    }
+
+    /**
+     * Caffeine cache manager that serves the given session-indexed cache under its name
+     */
+    public static CaffeineCacheManager sessionPageCacheManager(SessionPageCache pages) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(
+                    String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return cache == pages.getNativeCache() ? pages : super.adaptCaffeineCache(name, cache);
+            }
+        };
+        cacheManager.registerCustomCache(pages.getName(), pages.getNativeCache());
+        return cacheManager;
+    }
+
+    private static Caffeine<Object, Object> boundedCache(long maxBytes, ChatCacheProperties properties) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher(new CacheEntryWeigher())
+                .expireAfterWrite(properties.ttl())
+                .recordStats();
+    }
+}
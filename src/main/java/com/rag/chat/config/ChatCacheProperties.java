@@ -0,0 +1,28 @@
+package com.rag.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Bounds for the in-memory Caffeine caches
+ * @param messagesMaxBytes approximate heap budget of the chatMessages cache
+ * @param sessionPagesMaxBytes approximate heap budget of the sessionPages cache
+ * @param sessionsMaxEntries maximum number of ChatSession entities in the second-level cache
+ * @param ttl time-to-live of an entry after it is written
+ */
+@ConfigurationProperties(prefix = "app.cache")
+public record ChatCacheProperties(
+        long messagesMaxBytes,
+        long sessionPagesMaxBytes,
+        long sessionsMaxEntries,
+        Duration ttl
+) {
+
+    public ChatCacheProperties {
+        if (messagesMaxBytes <= 0) messagesMaxBytes = 64L * 1024 * 1024;
+        if (sessionPagesMaxBytes <= 0) sessionPagesMaxBytes = 16L * 1024 * 1024;
+        if (sessionsMaxEntries <= 0) sessionsMaxEntries = 10_000;
+        if (ttl == null) ttl = Duration.ofMinutes(10);
+    }
+}
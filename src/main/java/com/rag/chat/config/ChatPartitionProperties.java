@@ -0,0 +1,34 @@
+package com.rag.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Opt-in monthly range partitioning of chat_message
+ * @param enabled apply the db/partitioning migrations and run partition maintenance
+ * @param premakeMonths how many future monthly partitions to keep created ahead of time
+ * @param retentionMonths partitions entirely older than this many months are detached; 0 keeps everything
+ * @param dropExpired drop detached partitions instead of leaving them as standalone tables for archiving
+ * @param maintenanceCron when the maintenance job runs
+ * @param detachLockTimeout how long a detach waits for its lock on chat_message before giving up until the next run
+ */
+@ConfigurationProperties(prefix = "app.partitioning")
+public record ChatPartitionProperties(
+        boolean enabled,
+        int premakeMonths,
+        int retentionMonths,
+        boolean dropExpired,
+        String maintenanceCron,
+        Duration detachLockTimeout
+) {
+
+    public ChatPartitionProperties {
+        if (premakeMonths <= 0) premakeMonths = 3;
+        if (retentionMonths < 0) retentionMonths = 0;
+        if (maintenanceCron == null || maintenanceCron.isBlank()) maintenanceCron = "0 15 3 * * *";
+        if (detachLockTimeout == null || detachLockTimeout.isNegative() || detachLockTimeout.isZero()) {
+            detachLockTimeout = Duration.ofSeconds(5);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.rag.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * Content-addressed store for retrievedContext chunks
+ * @param enabled move large chunk bodies out of new messages; stored references are always resolved
+ * @param minBytes chunk bodies smaller than this stay inline
+ * @param cacheMaxBytes approximate heap budget of the chunk body LRU cache
+ * @param inlineFields per-message chunk fields kept next to the reference (and excluded from the hash)
+ */
+@ConfigurationProperties(prefix = "app.chunk-store")
+public record ChunkStoreProperties(
+        boolean enabled,
+        int minBytes,
+        long cacheMaxBytes,
+        List<String> inlineFields
+) {
+
+    public ChunkStoreProperties {
+        if (minBytes <= 0) minBytes = 256;
+        if (cacheMaxBytes <= 0) cacheMaxBytes = 32L * 1024 * 1024;
+        if (inlineFields == null || inlineFields.isEmpty()) inlineFields = List.of("id", "score", "rank");
+    }
+}
@@ -0,0 +1,36 @@
+package com.rag.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Message content compression
+ * @param enabled compress new payloads; stored payloads are always readable
+ * @param minBytes payloads smaller than this (UTF-8 bytes) are stored uncompressed
+ * @param level zstd compression level
+ * @param dictionaryBytes target size of a trained dictionary
+ * @param trainingSamples how many recent messages to train a dictionary on
+ * @param refreshInterval how often an instance re-checks for a newer dictionary trained elsewhere
+ * @param trainingWindow training samples are taken from messages created within this window
+ */
+@ConfigurationProperties(prefix = "app.compression")
+public record CompressionProperties(
+        boolean enabled,
+        int minBytes,
+        int level,
+        int dictionaryBytes,
+        int trainingSamples,
+        Duration refreshInterval,
+        Duration trainingWindow
+) {
+
+    public CompressionProperties {
+        if (minBytes <= 0) minBytes = 512;
+        if (level <= 0) level = 6;
+        if (dictionaryBytes <= 0) dictionaryBytes = 112 * 1024;
+        if (trainingSamples <= 0) trainingSamples = 5000;
+        if (refreshInterval == null) refreshInterval = Duration.ofMinutes(5);
+        if (trainingWindow == null) trainingWindow = Duration.ofDays(7);
+    }
+}
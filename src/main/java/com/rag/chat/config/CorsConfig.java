@@ -19,10 +19,10 @@ public class CorsConfig {
     private String allowedMethods;
 
     // Include all headers you send from frontend!
-    @Value("${spring.web.cors.allowed-headers:Authorization,Content-Type,X-Request-Id,x-api-key,X-Api-Key,Accept-Language}")
+    @Value("${spring.web.cors.allowed-headers:Authorization,Content-Type,X-Request-Id,x-api-key,X-Api-Key,Accept-Language,X-Consistency-Token,Idempotency-Key}")
     private String allowedHeaders;
 
-    @Value("${spring.web.cors.exposed-headers:X-RateLimit-Limit,X-RateLimit-Remaining,Retry-After}")
+    @Value("${spring.web.cors.exposed-headers:X-RateLimit-Limit,X-RateLimit-Remaining,Retry-After,X-Consistency-Token,Idempotent-Replayed}")
     private String exposedHeaders;
 
     @Value("${spring.web.cors.allow-credentials:true}")
@@ -0,0 +1,119 @@
+package com.rag.chat.config;
+
+import com.rag.chat.bulkhead.RequestClass;
+import com.rag.chat.bulkhead.RequestClassDataSource;
+import com.rag.chat.datasource.ConsistencyTokenFilter;
+import com.rag.chat.datasource.ReplicaPool;
+import com.rag.chat.datasource.ReplicaRouter;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Replaces the auto-configured DataSource when read replicas or request-class bulkheads are enabled.
+ * The spring.datasource pool stays the primary's default pool. With bulkheads, each {@link RequestClass} gets its
+ * own primary pool on top of it ({@link RequestClassDataSource}). With replicas, the result is wrapped in a lazy
+ * proxy that takes its physical connection from {@link ReplicaRouter} once the transaction manager has flagged the
+ * connection read-only ({@code @Transactional(readOnly = true)}); everything else stays on the primary.
+ */
+@Configuration
+@ConditionalOnExpression("${app.read-replicas.enabled:false} or ${app.bulkhead.enabled:false}")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.bulkhead", name = "enabled", havingValue = "true")
+    public RequestClassDataSource requestClassDataSource(HikariDataSource primaryDataSource, BulkheadProperties properties,
+                                                         MeterRegistry meterRegistry) {
+        Map<RequestClass, DataSource> pools = new EnumMap<>(RequestClass.class);
+        pools.put(RequestClass.INGEST, classPool(primaryDataSource, RequestClass.INGEST, properties.ingest(), meterRegistry));
+        pools.put(RequestClass.INTERACTIVE, classPool(primaryDataSource, RequestClass.INTERACTIVE, properties.interactive(), meterRegistry));
+        pools.put(RequestClass.BULK, classPool(primaryDataSource, RequestClass.BULK, properties.bulk(), meterRegistry));
+        return new RequestClassDataSource(primaryDataSource, pools);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.read-replicas", name = "enabled", havingValue = "true")
+    public ReplicaRouter replicaRouter(HikariDataSource primaryDataSource, ObjectProvider<RequestClassDataSource> requestClassDataSource,
+                                       DataSourceProperties dataSourceProperties, ReadReplicaProperties properties,
+                                       MeterRegistry meterRegistry) {
+        String username = StringUtils.hasText(properties.username()) ? properties.username() : dataSourceProperties.determineUsername();
+        String password = StringUtils.hasText(properties.password()) ? properties.password() : dataSourceProperties.determinePassword();
+        List<ReplicaPool> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.urls().size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(properties.urls().get(i));
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(properties.maximumPoolSize());
+            replica.setMinimumIdle(Math.min(2, properties.maximumPoolSize()));
+            replica.setConnectionTimeout(properties.connectionTimeout().toMillis());
+            replica.setInitializationFailTimeout(-1); // a replica that is down at startup must not stop the service
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new ReplicaPool(replica.getPoolName(), replica));
+        }
+        DataSource primary = Objects.requireNonNullElse(requestClassDataSource.getIfAvailable(), primaryDataSource);
+        return new ReplicaRouter(primary, replicas, properties, meterRegistry, Clock.systemUTC());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ObjectProvider<RequestClassDataSource> requestClassDataSource,
+                                 ObjectProvider<ReplicaRouter> replicaRouter) {
+        DataSource primary = Objects.requireNonNullElse(requestClassDataSource.getIfAvailable(), primaryDataSource);
+        ReplicaRouter router = replicaRouter.getIfAvailable();
+        if (router == null) {
+            return primary;
+        }
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(router);
+        return proxy;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.read-replicas", name = "enabled", havingValue = "true")
+    public ConsistencyTokenFilter consistencyTokenFilter(ReplicaRouter replicaRouter) {
+        return new ConsistencyTokenFilter(replicaRouter);
+    }
+
+    /**
+     * A primary pool for one request class, with the default pool's connection settings
+     */
+    private static HikariDataSource classPool(HikariDataSource primary, RequestClass requestClass,
+                                              BulkheadProperties.Limits limits, MeterRegistry meterRegistry) {
+        HikariDataSource pool = new HikariDataSource();
+        primary.copyStateTo(pool);
+        pool.setPoolName(requestClass.tag());
+        pool.setMaximumPoolSize(limits.poolSize());
+        pool.setMinimumIdle(Math.min(pool.getMinimumIdle(), limits.poolSize()));
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
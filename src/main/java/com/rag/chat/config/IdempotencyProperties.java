@@ -0,0 +1,22 @@
+package com.rag.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Idempotency keys of message appends
+ * @param retention a key can be replayed for this long; older keys are deleted by the purge job
+ * @param cacheMaxEntries bound of the in-memory cache of recently completed keys
+ */
+@ConfigurationProperties(prefix = "app.idempotency")
+public record IdempotencyProperties(
+        Duration retention,
+        long cacheMaxEntries
+) {
+
+    public IdempotencyProperties {
+        if (retention == null || retention.isNegative() || retention.isZero()) retention = Duration.ofHours(24);
+        if (cacheMaxEntries <= 0) cacheMaxEntries = 10_000;
+    }
+}
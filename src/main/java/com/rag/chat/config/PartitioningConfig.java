@@ -0,0 +1,32 @@
+package com.rag.chat.config;
+
+import org.flywaydb.core.api.Location;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "app.partitioning", name = "enabled", havingValue = "true")
+public class PartitioningConfig {
+
+    static final String PARTITIONING_LOCATION = "classpath:db/partitioning";
+
+    /**
+     * Adds the partitioning migrations to Flyway. Out-of-order is allowed so the switch can be turned on
+     * for a database that has already moved past the partitioning migration's version.
+     */
+    @Bean
+    public FlywayConfigurationCustomizer partitioningFlywayCustomizer() {
+        return configuration -> configuration
+                .locations(Stream.concat(Arrays.stream(configuration.getLocations()),
+                                Stream.of(new Location(PARTITIONING_LOCATION)))
+                        .toArray(Location[]::new))
+                .outOfOrder(true);
+    }
+}
@@ -0,0 +1,40 @@
+package com.rag.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Background hard purge of soft-deleted sessions and expiry of per-session retention
+ * @param enabled run the purge job
+ * @param gracePeriod soft-deleted sessions are hard-deleted once deleted for this long
+ * @param batchSize upper bound of rows deleted per statement (each statement commits on its own)
+ * @param minBatchSize the throttle never shrinks batches below this
+ * @param maxBatchDuration a batch slower than this halves the batch size and stretches the pause
+ * @param pause wait between batches
+ * @param maxRunDuration a run stops after this long and resumes on the next schedule
+ * @param cron when the purge job runs
+ */
+@ConfigurationProperties(prefix = "app.purge")
+public record PurgeProperties(
+        boolean enabled,
+        Duration gracePeriod,
+        int batchSize,
+        int minBatchSize,
+        Duration maxBatchDuration,
+        Duration pause,
+        Duration maxRunDuration,
+        String cron
+) {
+
+    public PurgeProperties {
+        if (gracePeriod == null || gracePeriod.isNegative()) gracePeriod = Duration.ofDays(30);
+        if (batchSize <= 0) batchSize = 1000;
+        if (minBatchSize <= 0) minBatchSize = Math.min(50, batchSize);
+        if (minBatchSize > batchSize) minBatchSize = batchSize;
+        if (maxBatchDuration == null || maxBatchDuration.isNegative() || maxBatchDuration.isZero()) maxBatchDuration = Duration.ofMillis(500);
+        if (pause == null || pause.isNegative()) pause = Duration.ofMillis(100);
+        if (maxRunDuration == null || maxRunDuration.isNegative() || maxRunDuration.isZero()) maxRunDuration = Duration.ofMinutes(10);
+        if (cron == null || cron.isBlank()) cron = "0 30 * * * *";
+    }
+}
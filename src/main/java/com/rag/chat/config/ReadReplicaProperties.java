@@ -0,0 +1,38 @@
+package com.rag.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Routing of read-only transactions to streaming replicas
+ * @param enabled route {@code @Transactional(readOnly = true)} work to the replicas below
+ * @param urls JDBC URLs of the replicas, one pool each
+ * @param username replica user; the primary's spring.datasource.username when blank
+ * @param password replica password; the primary's spring.datasource.password when blank
+ * @param maximumPoolSize connections per replica pool
+ * @param connectionTimeout how long to wait for a replica connection before failing over
+ * @param maxLag replicas further behind the primary than this stop receiving reads
+ * @param healthCheckInterval how often replicas are probed for recovery state and replay position
+ */
+@ConfigurationProperties(prefix = "app.read-replicas")
+public record ReadReplicaProperties(
+        boolean enabled,
+        List<String> urls,
+        String username,
+        String password,
+        int maximumPoolSize,
+        Duration connectionTimeout,
+        Duration maxLag,
+        Duration healthCheckInterval
+) {
+
+    public ReadReplicaProperties {
+        urls = urls == null ? List.of() : urls.stream().map(String::trim).filter(u -> !u.isEmpty()).toList();
+        if (maximumPoolSize <= 0) maximumPoolSize = 5;
+        if (connectionTimeout == null || connectionTimeout.compareTo(Duration.ofMillis(250)) < 0) connectionTimeout = Duration.ofSeconds(2);
+        if (maxLag == null || maxLag.isNegative() || maxLag.isZero()) maxLag = Duration.ofSeconds(10);
+        if (healthCheckInterval == null || healthCheckInterval.isNegative() || healthCheckInterval.isZero()) healthCheckInterval = Duration.ofSeconds(5);
+    }
+}
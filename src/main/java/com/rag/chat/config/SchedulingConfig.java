@@ -0,0 +1,13 @@
+package com.rag.chat.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Schedules the background jobs: the session activity flush, the session Bloom filter rebuild and, when enabled,
+ * SessionArchiver, SessionPurger and the read replica health check.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
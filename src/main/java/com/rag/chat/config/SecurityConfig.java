@@ -6,6 +6,7 @@ import com.rag.chat.security.JwtAuthenticationProvider;
 import com.rag.chat.security.RateLimitingFilter;
 import com.rag.chat.util.JWTUtil;
 import com.rag.chat.util.Translator;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
@@ -112,12 +113,17 @@ public class SecurityConfig {
                 .cors(Customizer.withDefaults())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // streamed responses (e.g. transcript export) finish on an ASYNC dispatch of an already authorized request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/actuator/health").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**")
                         .permitAll()
                         .requestMatchers("/favicon.ico").permitAll()
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // operational endpoints need a JWT whose "roles" claim contains admin
+                        .requestMatchers("/api/v1/admin/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/api/**").hasAnyAuthority("ROLE_API_CLIENT", "ROLE_RAG_SERVICE")
+                        .requestMatchers("/actuator/metrics", "/actuator/metrics/**").hasAnyAuthority("ROLE_API_CLIENT", "ROLE_RAG_SERVICE")
                         .anyRequest().denyAll()
                 )   .exceptionHandling(ex -> ex
                         .authenticationEntryPoint((req, res, e) -> {
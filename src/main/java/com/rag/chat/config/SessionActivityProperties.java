@@ -0,0 +1,22 @@
+package com.rag.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Coalesced write-back of session activity (chat_session.updated_at) from message appends
+ * @param flushInterval pending activity is written back this often; updatedAt lags appends by at most about this long
+ * @param batchSize upper bound of sessions touched per statement
+ */
+@ConfigurationProperties(prefix = "app.activity")
+public record SessionActivityProperties(
+        Duration flushInterval,
+        int batchSize
+) {
+
+    public SessionActivityProperties {
+        if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero()) flushInterval = Duration.ofSeconds(1);
+        if (batchSize <= 0) batchSize = 1000;
+    }
+}
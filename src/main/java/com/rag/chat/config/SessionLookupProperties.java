@@ -0,0 +1,35 @@
+package com.rag.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Short-circuiting of lookups for session ids that do not exist
+ * @param negativeTtl how long a missed or deleted id is answered with 404 without querying
+ * @param negativeMaxEntries upper bound of remembered missing ids
+ * @param settleTime age (by UUIDv7 timestamp) after which an id is assumed visible on every instance and replica;
+ *                   younger ids are always looked up
+ * @param expectedSessions minimum capacity the Bloom filter of live session ids is sized for
+ * @param falsePositiveRate target false positive rate of the Bloom filter at its capacity
+ * @param bloomRebuildInterval the Bloom filter is rebuilt from chat_session this often
+ */
+@ConfigurationProperties(prefix = "app.session-lookup")
+public record SessionLookupProperties(
+        Duration negativeTtl,
+        long negativeMaxEntries,
+        Duration settleTime,
+        long expectedSessions,
+        double falsePositiveRate,
+        Duration bloomRebuildInterval
+) {
+
+    public SessionLookupProperties {
+        if (negativeTtl == null || negativeTtl.isNegative() || negativeTtl.isZero()) negativeTtl = Duration.ofMinutes(1);
+        if (negativeMaxEntries <= 0) negativeMaxEntries = 100_000;
+        if (settleTime == null || settleTime.isNegative()) settleTime = Duration.ofMinutes(1);
+        if (expectedSessions <= 0) expectedSessions = 1_000_000;
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) falsePositiveRate = 0.01;
+        if (bloomRebuildInterval == null || bloomRebuildInterval.isNegative() || bloomRebuildInterval.isZero()) bloomRebuildInterval = Duration.ofHours(1);
+    }
+}
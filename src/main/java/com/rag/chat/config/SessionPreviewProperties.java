@@ -0,0 +1,16 @@
+package com.rag.chat.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Last-message previews in session listings ({@code preview=true})
+ * @param maxChars preview length in code points; longer messages are cut and flagged truncated, which also bounds
+ *                 how much of each message is read and decompressed
+ */
+@ConfigurationProperties(prefix = "app.session-preview")
+public record SessionPreviewProperties(int maxChars) {
+
+    public SessionPreviewProperties {
+        if (maxChars <= 0) maxChars = 160;
+    }
+}
@@ -1,10 +1,17 @@
 package com.rag.chat.controller;
 
 import com.rag.chat.dto.request.CreateMessageRequest;
+import com.rag.chat.dto.response.CursorPageResponse;
 import com.rag.chat.dto.response.MessageResponse;
 import com.rag.chat.dto.response.PageResponse;
-import com.rag.chat.entity.ChatMessage;
+import com.rag.chat.enums.MessageField;
+import com.rag.chat.enums.ScrollDirection;
+import com.rag.chat.enums.SelectableField;
+import com.rag.chat.idempotency.IdempotencyKeyStore;
+import com.rag.chat.repository.MessageView;
 import com.rag.chat.service.ChatMessageService;
+import com.rag.chat.service.ChatTranscriptExportService;
+import com.rag.chat.util.CursorCodec;
 import com.rag.chat.util.JSONSerializerDeserializerUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -19,11 +26,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Tag(name = "Messages", description = "Endpoints for managing chat messages")
 @Slf4j
@@ -32,32 +46,51 @@ import java.util.UUID;
 @RequestMapping("/api/v1/sessions/{sessionId}/messages")
 public class ChatMessageController {
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final String PROJECT_DESCRIPTION = "JSON sub-paths to return instead of the full documents, "
+            + "e.g. retrievedContext.chunks[*].id (repeatable, max 10)";
+    private static final String FIELDS_DESCRIPTION = "Fields to select, e.g. role,content,createdAt; id is always "
+            + "included. Omitted fields are not read from the database. Default: all fields";
+
     private final ChatMessageService service;
+    private final ChatTranscriptExportService exportService;
 
     @Operation(
             summary = "Create a message in a session",
+            description = "With an Idempotency-Key header a retried request returns the originally created messages "
+                    + "(marked Idempotent-Replayed: true) instead of appending them again; reusing a key for a different "
+                    + "body is rejected with 422.",
             security = { @SecurityRequirement(name = "bearerAuth"), @SecurityRequirement(name = "internalApiKey") }
     )
     @PreAuthorize("hasAnyRole('USER','ADMIN','AI')")
     @PostMapping
-    public List<MessageResponse> create(@PathVariable UUID sessionId,
+    public ResponseEntity<List<MessageResponse>> create(@PathVariable UUID sessionId,
+                                  @Parameter(description = "Client-chosen key (1-255 visible ASCII characters) that makes retries of this append safe")
+                                  @RequestHeader(value = IdempotencyKeyStore.HEADER, required = false) String idempotencyKey,
                                   @Valid @RequestBody List<CreateMessageRequest> requests) {
 
-       List<ChatMessage> messages = service.create(sessionId, requests);
+       ChatMessageService.Appended appended = service.append(sessionId, idempotencyKey, requests);
+       List<MessageView> messages = appended.messages().stream().map(MessageView::of).toList();
 
 
         if (log.isDebugEnabled()) {
-            log.debug("Created messages successfuly");
+            log.debug("Created messages successfuly replayed={}", appended.replayed());
         }
 
-        return  messages.stream()
-                        .map(msg -> toResponse(msg, true, true))
+        List<MessageResponse> body = messages.stream()
+                        .map(responseMapper(messages, true, true, null))
                                 .toList();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (appended.replayed()) {
+            response.header(REPLAYED_HEADER, "true");
+        }
+        return response.body(body);
     }
 
     @Operation(
             summary = "List messages for a session",
-            description = "Ascending order by createdAt; page-based pagination",
+            description = "Ascending order by seq (append order); page-based pagination",
             security = { @SecurityRequirement(name = "bearerAuth"), @SecurityRequirement(name = "internalApiKey") }
     )
     @PreAuthorize("hasAnyRole('USER','ADMIN','AI')")
@@ -66,32 +99,100 @@ public class ChatMessageController {
                                               @RequestParam(defaultValue = "0") @Min(0) int page,
                                               @RequestParam(defaultValue = "20") @Min(0) @Max(100) int size,
                                               @Parameter(description = "If false, omit retrievedContext JSON") @RequestParam(defaultValue = "true") boolean includeContext,
-                                              @Parameter(description = "If false, omit metadata JSON") @RequestParam(defaultValue = "true") boolean includeMetadata) {
+                                              @Parameter(description = "If false, omit metadata JSON") @RequestParam(defaultValue = "true") boolean includeMetadata,
+                                              @Parameter(description = PROJECT_DESCRIPTION) @RequestParam(required = false) List<String> project,
+                                              @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) List<String> fields) {
         int internalPage = page > 0 ? page - 1 : 0;
-        Pageable pageable = PageRequest.of(internalPage, size, Sort.by(Sort.Direction.ASC, "createdAt"));
+        Pageable pageable = PageRequest.of(internalPage, size, Sort.by(Sort.Direction.ASC, "seq"));
+        Set<MessageField> selected = SelectableField.parse(MessageField.class, fields);
+        if (!includeContext) {
+            selected.remove(MessageField.RETRIEVED_CONTEXT);
+        }
+        if (!includeMetadata) {
+            selected.remove(MessageField.METADATA);
+        }
 
         if (log.isDebugEnabled()) {
-            log.debug("Listing messages sessionId={} page={} size={} includeContext={} includeMetadata={}",
-                    sessionId, page, size, includeContext, includeMetadata);
+            log.debug("Listing messages sessionId={} page={} size={} fields={}", sessionId, page, size, selected);
         }
 
-        Page<ChatMessage> messages = service.list(sessionId, pageable);
+        Page<MessageView> messages = service.list(sessionId, selected, pageable);
 
-        Page<MessageResponse> dtoPage = messages.map(m -> toResponse(m, includeContext, includeMetadata));
+        Page<MessageResponse> dtoPage = messages.map(responseMapper(messages.getContent(), includeContext, includeMetadata, project));
 
         return PageResponse.from(dtoPage);
     }
 
-    private MessageResponse toResponse(ChatMessage m, boolean includeContext, boolean includeMetadata) {
-        UUID sessionId = m.getSession() != null ? m.getSession().getId() : null;
-        return MessageResponse.builder()
-                .id(m.getId())
-                .sessionId(sessionId)
-                .role(m.getRole())
-                .content(m.getContent())
-                .retrievedContext(includeContext ? JSONSerializerDeserializerUtil.deserialize(m.getRetrievedContext()) : null)
-                .metadata(includeMetadata ? JSONSerializerDeserializerUtil.deserialize(m.getMetadata()) : null)
-                .createdAt(m.getCreatedAt())
+    @Operation(
+            summary = "Scroll messages for a session with a cursor",
+            description = "Ascending order by seq; keyset pagination without offsets or total counts. "
+                    + "Pass the returned next/prev cursor to move forward/backward, or afterSeq to read the messages "
+                    + "appended after one already seen.",
+            security = { @SecurityRequirement(name = "bearerAuth"), @SecurityRequirement(name = "internalApiKey") }
+    )
+    @PreAuthorize("hasAnyRole('USER','ADMIN','AI')")
+    @GetMapping("/scroll")
+    public CursorPageResponse<MessageResponse> scroll(@PathVariable UUID sessionId,
+                                                      @Parameter(description = "Opaque cursor from a previous page") @RequestParam(required = false) String cursor,
+                                                      @Parameter(description = "Start from the oldest (FORWARD) or newest (BACKWARD) message when no cursor is given") @RequestParam(defaultValue = "FORWARD") ScrollDirection direction,
+                                                      @Parameter(description = "Messages after this seq, oldest first; ignored when a cursor is given") @RequestParam(required = false) @Min(0) Long afterSeq,
+                                                      @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size,
+                                                      @Parameter(description = "If false, omit retrievedContext JSON") @RequestParam(defaultValue = "true") boolean includeContext,
+                                                      @Parameter(description = "If false, omit metadata JSON") @RequestParam(defaultValue = "true") boolean includeMetadata,
+                                                      @Parameter(description = PROJECT_DESCRIPTION) @RequestParam(required = false) List<String> project) {
+        if (log.isDebugEnabled()) {
+            log.debug("Scrolling messages sessionId={} direction={} size={} hasCursor={} afterSeq={}",
+                    sessionId, direction, size, cursor != null, afterSeq);
+        }
+
+        String position = (cursor == null || cursor.isBlank()) && afterSeq != null
+                ? CursorCodec.encode(ScrollDirection.FORWARD, afterSeq)
+                : cursor;
+        CursorPageResponse<MessageView> messages = service.scroll(sessionId, position, direction, size).map(MessageView::of);
+        return messages.map(responseMapper(messages.getContent(), includeContext, includeMetadata, project));
+    }
+
+    @Operation(
+            summary = "Export a session transcript as NDJSON",
+            description = "Streams every message in ascending seq order, one JSON object per line, "
+                    + "straight from a database cursor. Intended for analytics jobs that need whole sessions.",
+            security = { @SecurityRequirement(name = "bearerAuth"), @SecurityRequirement(name = "internalApiKey") }
+    )
+    @PreAuthorize("hasAnyRole('USER','ADMIN','AI')")
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable UUID sessionId) {
+        exportService.assertExportable(sessionId);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Exporting transcript sessionId={}", sessionId);
+        }
+
+        StreamingResponseBody body = out -> exportService.writeNdjson(sessionId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"session-" + sessionId + ".ndjson\"")
+                .body(body);
+    }
+
+    /**
+     * Builds the per-message mapping for a page, resolving projections and chunk references for the whole page
+     * up front. When projections are requested the full JSON documents are left out; the projection replaces them.
+     */
+    private Function<MessageView, MessageResponse> responseMapper(List<MessageView> messages, boolean includeContext,
+                                                                  boolean includeMetadata, List<String> project) {
+        Map<UUID, String> projections = service.project(messages, project);
+        boolean projected = !projections.isEmpty();
+        Map<UUID, String> contexts = includeContext && !projected ? service.retrievedContexts(messages) : Map.of();
+        return m -> MessageResponse.builder()
+                .id(m.id())
+                .sessionId(m.sessionId())
+                .seq(m.seq())
+                .role(m.role())
+                .content(m.content())
+                .retrievedContext(JSONSerializerDeserializerUtil.raw(contexts.get(m.id())))
+                .metadata(includeMetadata && !projected ? JSONSerializerDeserializerUtil.raw(m.metadata()) : null)
+                .projection(projections.get(m.id()))
+                .createdAt(m.createdAt())
                 .build();
     }
 
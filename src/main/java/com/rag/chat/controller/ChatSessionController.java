@@ -1,17 +1,31 @@
 package com.rag.chat.controller;
 
+import com.rag.chat.dto.request.BatchUpdateSessionsRequest;
 import com.rag.chat.dto.request.CreateSessionRequest;
 import com.rag.chat.dto.request.UpdateSessionRequest;
+import com.rag.chat.dto.response.CursorPageResponse;
+import com.rag.chat.dto.response.MessagePreviewResponse;
 import com.rag.chat.dto.response.PageResponse;
+import com.rag.chat.dto.response.SessionBatchResponse;
 import com.rag.chat.dto.response.SessionResponse;
 import com.rag.chat.entity.ChatSession;
+import com.rag.chat.enums.ScrollDirection;
+import com.rag.chat.enums.SelectableField;
+import com.rag.chat.enums.SessionField;
+import com.rag.chat.repository.MessagePreview;
+import com.rag.chat.repository.SessionStats;
+import com.rag.chat.repository.SessionView;
 import com.rag.chat.service.ChatSessionService;
+import com.rag.chat.service.SecurityService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -22,6 +36,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Tag(name = "Sessions", description = "Endpoints for managing chat sessions")
@@ -44,30 +62,94 @@ public class ChatSessionController {
         if (log.isDebugEnabled()) {
             log.debug("Created chat session id={} ", session.getId());
         }
-        return toResponse(session);
+        return toResponse(session, SessionStats.EMPTY);
     }
 
     @Operation(
             summary = "List favorite chat sessions",
-            description = "Optional filtering by favorite. Descending order by updatedAt. Page-based pagination.",
+            description = "The caller's favorites (sessions it created under its JWT subject). Descending order by updatedAt. "
+                    + "Page-based pagination. "
+                    + "Message aggregates (messageCount, lastMessageAt, payloadBytes) are included unless fields are given; "
+                    + "preview=true adds a truncated preview of each session's newest message, read in the same query.",
             security = {@SecurityRequirement(name = "bearer_jwt"), @SecurityRequirement(name = "api_key")}
     )
     @PreAuthorize("hasAnyRole('USER','ADMIN','API_CLIENT')")
     @GetMapping
     public PageResponse<SessionResponse> list(
             @RequestParam(defaultValue = "0") @Min(0) int page,
-            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size,
+            @Parameter(description = "Fields to select, e.g. title,updatedAt; id is always included. "
+                    + "Omitted fields are not read from the database. Default: all fields") @RequestParam(required = false) List<String> fields,
+            @Parameter(description = "Include a preview of each session's newest message (lastMessage); ignored with fields")
+            @RequestParam(defaultValue = "false") boolean preview
     ){
         int internalPage = page > 0 ? page - 1 : 0;
         Pageable pageable = PageRequest.of(internalPage, size, Sort.by(Sort.Direction.DESC, "updatedAt"));
-        Page<ChatSession> sessions = service.list(pageable);
+        if (fields != null && !fields.isEmpty()) {
+            Page<SessionView> views = service.list(SecurityService.currentOwner(),
+                    SelectableField.parse(SessionField.class, fields), pageable);
+            return PageResponse.from(views.map(this::toResponse));
+        }
+        Page<ChatSession> sessions = service.list(SecurityService.currentOwner(), pageable);
 
         if (log.isDebugEnabled()) {
             log.debug("Listed sessions count={} page={} size={} ",
                     sessions.getNumberOfElements(), page, size);
         }
 
-        return PageResponse.from(sessions.map(this::toResponse));
+        Map<UUID, SessionStats> stats = stats(sessions.map(ChatSession::getId).getContent(), preview);
+        return PageResponse.from(sessions.map(s -> toResponse(s, stats.get(s.getId()))));
+    }
+
+    @Operation(
+            summary = "Scroll favorite chat sessions with a cursor",
+            description = "The caller's favorites, descending order by updatedAt; keyset pagination without offsets or total counts. "
+                    + "Pass the returned next/prev cursor to move forward/backward. "
+                    + "preview=true adds a truncated preview of each session's newest message.",
+            security = {@SecurityRequirement(name = "bearer_jwt"), @SecurityRequirement(name = "api_key")}
+    )
+    @PreAuthorize("hasAnyRole('USER','ADMIN','API_CLIENT')")
+    @GetMapping("/scroll")
+    public CursorPageResponse<SessionResponse> scroll(
+            @Parameter(description = "Opaque cursor from a previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Start from the most recent (FORWARD) or oldest (BACKWARD) session when no cursor is given") @RequestParam(defaultValue = "FORWARD") ScrollDirection direction,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size,
+            @Parameter(description = "Include a preview of each session's newest message (lastMessage)")
+            @RequestParam(defaultValue = "false") boolean preview
+    ){
+        CursorPageResponse<ChatSession> sessions = service.scroll(SecurityService.currentOwner(), cursor, direction, size);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Scrolled sessions count={} direction={} size={} ", sessions.getSize(), direction, size);
+        }
+
+        Map<UUID, SessionStats> stats = stats(sessions.getContent().stream().map(ChatSession::getId).toList(), preview);
+        return sessions.map(s -> toResponse(s, stats.get(s.getId())));
+    }
+
+    @Operation(
+            summary = "Scroll recent chat sessions with a cursor",
+            description = "All of the caller's sessions, favorite or not, most recently active first; "
+                    + "keyset pagination like /scroll. preview=true adds a truncated preview of each session's newest message.",
+            security = {@SecurityRequirement(name = "bearer_jwt"), @SecurityRequirement(name = "api_key")}
+    )
+    @PreAuthorize("hasAnyRole('USER','ADMIN','API_CLIENT')")
+    @GetMapping("/recent")
+    public CursorPageResponse<SessionResponse> recent(
+            @Parameter(description = "Opaque cursor from a previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Start from the most recent (FORWARD) or oldest (BACKWARD) session when no cursor is given") @RequestParam(defaultValue = "FORWARD") ScrollDirection direction,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size,
+            @Parameter(description = "Include a preview of each session's newest message (lastMessage)")
+            @RequestParam(defaultValue = "false") boolean preview
+    ){
+        CursorPageResponse<ChatSession> sessions = service.recent(SecurityService.currentOwner(), cursor, direction, size);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Scrolled recent sessions count={} direction={} size={} ", sessions.getSize(), direction, size);
+        }
+
+        Map<UUID, SessionStats> stats = stats(sessions.getContent().stream().map(ChatSession::getId).toList(), preview);
+        return sessions.map(s -> toResponse(s, stats.get(s.getId())));
     }
 
     @Operation(
@@ -81,7 +163,7 @@ public class ChatSessionController {
         if (log.isDebugEnabled()) {
             log.debug("Retrieved session id={} ", session.getId());
         }
-        return toResponse(session);
+        return withStats(session);
     }
 
     @Operation(
@@ -96,7 +178,7 @@ public class ChatSessionController {
         if (log.isDebugEnabled()) {
             log.debug("Updated session id={} title={} favorite={}", id, updated.getTitle(), updated.isFavorite());
         }
-        return toResponse(updated);
+        return withStats(updated);
     }
 
     @Operation(
@@ -124,16 +206,122 @@ public class ChatSessionController {
         if (log.isDebugEnabled()) {
             log.debug("Toggled favorite for session id={} now favorite={}", id, updated.isFavorite());
         }
-        return toResponse(updated);
+        return withStats(updated);
+    }
+
+    @Operation(
+            summary = "Get several chat sessions by ID",
+            description = "Sessions in the order of ids; missing or deleted ones are left out. Cached sessions are served "
+                    + "from cache and the rest loaded in one query, aggregates (and previews) in one more.",
+            security = {@SecurityRequirement(name = "bearer_jwt"), @SecurityRequirement(name = "api_key")}
+    )
+    @PreAuthorize("hasAnyRole('USER','ADMIN','API_CLIENT')")
+    @GetMapping("/batch")
+    public List<SessionResponse> getAll(
+            @Parameter(description = "Session ids, at most 100") @RequestParam
+            @NotEmpty(message = "ids must not be empty") @Size(max = 100, message = "ids must list at most 100 sessions") List<UUID> ids,
+            @Parameter(description = "Include a preview of each session's newest message (lastMessage)")
+            @RequestParam(defaultValue = "false") boolean preview
+    ){
+        List<ChatSession> sessions = service.getAll(ids);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieved sessions count={} requested={} ", sessions.size(), ids.size());
+        }
+
+        Map<UUID, SessionStats> stats = stats(sessions.stream().map(ChatSession::getId).toList(), preview);
+        return sessions.stream().map(s -> toResponse(s, stats.get(s.getId()))).toList();
+    }
+
+    @Operation(
+            summary = "Update several chat sessions",
+            description = "Applies the same title, favorite and retentionDays changes to every listed session "
+                    + "in one statement. Sessions that already hold the values are left untouched.",
+            security = {@SecurityRequirement(name = "bearer_jwt"), @SecurityRequirement(name = "api_key")}
+    )
+    @PreAuthorize("hasAnyRole('USER','ADMIN','API_CLIENT')")
+    @PatchMapping("/batch")
+    public SessionBatchResponse updateAll(@Valid @RequestBody BatchUpdateSessionsRequest req) {
+        List<UUID> updated = service.updateAll(req);
+        if (log.isDebugEnabled()) {
+            log.debug("Updated sessions count={} requested={} ", updated.size(), req.getIds().size());
+        }
+        return toBatchResponse(req.getIds(), updated);
     }
 
-    private SessionResponse toResponse(ChatSession session) {
+    @Operation(
+            summary = "Delete several chat sessions",
+            description = "Soft deletes every listed session in one statement",
+            security = {@SecurityRequirement(name = "bearer_jwt"), @SecurityRequirement(name = "api_key")}
+    )
+    @PreAuthorize("hasAnyRole('USER','ADMIN','API_CLIENT')")
+    @DeleteMapping("/batch")
+    public SessionBatchResponse deleteAll(
+            @Parameter(description = "Session ids, at most 100") @RequestParam
+            @NotEmpty(message = "ids must not be empty") @Size(max = 100, message = "ids must list at most 100 sessions") List<UUID> ids
+    ){
+        List<UUID> deleted = service.deleteAll(ids);
+        if (log.isDebugEnabled()) {
+            log.debug("Deleted sessions count={} requested={} ", deleted.size(), ids.size());
+        }
+        return toBatchResponse(ids, deleted);
+    }
+
+    private static SessionBatchResponse toBatchResponse(List<UUID> requested, Collection<UUID> affected) {
+        Set<UUID> applied = Set.copyOf(affected);
+        List<UUID> distinct = requested.stream().distinct().toList();
+        return SessionBatchResponse.builder()
+                .affected(distinct.stream().filter(applied::contains).toList())
+                .notFound(distinct.stream().filter(id -> !applied.contains(id)).toList())
+                .build();
+    }
+
+    private Map<UUID, SessionStats> stats(List<UUID> ids, boolean preview) {
+        return preview ? service.statsWithLastMessage(ids) : service.stats(ids);
+    }
+
+    private SessionResponse withStats(ChatSession session) {
+        return toResponse(session, service.stats(List.of(session.getId())).get(session.getId()));
+    }
+
+    private SessionResponse toResponse(ChatSession session, SessionStats stats) {
+        SessionStats aggregates = stats != null ? stats : SessionStats.EMPTY;
         return SessionResponse.builder()
                 .id(session.getId())
                 .title(session.getTitle())
                 .favorite(session.isFavorite())
                 .createdAt(session.getCreatedAt())
                 .updatedAt(session.getUpdatedAt())
+                .retentionDays(session.getRetentionDays())
+                .archivedAt(session.getArchivedAt())
+                .messageCount(aggregates.messageCount())
+                .lastMessageAt(aggregates.lastMessageAt())
+                .payloadBytes(aggregates.payloadBytes())
+                .lastMessage(toResponse(aggregates.lastMessage()))
+                .build();
+    }
+
+    private MessagePreviewResponse toResponse(MessagePreview preview) {
+        if (preview == null) {
+            return null;
+        }
+        return MessagePreviewResponse.builder()
+                .seq(preview.seq())
+                .role(preview.role())
+                .content(preview.content())
+                .truncated(preview.truncated())
+                .build();
+    }
+
+    private SessionResponse toResponse(SessionView session) {
+        return SessionResponse.builder()
+                .id(session.id())
+                .title(session.title())
+                .favorite(session.favorite())
+                .createdAt(session.createdAt())
+                .updatedAt(session.updatedAt())
+                .retentionDays(session.retentionDays())
+                .archivedAt(session.archivedAt())
                 .build();
     }
 }
\ No newline at end of file
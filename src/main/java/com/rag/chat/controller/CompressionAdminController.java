@@ -0,0 +1,39 @@
+package com.rag.chat.controller;
+
+import com.rag.chat.dto.response.CompressionDictionaryResponse;
+import com.rag.chat.service.CompressionDictionaryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "Admin", description = "Operational endpoints")
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/admin/compression")
+public class CompressionAdminController {
+
+    private final CompressionDictionaryService service;
+
+    @Operation(
+            summary = "Train a new message compression dictionary",
+            description = "Trains a zstd dictionary on recent message contents and uses it for new messages. "
+                    + "Older dictionary versions are kept for reading existing rows.",
+            security = {@SecurityRequirement(name = "bearer_jwt"), @SecurityRequirement(name = "api_key")}
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/dictionaries")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompressionDictionaryResponse train() {
+        CompressionDictionaryResponse response = service.train();
+        if (log.isDebugEnabled()) {
+            log.debug("Trained compression dictionary id={}", response.getId());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,73 @@
+package com.rag.chat.datasource;
+
+/**
+ * Read-your-writes token: the primary's WAL position right after a write committed, handed to the client in the
+ * X-Consistency-Token header. A request that sends it back is only served by a replica that has replayed up to it.
+ * The token of the request being handled is kept per thread by {@link ConsistencyTokenFilter}, together with whether
+ * the request has read from a replica: results read there, or read under a token, must not be cached, since a
+ * cached page would be served to later requests regardless of their token.
+ */
+public final class ConsistencyToken {
+
+    public static final String HEADER = "X-Consistency-Token";
+
+    private static final ThreadLocal<Long> REQUIRED = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private ConsistencyToken() {
+    }
+
+    /**
+     * @return the WAL position the current request must observe, or null when any healthy replica will do
+     */
+    public static Long required() {
+        return REQUIRED.get();
+    }
+
+    public static void require(Long lsn) {
+        if (lsn == null) {
+            REQUIRED.remove();
+        } else {
+            REQUIRED.set(lsn);
+        }
+    }
+
+    public static void clear() {
+        REQUIRED.remove();
+        REPLICA_READ.remove();
+    }
+
+    /**
+     * Records that the current request was handed a replica connection
+     */
+    public static void markReplicaRead() {
+        REPLICA_READ.set(Boolean.TRUE);
+    }
+
+    /**
+     * @return whether the current request has read from a replica; such results may be behind the primary
+     */
+    public static boolean replicaRead() {
+        return REPLICA_READ.get() != null;
+    }
+
+    /**
+     * Parses a Postgres pg_lsn ("16/B374D848": high and low 32 bits in hex)
+     * @throws IllegalArgumentException when the text is not an LSN
+     */
+    public static long parse(String lsn) {
+        int slash = lsn == null ? -1 : lsn.indexOf('/');
+        if (slash <= 0 || slash == lsn.length() - 1 || slash > 8 || lsn.length() - slash - 1 > 8) {
+            throw new IllegalArgumentException("Not a WAL position: " + lsn);
+        }
+        try {
+            return Long.parseLong(lsn, 0, slash, 16) << 32 | Long.parseLong(lsn, slash + 1, lsn.length(), 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a WAL position: " + lsn, e);
+        }
+    }
+
+    public static String format(long lsn) {
+        return Long.toHexString(lsn >>> 32).toUpperCase() + "/" + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+    }
+}
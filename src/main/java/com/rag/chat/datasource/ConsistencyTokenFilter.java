@@ -0,0 +1,134 @@
+package com.rag.chat.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+
+/**
+ * Carries the {@link ConsistencyToken} in both directions. An incoming X-Consistency-Token header pins the request's
+ * reads to replicas that have replayed that far. When a read-write transaction commits during a request, the
+ * primary's WAL position is added to the response as a new token, just before the response is committed, by
+ * which point the transaction's connection is back in the pool.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ConsistencyTokenFilter extends OncePerRequestFilter implements TransactionExecutionListener {
+
+    private static final String WROTE = ConsistencyTokenFilter.class.getName() + ".WROTE";
+
+    private final ReplicaRouter router;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ConsistencyToken.require(parse(request.getHeader(ConsistencyToken.HEADER)));
+        TokenResponse tokenResponse = new TokenResponse(request, response);
+        try {
+            chain.doFilter(request, tokenResponse);
+        } finally {
+            ConsistencyToken.clear();
+        }
+        if (!response.isCommitted()) {
+            tokenResponse.stamp();
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || !transaction.isNewTransaction() || transaction.isReadOnly()) {
+            return;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(WROTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private static Long parse(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return ConsistencyToken.parse(header.trim());
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed {} header: {}", ConsistencyToken.HEADER, header);
+            return null;
+        }
+    }
+
+    /**
+     * Adds the token header the first time the body is about to be written or the response flushed
+     */
+    private final class TokenResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private boolean stamped;
+
+        TokenResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        void stamp() {
+            if (stamped || request.getAttribute(WROTE) == null) {
+                return;
+            }
+            stamped = true;
+            try {
+                setHeader(ConsistencyToken.HEADER, ConsistencyToken.format(router.primaryLsn()));
+            } catch (SQLException e) {
+                log.warn("Could not read the primary WAL position for {}: {}", ConsistencyToken.HEADER, e.getMessage());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            stamp();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            stamp();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            stamp();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            stamp();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            stamp();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            stamp();
+            super.sendRedirect(location);
+        }
+    }
+}
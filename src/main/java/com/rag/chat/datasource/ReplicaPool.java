@@ -0,0 +1,122 @@
+package com.rag.chat.datasource;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * One replica connection pool and what the last health check learned about it. A pool starts out down and is
+ * brought up by the first successful probe.
+ */
+@Slf4j
+public class ReplicaPool {
+
+    private static final String PROBE = "SELECT pg_is_in_recovery(), pg_last_wal_replay_lsn()::text";
+    private static final String REPLAY_LSN = "SELECT pg_last_wal_replay_lsn()::text";
+
+    @Getter
+    private final String name;
+    @Getter
+    private final DataSource dataSource;
+
+    private volatile boolean up;
+    private volatile long replayLsn;
+    private volatile Instant caughtUpAt = Instant.EPOCH;
+
+    public ReplicaPool(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public boolean isUp() {
+        return up;
+    }
+
+    public long replayLsn() {
+        return replayLsn;
+    }
+
+    /**
+     * Time since the primary was last known to be at a WAL position this replica has replayed
+     */
+    public Duration lag(Instant now) {
+        Duration lag = Duration.between(caughtUpAt, now);
+        return lag.isNegative() ? Duration.ZERO : lag;
+    }
+
+    /**
+     * @return whether reads without a consistency token may go here
+     */
+    public boolean isUsable(Instant now, Duration maxLag) {
+        return up && lag(now).compareTo(maxLag) <= 0;
+    }
+
+    /**
+     * Queries recovery state and replay position
+     * @return the replayed WAL position, or -1 when the replica is unreachable or no longer in recovery
+     */
+    long probe() {
+        try (Connection con = dataSource.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery(PROBE)) {
+            rs.next();
+            if (!rs.getBoolean(1)) {
+                markDown("not in recovery (promoted?)");
+                return -1;
+            }
+            String lsn = rs.getString(2);
+            return lsn == null ? -1 : ConsistencyToken.parse(lsn);
+        } catch (SQLException e) {
+            markDown(e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Records a successful probe
+     * @param caughtUpAt when the primary was last seen at a position at or before {@code replayLsn}
+     */
+    void update(long replayLsn, Instant caughtUpAt) {
+        this.replayLsn = replayLsn;
+        this.caughtUpAt = caughtUpAt;
+        if (!up) {
+            log.info("Read replica {} is up", name);
+        }
+        up = true;
+    }
+
+    void markDown(String reason) {
+        if (up) {
+            log.warn("Read replica {} is down: {}", name, reason);
+        }
+        up = false;
+    }
+
+    /**
+     * Reads the replay position on a connection already taken from this pool, for a request whose token is ahead of
+     * the cached position
+     * @return true when the replica has replayed up to {@code lsn}
+     */
+    boolean hasReplayed(Connection con, long lsn) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(REPLAY_LSN);
+             ResultSet rs = ps.executeQuery()) {
+            String replayed = rs.next() ? rs.getString(1) : null;
+            if (replayed == null) {
+                return false;
+            }
+            long position = ConsistencyToken.parse(replayed);
+            if (position > replayLsn) {
+                replayLsn = position;
+            }
+            return position >= lsn;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.rag.chat.datasource;
+
+import com.rag.chat.config.ReadReplicaProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read-only side of the application DataSource. Hands out a connection from the next replica (round-robin)
+ * that is up and within app.read-replicas.max-lag; when the request carries a {@link ConsistencyToken}, the replica
+ * must also have replayed up to it. A replica that fails to hand out a connection is marked down and the next one
+ * is tried; when none qualifies the read goes to the primary.
+ * <p>
+ * Lag is measured against the primary's own WAL position: every health check records where the primary was, and
+ * a replica's lag is the time since the primary was last at a position the replica has replayed. Unlike
+ * pg_last_xact_replay_timestamp() this stays at zero on an idle primary, and it keeps growing for a replica that
+ * stops answering probes.
+ */
+@Slf4j
+public class ReplicaRouter extends AbstractDataSource {
+
+    private static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<ReplicaPool> replicas;
+    private final ReadReplicaProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Deque<PrimaryPosition> history = new ArrayDeque<>();
+
+    private record PrimaryPosition(Instant at, long lsn) {
+    }
+
+    public ReplicaRouter(DataSource primary, List<ReplicaPool> replicas, ReadReplicaProperties properties,
+                         MeterRegistry meterRegistry, Clock clock) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        for (ReplicaPool replica : this.replicas) {
+            Gauge.builder("chat.datasource.replica.lag", replica, r -> r.lag(clock.instant()).toMillis() / 1000.0)
+                    .description("Seconds since the primary was at a WAL position this replica has replayed")
+                    .tag("pool", replica.getName())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            Gauge.builder("chat.datasource.replica.up", replica, r -> r.isUp() ? 1 : 0)
+                    .description("Whether the replica passed its last health check")
+                    .tag("pool", replica.getName())
+                    .register(meterRegistry);
+        }
+    }
+
+    public List<ReplicaPool> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Long token = ConsistencyToken.required();
+        Instant now = clock.instant();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+        for (int i = 0; i < replicas.size(); i++) {
+            ReplicaPool replica = replicas.get((start + i) % replicas.size());
+            if (!replica.isUsable(now, properties.maxLag())) {
+                continue;
+            }
+            boolean verify = token != null && replica.replayLsn() < token;
+            Connection con;
+            try {
+                con = replica.getDataSource().getConnection();
+            } catch (SQLException e) {
+                replica.markDown(e.getMessage());
+                continue;
+            }
+            try {
+                if (!verify) {
+                    route(replica.getName(), "replica");
+                    ConsistencyToken.markReplicaRead();
+                    return con;
+                }
+                if (replica.hasReplayed(con, token)) {
+                    route(replica.getName(), "caught-up");
+                    ConsistencyToken.markReplicaRead();
+                    return con;
+                }
+            } catch (SQLException e) {
+                replica.markDown(e.getMessage());
+            }
+            con.close();
+        }
+        route(PRIMARY, token != null ? "behind-token" : "no-replica");
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Replica connections use the configured credentials");
+    }
+
+    /**
+     * Current WAL position of the primary, the value handed out as a consistency token
+     */
+    public long primaryLsn() throws SQLException {
+        try (Connection con = primary.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT pg_current_wal_lsn()::text")) {
+            rs.next();
+            return ConsistencyToken.parse(rs.getString(1));
+        }
+    }
+
+    /**
+     * Probes every replica and refreshes its replay position and lag
+     */
+    @Scheduled(fixedDelayString = "${app.read-replicas.health-check-interval:PT5S}")
+    public void checkHealth() {
+        Instant now = clock.instant();
+        try {
+            record(now, primaryLsn());
+        } catch (SQLException e) {
+            log.warn("Could not read the primary WAL position: {}", e.getMessage());
+        }
+        for (ReplicaPool replica : replicas) {
+            long replayed = replica.probe();
+            if (replayed >= 0) {
+                replica.update(replayed, caughtUpAt(replayed));
+            }
+        }
+    }
+
+    private synchronized void record(Instant at, long lsn) {
+        history.addLast(new PrimaryPosition(at, lsn));
+        // keep enough history to tell "within max-lag" from "beyond it", plus the oldest entry as the floor
+        Instant horizon = at.minus(properties.maxLag()).minus(properties.healthCheckInterval());
+        while (history.size() > 1 && history.peekFirst().at().isBefore(horizon)) {
+            history.removeFirst();
+        }
+    }
+
+    /**
+     * @return the latest recorded time the primary was at or behind {@code replayed}; EPOCH when the replica is
+     *         behind all of the kept history
+     */
+    private synchronized Instant caughtUpAt(long replayed) {
+        var it = history.descendingIterator();
+        while (it.hasNext()) {
+            PrimaryPosition position = it.next();
+            if (position.lsn() <= replayed) {
+                return position.at();
+            }
+        }
+        return Instant.EPOCH;
+    }
+
+    /**
+     * Closes the replica pools; the primary belongs to the application context
+     */
+    public void close() throws Exception {
+        for (ReplicaPool replica : replicas) {
+            if (replica.getDataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private void route(String pool, String reason) {
+        meterRegistry.counter("chat.datasource.route", "pool", pool, "reason", reason).increment();
+    }
+}
@@ -0,0 +1,23 @@
+package com.rag.chat.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The same changes as {@link UpdateSessionRequest}, applied to every listed session
+ */
+@Getter
+@Setter
+public class BatchUpdateSessionsRequest extends UpdateSessionRequest {
+
+    @Schema(description = "Sessions to update, at most 100", example = "[\"9f5c1bca-6b2b-4ec1-8c3c-0c2d6f0d52b7\"]")
+    @NotEmpty(message = "ids must not be empty")
+    @Size(max = 100, message = "ids must list at most 100 sessions")
+    private List<UUID> ids;
+}
@@ -1,6 +1,8 @@
 package com.rag.chat.dto.request;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
@@ -15,4 +17,10 @@ public class CreateSessionRequest {
     )
     @Size(max = 150, message = "title exceeds maximum length 150")
     private String title;
+
+    @Schema(description = "Optional retention: the session is deleted after this many days without activity. "
+            + "Omit to keep it until it is deleted explicitly.", example = "90")
+    @Min(value = 1, message = "retentionDays must be at least 1")
+    @Max(value = 36500, message = "retentionDays must be at most 36500")
+    private Integer retentionDays;
 }
\ No newline at end of file
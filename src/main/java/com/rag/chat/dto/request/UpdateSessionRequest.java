@@ -1,6 +1,8 @@
 package com.rag.chat.dto.request;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
@@ -17,4 +19,10 @@ public class UpdateSessionRequest {
     @Schema(description = "Mark or unmark the session as favorite. Null means no change.",
             example = "true")
     private Boolean favorite;
+
+    @Schema(description = "Days without activity after which the session is deleted. Null means no change; "
+            + "0 removes the retention policy.", example = "30")
+    @Min(value = 0, message = "retentionDays must not be negative")
+    @Max(value = 36500, message = "retentionDays must be at most 36500")
+    private Integer retentionDays;
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.rag.chat.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+@JsonPropertyOrder({
+        "id", "dictionaryBytes", "sampleCount", "sampleBytes"
+})
+@Schema(name = "CompressionDictionaryResponse")
+public class CompressionDictionaryResponse {
+
+    @Schema(description = "Dictionary version; new message content is compressed with the highest one", example = "3")
+    int id;
+
+    @Schema(description = "Size of the trained dictionary", example = "114688")
+    int dictionaryBytes;
+
+    @Schema(description = "Number of messages the dictionary was trained on", example = "5000")
+    int sampleCount;
+
+    @Schema(description = "Total size of the training samples", example = "10485760")
+    long sampleBytes;
+}
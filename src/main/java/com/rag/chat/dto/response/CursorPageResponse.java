@@ -0,0 +1,72 @@
+package com.rag.chat.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.rag.chat.enums.ScrollDirection;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+@Value
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageResponse<T> {
+
+    List<T> content;
+    int size;
+    String next;
+    String prev;
+    boolean hasNext;
+    boolean hasPrevious;
+
+    /**
+     * Build a page from rows fetched in scroll order with one extra look-ahead row.
+     * Content is always returned in natural (FORWARD) order.
+     * @param rows fetched rows, at most size + 1
+     * @param size requested page size
+     * @param direction direction the rows were fetched in
+     * @param fromCursor whether the fetch started from a cursor (so rows exist on the other side)
+     * @param cursorFn encodes a row position for the given direction
+     */
+    public static <T> CursorPageResponse<T> of(List<T> rows, int size, ScrollDirection direction, boolean fromCursor,
+                                               CursorFunction<T> cursorFn) {
+        boolean hasMore = rows.size() > size;
+        List<T> content = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+        if (direction == ScrollDirection.BACKWARD) {
+            Collections.reverse(content);
+        }
+
+        boolean hasNext = direction == ScrollDirection.FORWARD ? hasMore : fromCursor;
+        boolean hasPrevious = direction == ScrollDirection.FORWARD ? fromCursor : hasMore;
+
+        return CursorPageResponse.<T>builder()
+                .content(content)
+                .size(content.size())
+                .next(hasNext && !content.isEmpty()
+                        ? cursorFn.encode(content.get(content.size() - 1), ScrollDirection.FORWARD) : null)
+                .prev(hasPrevious && !content.isEmpty()
+                        ? cursorFn.encode(content.get(0), ScrollDirection.BACKWARD) : null)
+                .hasNext(hasNext)
+                .hasPrevious(hasPrevious)
+                .build();
+    }
+
+    public <R> CursorPageResponse<R> map(Function<? super T, ? extends R> mapper) {
+        return CursorPageResponse.<R>builder()
+                .content(content.stream().<R>map(mapper).toList())
+                .size(size)
+                .next(next)
+                .prev(prev)
+                .hasNext(hasNext)
+                .hasPrevious(hasPrevious)
+                .build();
+    }
+
+    @FunctionalInterface
+    public interface CursorFunction<T> {
+        String encode(T row, ScrollDirection direction);
+    }
+}
@@ -0,0 +1,27 @@
+package com.rag.chat.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.rag.chat.enums.SenderType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+@JsonPropertyOrder({"seq", "role", "content", "truncated"})
+@Schema(name = "MessagePreviewResponse")
+public class MessagePreviewResponse {
+
+    @Schema(description = "Position of the message in the session transcript", example = "42")
+    Long seq;
+
+    @Schema(description = "Message role (USER, ASSISTANT, SYSTEM, etc.)", example = "AI")
+    SenderType role;
+
+    @Schema(description = "Start of the message content, at most app.session-preview.max-chars characters",
+            example = "Smaller chunks with some overlap usually improve recall, but")
+    String content;
+
+    @Schema(description = "Whether the content was cut; fetch the message for the full text", example = "true")
+    Boolean truncated;
+}
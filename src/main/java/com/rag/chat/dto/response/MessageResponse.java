@@ -2,7 +2,7 @@ package com.rag.chat.dto.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import com.rag.chat.enums.SenderType;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
@@ -15,8 +15,8 @@ import java.util.UUID;
 @Builder
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @JsonPropertyOrder({
-        "id", "sessionId", "role", "content",
-        "retrievedContext", "metadata", "createdAt"
+        "id", "sessionId", "seq", "role", "content",
+        "retrievedContext", "metadata", "projection", "createdAt"
 })
 @Schema(name = "MessageResponse")
 public class MessageResponse {
@@ -27,17 +27,28 @@ public class MessageResponse {
     @Schema(description = "Owning chat session identifier", example = "bf5cfb41-0c60-4b5b-8d7e-1c96b7e662b9")
     UUID sessionId;
 
+    @Schema(description = "Position in the session transcript: 1-based, gapless, in append order", example = "42")
+    Long seq;
+
     @Schema(description = "Message role (USER, ASSISTANT, SYSTEM, etc.)", example = "USER")
     SenderType role;
 
     @Schema(description = "Message textual content", example = "How can I improve retrieval chunking?")
     String content;
 
-    @Schema(description = "Optional retrieved context JSON (RAG evidence bundle)")
-    JsonNode retrievedContext;
+    @Schema(description = "Optional retrieved context JSON (RAG evidence bundle)", type = "object")
+    @JsonRawValue
+    String retrievedContext;
+
+    @Schema(description = "Optional arbitrary metadata JSON", type = "object")
+    @JsonRawValue
+    String metadata;
 
-    @Schema(description = "Optional arbitrary metadata JSON")
-    JsonNode metadata;
+    @Schema(description = "Requested JSON sub-paths, keyed by projection expression; each value is the array of matches",
+            type = "object", example = """
+            {"retrievedContext.chunks[*].id":["doc-1#p3","doc-2#p1"]}""")
+    @JsonRawValue
+    String projection;
 
     @Schema(description = "Creation timestamp (UTC instant)", example = "2025-09-12T11:39:01Z")
     Instant createdAt;
@@ -0,0 +1,22 @@
+package com.rag.chat.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+import java.util.UUID;
+
+@Value
+@Builder
+@JsonPropertyOrder({"affected", "notFound"})
+@Schema(name = "SessionBatchResponse")
+public class SessionBatchResponse {
+
+    @Schema(description = "Sessions the operation applied to, in request order")
+    List<UUID> affected;
+
+    @Schema(description = "Requested sessions that do not exist or are already deleted")
+    List<UUID> notFound;
+}
@@ -13,7 +13,8 @@ import java.util.UUID;
 @Builder
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @JsonPropertyOrder({
-        "id", "title", "favorite", "createdAt", "updatedAt"
+        "id", "title", "favorite", "createdAt", "updatedAt", "retentionDays", "archivedAt",
+        "messageCount", "lastMessageAt", "payloadBytes", "lastMessage"
 })
 @Schema(name = "SessionResponse")
 public class SessionResponse {
@@ -26,11 +27,35 @@ public class SessionResponse {
 
     @Schema(description = "Favorite flag for quick access in UI. Defaults to false if omitted.",
             example = "true")
-    boolean favorite;
+    Boolean favorite;
 
     @Schema(description = "Creation timestamp (UTC instant)", example = "2025-09-12T11:40:05Z")
     Instant createdAt;
 
     @Schema(description = "Last update timestamp (UTC instant)", example = "2025-09-12T11:41:27Z")
     Instant updatedAt;
+
+    @Schema(description = "Days without activity after which the session is deleted; absent when it is kept indefinitely",
+            example = "90")
+    Integer retentionDays;
+
+    @Schema(description = "When the session was sealed and moved to the cold tier; absent while it is live. "
+            + "Archived sessions are read-only.", example = "2025-10-12T03:45:00Z")
+    Instant archivedAt;
+
+    @Schema(description = "Number of messages in the session, archived ones included", example = "42")
+    Long messageCount;
+
+    @Schema(description = "Creation time of the newest message; absent while the session has none",
+            example = "2025-09-12T11:41:27Z")
+    Instant lastMessageAt;
+
+    @Schema(description = "Stored size of the session's messages in bytes: content as stored (compressed when large) "
+            + "plus retrievedContext and metadata JSON. Absent when unknown (sessions archived before it was tracked).",
+            example = "18432")
+    Long payloadBytes;
+
+    @Schema(description = "Preview of the newest message; only with preview=true, and absent while the session has "
+            + "no messages or once they are archived")
+    MessagePreviewResponse lastMessage;
 }
\ No newline at end of file
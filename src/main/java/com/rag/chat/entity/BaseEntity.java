@@ -20,7 +20,7 @@ import java.util.UUID;
 public abstract class BaseEntity implements Serializable {
 
     @Id
-    @GeneratedValue
+    @UuidV7Id
     @Column(nullable = false, updatable = false)
     @EqualsAndHashCode.Include
     protected UUID id;
@@ -1,13 +1,17 @@
 package com.rag.chat.entity;
 
+import com.rag.chat.compression.MessageContentConverter;
 import com.rag.chat.enums.SenderType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "chat_message",
         indexes = {
-                @Index(name = "idx_chat_message_session_created", columnList = "session_id, created_at")
+                @Index(name = "idx_chat_message_session_created", columnList = "session_id, created_at"),
+                @Index(name = "idx_chat_message_session_seq", columnList = "session_id, seq")
         })
 @Getter
 @Setter
@@ -23,18 +27,24 @@ public class ChatMessage extends BaseEntity {
             foreignKey = @ForeignKey(name = "fk_chat_message_session"))
     private ChatSession session;
 
+    /** Position in the session's transcript, 1-based and without gaps; assigned at append */
+    @Column(nullable = false, updatable = false)
+    private Long seq;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private SenderType role;
 
-    @Lob
-    @Column(nullable = false, columnDefinition = "TEXT")
+    @Convert(converter = MessageContentConverter.class)
+    @Column(nullable = false, columnDefinition = "BYTEA")
     private String content;
 
-    @Column(name = "retrieved_context", columnDefinition = "TEXT")
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "retrieved_context", columnDefinition = "jsonb")
     private String retrievedContext;
 
-    @Column(columnDefinition = "TEXT")
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
     private String metadata;
 
     public static ChatMessage of(ChatSession session, SenderType role, String content) {
@@ -1,13 +1,23 @@
 package com.rag.chat.entity;
 
+import com.rag.chat.cache.CacheNames;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.Instant;
 
+/**
+ * Held in the second-level cache region {@link CacheNames#CHAT_SESSIONS}; Hibernate keeps it in step with writes made
+ * through the entity. Writes to chat_session issued with plain SQL must evict it, see
+ * {@link com.rag.chat.cache.SessionCacheInvalidator#evictSessions}.
+ */
 @Entity
 @Table(name = "chat_session")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheNames.CHAT_SESSIONS)
 @Getter
 @Setter
 @Builder
@@ -20,16 +30,46 @@ public class ChatSession extends BaseEntity {
     @Size(max = 150, message = "Title exceeds maximum length of 150 characters")
     private String title;
 
+    /** JWT subject of the creator; '' for callers without one and for sessions that predate owners */
+    @Builder.Default
+    @Column(name = "owner_id", nullable = false, updatable = false)
+    private String ownerId = "";
+
     @Column(name = "is_favorite", nullable = false)
     private boolean favorite;
 
     @Column(name = "deleted_at")
     private Instant deletedAt;
 
+    @Column(name = "archived_at")
+    private Instant archivedAt;
+
+    @Column(name = "archive_segment")
+    private Integer archiveSegment;
+
+    /** Idle days after which the purge job deletes the session; null keeps it until deleted explicitly */
+    @Column(name = "retention_days")
+    private Integer retentionDays;
+
     public void markDeleted() {
         this.deletedAt = Instant.now();
     }
 
+    /**
+     * Messages of an archived session live in segment {@link #archiveSegment}, not in chat_message
+     */
+    public boolean isArchived() {
+        return archivedAt != null;
+    }
+
+    /**
+     * Seals the session once its messages live in archive segment {@code segment}
+     */
+    public void markArchived(int segment, Instant at) {
+        this.archiveSegment = segment;
+        this.archivedAt = at;
+    }
+
     public void rename(String newTitle) {
         this.title = newTitle;
     }
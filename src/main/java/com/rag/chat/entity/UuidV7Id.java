@@ -0,0 +1,19 @@
+package com.rag.chat.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Assigns a time-ordered {@link com.rag.chat.util.UuidV7} id before insert.
+ */
+@IdGeneratorType(UuidV7IdGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface UuidV7Id {
+}
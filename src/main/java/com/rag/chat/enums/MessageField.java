@@ -0,0 +1,40 @@
+package com.rag.chat.enums;
+
+/**
+ * Selectable fields of a message listing; paths are relative to {@code ChatMessage m join m.session s}
+ */
+public enum MessageField implements SelectableField {
+    ID("id", "m.id", true),
+    SESSION_ID("sessionId", "s.id", false),
+    SEQ("seq", "m.seq", false),
+    ROLE("role", "m.role", false),
+    CONTENT("content", "m.content", false),
+    RETRIEVED_CONTEXT("retrievedContext", "m.retrievedContext", false),
+    METADATA("metadata", "m.metadata", false),
+    CREATED_AT("createdAt", "m.createdAt", false);
+
+    private final String fieldName;
+    private final String path;
+    private final boolean required;
+
+    MessageField(String fieldName, String path, boolean required) {
+        this.fieldName = fieldName;
+        this.path = path;
+        this.required = required;
+    }
+
+    @Override
+    public String fieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public String path() {
+        return path;
+    }
+
+    @Override
+    public boolean required() {
+        return required;
+    }
+}
@@ -0,0 +1,6 @@
+package com.rag.chat.enums;
+
+public enum ScrollDirection {
+    FORWARD,
+    BACKWARD
+}
@@ -0,0 +1,56 @@
+package com.rag.chat.enums;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A response field that a listing can select on its own ({@code fields=id,role,createdAt}). Each constant maps a
+ * client-facing name to a fixed JPQL path, so only whitelisted columns ever reach the select list.
+ */
+public interface SelectableField {
+
+    /**
+     * Name used in the {@code fields} parameter and in the response
+     */
+    String fieldName();
+
+    /**
+     * JPQL path selected for this field
+     */
+    String path();
+
+    /**
+     * Whether the field is selected even when not asked for (it keys the row)
+     */
+    boolean required();
+
+    /**
+     * Parse a client-supplied field list; {@code null} or empty selects every field.
+     * @throws IllegalArgumentException with key fields.invalid when a name is not a field of {@code type}
+     */
+    static <E extends Enum<E> & SelectableField> Set<E> parse(Class<E> type, List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return EnumSet.allOf(type);
+        }
+        EnumSet<E> fields = EnumSet.noneOf(type);
+        for (E field : type.getEnumConstants()) {
+            if (field.required()) {
+                fields.add(field);
+            }
+        }
+        for (String name : names) {
+            fields.add(byName(type, name == null ? "" : name.strip()));
+        }
+        return fields;
+    }
+
+    private static <E extends Enum<E> & SelectableField> E byName(Class<E> type, String name) {
+        for (E field : type.getEnumConstants()) {
+            if (field.fieldName().equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("fields.invalid");
+    }
+}
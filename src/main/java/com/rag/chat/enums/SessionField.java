@@ -0,0 +1,39 @@
+package com.rag.chat.enums;
+
+/**
+ * Selectable fields of a session listing; paths are relative to {@code ChatSession s}
+ */
+public enum SessionField implements SelectableField {
+    ID("id", "s.id", true),
+    TITLE("title", "s.title", false),
+    FAVORITE("favorite", "s.favorite", false),
+    CREATED_AT("createdAt", "s.createdAt", false),
+    UPDATED_AT("updatedAt", "s.updatedAt", false),
+    RETENTION_DAYS("retentionDays", "s.retentionDays", false),
+    ARCHIVED_AT("archivedAt", "s.archivedAt", false);
+
+    private final String fieldName;
+    private final String path;
+    private final boolean required;
+
+    SessionField(String fieldName, String path, boolean required) {
+        this.fieldName = fieldName;
+        this.path = path;
+        this.required = required;
+    }
+
+    @Override
+    public String fieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public String path() {
+        return path;
+    }
+
+    @Override
+    public boolean required() {
+        return required;
+    }
+}
@@ -23,6 +23,7 @@ import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
@@ -41,18 +42,31 @@ public class GlobalExceptionHandler {
 
     private String msg(String code) {
         Locale locale = LocaleContextHolder.getLocale();
-        log.info("Translating key '{}' for locale '{}'", code, locale);
-        return messageSource.getMessage(code, null, code, LocaleContextHolder.getLocale());
+        log.debug("Translating key '{}' for locale '{}'", code, locale);
+        return messageSource.getMessage(code, null, code, locale);
     }
 
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<ApiErrorResponse> handleResourceNotFound(ResourceNotFoundException ex, HttpServletRequest req) {
         String key = ex.getMessage();// Must be a valid translation key
         String translated = msg(key);
-        log.warn("Resource not found: {}", key);
+        // expected and possibly flooded by clients polling stale ids, see SessionExistenceFilter
+        log.debug("Resource not found: {}", key);
         return build(HttpStatus.NOT_FOUND, key, translated, req.getRequestURI());
     }
 
+    @ExceptionHandler(SessionArchivedException.class)
+    public ResponseEntity<ApiErrorResponse> handleSessionArchived(SessionArchivedException ex, HttpServletRequest req) {
+        log.warn("Session archived: {}", ex.getMessage());
+        return build(HttpStatus.CONFLICT, "SESSION_ARCHIVED", msg(ex.getMessage()), req.getRequestURI());
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ApiErrorResponse> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex, HttpServletRequest req) {
+        log.warn("Idempotency key reused: {}", ex.getMessage());
+        return build(HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED", msg(ex.getMessage()), req.getRequestURI());
+    }
+
     @ExceptionHandler(NoResourceFoundException.class)
     public ResponseEntity<ApiErrorResponse> handleNoResourceFound(NoResourceFoundException ex, HttpServletRequest req) {
         String msg = msg("exception.no.handler") + ": " + ex.getMessage();
@@ -87,6 +101,16 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.BAD_REQUEST, "VALIDATION_ERROR", errors, req.getRequestURI());
     }
 
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ApiErrorResponse> handleParameterValidation(HandlerMethodValidationException ex, HttpServletRequest req) {
+        String errors = ex.getAllValidationResults().stream()
+                .flatMap(r -> r.getResolvableErrors().stream()
+                        .map(e -> r.getMethodParameter().getParameterName() + ": " + e.getDefaultMessage()))
+                .collect(Collectors.joining(", "));
+        log.warn("Validation error: {}", errors);
+        return build(HttpStatus.BAD_REQUEST, "VALIDATION_ERROR", errors, req.getRequestURI());
+    }
+
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public ResponseEntity<ApiErrorResponse> handleMissingParams(MissingServletRequestParameterException ex, HttpServletRequest req) {
         String msg = msg("exception.missing.parameter") + ": " + ex.getParameterName();
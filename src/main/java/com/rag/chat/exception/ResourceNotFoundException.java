@@ -1,7 +1,11 @@
 package com.rag.chat.exception;
 
+/**
+ * An expected miss, answered with 404. Carries no stack trace, as filling one in would dominate the cost of a flood
+ * of lookups for stale ids; the message key says everything the handler needs.
+ */
 public class ResourceNotFoundException extends RuntimeException {
     public ResourceNotFoundException(String message){
-        super(message);
+        super(message, null, false, false);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,7 @@
+package com.rag.chat.exception;
+
+public class SessionArchivedException extends RuntimeException {
+    public SessionArchivedException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,108 @@
+package com.rag.chat.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rag.chat.config.IdempotencyProperties;
+import com.rag.chat.dto.request.CreateMessageRequest;
+import com.rag.chat.repository.MessageAppendKeyRepository;
+import com.rag.chat.repository.MessageAppendKeyRepository.AppendKey;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static com.rag.chat.util.JSONSerializerDeserializerUtil.serialize;
+
+/**
+ * Client-supplied Idempotency-Key of a message append. Completed keys are kept in message_append_key, whose primary
+ * key makes each key single-use per session, and the most recent ones in a bounded in-memory cache, so a retry is
+ * usually answered without a database round trip. A cached entry is only added once its append has committed.
+ */
+@Component
+public class IdempotencyKeyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final Pattern KEY = Pattern.compile("^[\\x21-\\x7E]{1,255}$");
+
+    private final MessageAppendKeyRepository repository;
+    private final Cache<String, AppendKey> recent;
+
+    public IdempotencyKeyStore(MessageAppendKeyRepository repository, IdempotencyProperties properties) {
+        this.repository = repository;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(properties.cacheMaxEntries())
+                .expireAfterWrite(properties.retention())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @throws IllegalArgumentException with key idempotency.key.invalid unless the key is 1-255 visible ASCII characters
+     */
+    public static void validate(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("idempotency.key.invalid");
+        }
+    }
+
+    /**
+     * SHA-256 of the request body as the service received it
+     */
+    public static byte[] fingerprint(List<CreateMessageRequest> requests) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                    .digest(serialize(requests, "messages").getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The completed append recorded for a key, from the cache or else the database
+     */
+    public Optional<AppendKey> find(UUID sessionId, String key) {
+        AppendKey cached = recent.getIfPresent(cacheKey(sessionId, key));
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<AppendKey> stored = repository.find(sessionId, key);
+        stored.ifPresent(k -> recent.put(cacheKey(sessionId, key), k));
+        return stored;
+    }
+
+    /**
+     * Claims the key for the current transaction; see {@link MessageAppendKeyRepository#claim}
+     */
+    public boolean claim(UUID sessionId, String key, byte[] requestHash) {
+        return repository.claim(sessionId, key, requestHash);
+    }
+
+    /**
+     * Records the messages created under a claimed key; the key is cached once the transaction commits
+     */
+    public void complete(UUID sessionId, String key, byte[] requestHash, List<UUID> messageIds) {
+        repository.complete(sessionId, key, messageIds);
+        AppendKey completed = new AppendKey(requestHash, List.copyOf(messageIds));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recent.put(cacheKey(sessionId, key), completed);
+                }
+            });
+        } else {
+            recent.put(cacheKey(sessionId, key), completed);
+        }
+    }
+
+    private static String cacheKey(UUID sessionId, String key) {
+        return sessionId + ":" + key;
+    }
+}
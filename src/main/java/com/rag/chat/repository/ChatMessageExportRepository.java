@@ -0,0 +1,51 @@
+package com.rag.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Plain JDBC access for bulk reads that must not hydrate entities.
+ * Must run inside a transaction: PostgreSQL only uses a server-side cursor (honouring the fetch size)
+ * when auto-commit is off, otherwise the driver buffers the whole result set.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChatMessageExportRepository {
+
+    private static final String SELECT_SESSION_MESSAGES = """
+            SELECT id, session_id, seq, role, content, retrieved_context, metadata, created_at
+            FROM chat_message
+            WHERE session_id = ? AND created_at >= ?
+            ORDER BY seq""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.export.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * Stream every message of a session in transcript order, row by row.
+     * @param sessionId
+     * @param since lower created_at bound so partitioned tables are pruned
+     * @param handler invoked once per row; must not retain the ResultSet
+     */
+    public void streamBySession(UUID sessionId, Instant since, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_SESSION_MESSAGES,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setObject(1, sessionId);
+            ps.setTimestamp(2, Timestamp.from(since));
+            return ps;
+        }, handler);
+    }
+}
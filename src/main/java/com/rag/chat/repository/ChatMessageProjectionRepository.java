@@ -0,0 +1,98 @@
+package com.rag.chat.repository;
+
+import com.rag.chat.util.JsonProjection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Evaluates {@link JsonProjection}s inside PostgreSQL so only the selected parts of the JSONB
+ * columns leave the database. Stored retrieved_context chunk references are resolved against retrieved_chunk
+ * (resolve_chunk_refs) before a path is evaluated, so projections see the chunk bodies, never the references.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChatMessageProjectionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param ids message ids to project
+     * @param projections validated projections; columns come from the {@link JsonProjection} whitelist
+     * @return JSON object text per message id, keyed by projection expression
+     */
+    public Map<UUID, String> project(Collection<UUID> ids, List<JsonProjection> projections) {
+        Map<UUID, String> result = new HashMap<>();
+        if (ids.isEmpty() || projections.isEmpty()) {
+            return result;
+        }
+        String sql = selectProjection(projections, "resolve_chunk_refs(retrieved_context)")
+                + " FROM chat_message WHERE id = ANY(?)";
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            int index = bindProjections(ps, projections);
+            ps.setArray(index, con.createArrayOf("uuid", ids.toArray()));
+            return ps;
+        }, rs -> {
+            result.put(rs.getObject("id", UUID.class), rs.getString("projection"));
+        });
+        return result;
+    }
+
+    /**
+     * Same as {@link #project} for messages that are not in chat_message (archived sessions):
+     * their documents are sent along and evaluated with the same SQL/JSON paths.
+     * @param messages messages carrying their retrievedContext (chunk references already resolved) and metadata documents
+     * @param projections validated projections
+     * @return JSON object text per message id, keyed by projection expression
+     */
+    public Map<UUID, String> projectDocuments(List<MessageView> messages, List<JsonProjection> projections) {
+        Map<UUID, String> result = new HashMap<>();
+        if (messages.isEmpty() || projections.isEmpty()) {
+            return result;
+        }
+        String sql = selectProjection(projections, "retrieved_context")
+                + " FROM unnest(CAST(? AS uuid[]), CAST(? AS jsonb[]), CAST(? AS jsonb[])) AS d(id, retrieved_context, metadata)";
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            int index = bindProjections(ps, projections);
+            ps.setArray(index++, con.createArrayOf("uuid", messages.stream().map(MessageView::id).toArray()));
+            ps.setArray(index++, con.createArrayOf("text", messages.stream().map(MessageView::retrievedContext).toArray()));
+            ps.setArray(index, con.createArrayOf("text", messages.stream().map(MessageView::metadata).toArray()));
+            return ps;
+        }, rs -> {
+            result.put(rs.getObject("id", UUID.class), rs.getString("projection"));
+        });
+        return result;
+    }
+
+    private static String selectProjection(List<JsonProjection> projections, String retrievedContext) {
+        StringBuilder sql = new StringBuilder("SELECT id, jsonb_build_object(");
+        for (int i = 0; i < projections.size(); i++) {
+            if (i > 0) sql.append(", ");
+            String column = projections.get(i).column();
+            sql.append("?, jsonb_path_query_array(").append("retrieved_context".equals(column) ? retrievedContext : column)
+                    .append(", CAST(? AS jsonpath), '{}', true)");
+        }
+        return sql.append(")::text AS projection").toString();
+    }
+
+    private static int bindProjections(PreparedStatement ps, List<JsonProjection> projections) throws SQLException {
+        int index = 1;
+        for (JsonProjection projection : projections) {
+            ps.setString(index++, projection.expression());
+            ps.setString(index++, projection.jsonPath());
+        }
+        return index;
+    }
+}
@@ -5,9 +5,67 @@ import com.rag.chat.entity.ChatSession;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID> {
-    Page<ChatMessage> findBySessionOrderByCreatedAtAsc(ChatSession session, Pageable pageable);
-}
\ No newline at end of file
+    Page<ChatMessage> findBySessionOrderBySeqAsc(ChatSession session, Pageable pageable);
+
+    /*
+     * The queries below also bound createdAt from below (callers pass the session's creation time minus a slack),
+     * so a range-partitioned chat_message (db/partitioning) is pruned to the session's lifetime.
+     */
+
+    Page<ChatMessage> findBySessionAndCreatedAtGreaterThanEqualOrderBySeqAsc(ChatSession session, Instant since,
+                                                                            Pageable pageable);
+
+    /**
+     * One page of a live session's messages as {@link MessageView} records; the join drops soft-deleted sessions
+     * and other owners' sessions, so no separate session lookup is needed. Order comes from the pageable; the total comes from
+     * {@link SessionStatsRepository#messageCount} instead of a count query.
+     */
+    @Query("""
+            select new com.rag.chat.repository.MessageView(m.id, s.id, m.seq, m.role, m.content, m.retrievedContext, m.metadata, m.createdAt)
+            from ChatMessage m join m.session s
+            where s.id = :sessionId and s.ownerId = :ownerId and s.deletedAt is null and m.createdAt >= :since""")
+    List<MessageView> findViews(@Param("sessionId") UUID sessionId, @Param("ownerId") String ownerId,
+                                @Param("since") Instant since, Pageable pageable);
+
+    /*
+     * Keyset (seek) queries on idx_chat_message_session_seq; seq is unique within a session, so no tiebreaker.
+     * List return types keep Spring Data from issuing a count query; callers pass size + 1 to detect more rows.
+     */
+
+    @Query("select m from ChatMessage m where m.session.id = :sessionId and m.createdAt >= :since order by m.seq asc")
+    List<ChatMessage> findOldest(@Param("sessionId") UUID sessionId, @Param("since") Instant since, Pageable limit);
+
+    @Query("select m from ChatMessage m where m.session.id = :sessionId and m.createdAt >= :since order by m.seq desc")
+    List<ChatMessage> findNewest(@Param("sessionId") UUID sessionId, @Param("since") Instant since, Pageable limit);
+
+    @Query("""
+            select m from ChatMessage m
+            where m.session.id = :sessionId and m.createdAt >= :since and m.seq > :seq
+            order by m.seq asc""")
+    List<ChatMessage> findAfter(@Param("sessionId") UUID sessionId, @Param("since") Instant since, @Param("seq") long seq,
+                                Pageable limit);
+
+    @Query("""
+            select m from ChatMessage m
+            where m.session.id = :sessionId and m.createdAt >= :since and m.seq < :seq
+            order by m.seq desc""")
+    List<ChatMessage> findBefore(@Param("sessionId") UUID sessionId, @Param("since") Instant since, @Param("seq") long seq,
+                                 Pageable limit);
+
+    /**
+     * Removes a session's messages once they have been archived
+     * @return number of messages deleted
+     */
+    @Modifying
+    @Query("delete from ChatMessage m where m.session.id = :sessionId and m.createdAt >= :since")
+    int deleteBySession(@Param("sessionId") UUID sessionId, @Param("since") Instant since);
+}
@@ -1,16 +1,131 @@
 package com.rag.chat.repository;
 
 import com.rag.chat.entity.ChatSession;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface ChatSessionRepository extends JpaRepository<ChatSession, UUID> {
 
-    Optional<ChatSession> findByIdAndDeletedAtIsNull(UUID id);
+    /**
+     * Live session by id, served from the second-level cache when present; a query by id and deletedAt would always
+     * go to the database
+     */
+    default Optional<ChatSession> findByIdAndDeletedAtIsNull(UUID id) {
+        return findById(id).filter(s -> s.getDeletedAt() == null);
+    }
 
-    Page<ChatSession> findByFavoriteIsTrueAndDeletedAtIsNull(Pageable pageable);
-}
\ No newline at end of file
+    /**
+     * One owner's active favorites (idx_chat_session_owner_favorite)
+     */
+    Page<ChatSession> findByOwnerIdAndFavoriteIsTrueAndDeletedAtIsNull(String ownerId, Pageable pageable);
+
+    /*
+     * Keyset (seek) queries over one owner's active favorites (idx_chat_session_owner_favorite), newest activity
+     * first, id as tiebreaker. FORWARD walks towards older sessions; BACKWARD walks towards more recently updated ones.
+     */
+
+    @Query("""
+            select s from ChatSession s
+            where s.ownerId = :ownerId and s.favorite = true and s.deletedAt is null
+            order by s.updatedAt desc, s.id desc""")
+    List<ChatSession> findFavoritesNewest(@Param("ownerId") String ownerId, Pageable limit);
+
+    @Query("""
+            select s from ChatSession s
+            where s.ownerId = :ownerId and s.favorite = true and s.deletedAt is null
+            order by s.updatedAt asc, s.id asc""")
+    List<ChatSession> findFavoritesOldest(@Param("ownerId") String ownerId, Pageable limit);
+
+    @Query("""
+            select s from ChatSession s
+            where s.ownerId = :ownerId and s.favorite = true and s.deletedAt is null
+              and (s.updatedAt < :updatedAt or (s.updatedAt = :updatedAt and s.id < :id))
+            order by s.updatedAt desc, s.id desc""")
+    List<ChatSession> findFavoritesAfter(@Param("ownerId") String ownerId, @Param("updatedAt") Instant updatedAt,
+                                         @Param("id") UUID id, Pageable limit);
+
+    @Query("""
+            select s from ChatSession s
+            where s.ownerId = :ownerId and s.favorite = true and s.deletedAt is null
+              and (s.updatedAt > :updatedAt or (s.updatedAt = :updatedAt and s.id > :id))
+            order by s.updatedAt asc, s.id asc""")
+    List<ChatSession> findFavoritesBefore(@Param("ownerId") String ownerId, @Param("updatedAt") Instant updatedAt,
+                                          @Param("id") UUID id, Pageable limit);
+
+    /*
+     * The same keyset queries over all of one owner's active sessions, favorite or not (idx_chat_session_owner_recent)
+     */
+
+    @Query("""
+            select s from ChatSession s
+            where s.ownerId = :ownerId and s.deletedAt is null
+            order by s.updatedAt desc, s.id desc""")
+    List<ChatSession> findRecentNewest(@Param("ownerId") String ownerId, Pageable limit);
+
+    @Query("""
+            select s from ChatSession s
+            where s.ownerId = :ownerId and s.deletedAt is null
+            order by s.updatedAt asc, s.id asc""")
+    List<ChatSession> findRecentOldest(@Param("ownerId") String ownerId, Pageable limit);
+
+    @Query("""
+            select s from ChatSession s
+            where s.ownerId = :ownerId and s.deletedAt is null
+              and (s.updatedAt < :updatedAt or (s.updatedAt = :updatedAt and s.id < :id))
+            order by s.updatedAt desc, s.id desc""")
+    List<ChatSession> findRecentAfter(@Param("ownerId") String ownerId, @Param("updatedAt") Instant updatedAt,
+                                      @Param("id") UUID id, Pageable limit);
+
+    @Query("""
+            select s from ChatSession s
+            where s.ownerId = :ownerId and s.deletedAt is null
+              and (s.updatedAt > :updatedAt or (s.updatedAt = :updatedAt and s.id > :id))
+            order by s.updatedAt asc, s.id asc""")
+    List<ChatSession> findRecentBefore(@Param("ownerId") String ownerId, @Param("updatedAt") Instant updatedAt,
+                                       @Param("id") UUID id, Pageable limit);
+
+    /**
+     * Share-locks a live session for an append, without writing it. Concurrent appends to one session hold the lock
+     * side by side; archiving or deleting the session waits for them, and they wait for it.
+     * @return the session's owner and whether it is archived, empty when it does not exist or is deleted
+     */
+    @Query(value = """
+            SELECT owner_id AS "ownerId", archived_at IS NOT NULL AS "archived"
+            FROM chat_session WHERE id = :id AND deleted_at IS NULL FOR SHARE""",
+            nativeQuery = true)
+    Optional<AppendTarget> lockForAppend(@Param("id") UUID id);
+
+    interface AppendTarget {
+        String getOwnerId();
+
+        boolean getArchived();
+    }
+
+    /*
+     * Archival (idx_chat_session_archivable): live sessions idle since before the cutoff, least recently active first.
+     * lockArchivable re-checks the condition under a row lock, which also blocks a concurrent lockForAppend
+     * until the archiving transaction has committed.
+     */
+
+    @Query("""
+            select s.id from ChatSession s
+            where s.archivedAt is null and s.deletedAt is null and s.updatedAt < :cutoff
+            order by s.updatedAt asc""")
+    List<UUID> findArchivalCandidates(@Param("cutoff") Instant cutoff, Pageable limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select s from ChatSession s
+            where s.id = :id and s.archivedAt is null and s.deletedAt is null and s.updatedAt < :cutoff""")
+    Optional<ChatSession> lockArchivable(@Param("id") UUID id, @Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,49 @@
+package com.rag.chat.repository;
+
+import com.rag.chat.compression.CompressionDictionary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plain JDBC so the content codec can load dictionaries without depending on the JPA EntityManagerFactory
+ * that uses it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CompressionDictionaryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<CompressionDictionary> findLatest() {
+        return jdbcTemplate.query("SELECT id, dictionary FROM compression_dictionary ORDER BY id DESC LIMIT 1",
+                (rs, i) -> new CompressionDictionary(rs.getInt("id"), rs.getBytes("dictionary"))).stream().findFirst();
+    }
+
+    public Optional<CompressionDictionary> findById(int id) {
+        return jdbcTemplate.query("SELECT id, dictionary FROM compression_dictionary WHERE id = ?",
+                (rs, i) -> new CompressionDictionary(rs.getInt("id"), rs.getBytes("dictionary")), id).stream().findFirst();
+    }
+
+    public int insert(byte[] dictionary, int sampleCount, long sampleBytes) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO compression_dictionary (dictionary, sample_count, sample_bytes)
+                VALUES (?, ?, ?)
+                RETURNING id""", Integer.class, dictionary, sampleCount, sampleBytes);
+    }
+
+    /**
+     * Encoded content of the most recent messages, used as training samples. The created_at bound prunes
+     * chat_message to the partitions of the window; ids are UUIDv7, so newest-first by id walks each partition's
+     * primary key backwards and stops after {@code limit} rows instead of sorting the table.
+     */
+    public List<byte[]> findRecentContent(Instant since, int limit) {
+        return jdbcTemplate.query("SELECT content FROM chat_message WHERE created_at >= ? ORDER BY id DESC LIMIT ?",
+                (rs, i) -> rs.getBytes(1), Timestamp.from(since), limit);
+    }
+}
@@ -0,0 +1,88 @@
+package com.rag.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Idempotency keys of message appends (message_append_key). The primary key (session_id, idempotency_key) is what
+ * makes a key single-use: of two concurrent appends with the same key only one can {@link #claim} it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MessageAppendKeyRepository {
+
+    private static final String FIND = """
+            SELECT request_hash, message_ids FROM message_append_key WHERE session_id = ? AND idempotency_key = ?""";
+
+    private static final String CLAIM = """
+            INSERT INTO message_append_key (session_id, idempotency_key, request_hash) VALUES (?, ?, ?)
+            ON CONFLICT DO NOTHING""";
+
+    private static final String COMPLETE = """
+            UPDATE message_append_key SET message_ids = ? WHERE session_id = ? AND idempotency_key = ?""";
+
+    private static final String DELETE_EXPIRED = """
+            DELETE FROM message_append_key
+            WHERE (session_id, idempotency_key) IN (SELECT session_id, idempotency_key FROM message_append_key
+                                                    WHERE created_at < ?
+                                                    LIMIT ?)
+            RETURNING created_at""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A recorded append
+     * @param requestHash SHA-256 of the request body the key was first used with
+     * @param messageIds the messages it created, in request order
+     */
+    public record AppendKey(byte[] requestHash, List<UUID> messageIds) {
+    }
+
+    public Optional<AppendKey> find(UUID sessionId, String key) {
+        return jdbcTemplate.query(FIND, (rs, i) -> new AppendKey(
+                rs.getBytes("request_hash"),
+                Arrays.asList((UUID[]) rs.getArray("message_ids").getArray())), sessionId, key).stream().findFirst();
+    }
+
+    /**
+     * Records the key for the current transaction. Blocks while another transaction holds the same key.
+     * @return false when the key was already used (and that append committed)
+     */
+    public boolean claim(UUID sessionId, String key, byte[] requestHash) {
+        return jdbcTemplate.update(CLAIM, sessionId, key, requestHash) == 1;
+    }
+
+    /**
+     * Attaches the created messages to a claimed key
+     */
+    public void complete(UUID sessionId, String key, List<UUID> messageIds) {
+        jdbcTemplate.update(con -> {
+            Array ids = con.createArrayOf("uuid", messageIds.toArray());
+            PreparedStatement ps = con.prepareStatement(COMPLETE);
+            ps.setArray(1, ids);
+            ps.setObject(2, sessionId);
+            ps.setString(3, key);
+            return ps;
+        });
+    }
+
+    /**
+     * Deletes up to {@code limit} keys recorded before {@code cutoff}
+     * @return creation times of the deleted keys
+     */
+    public List<Instant> deleteExpired(Instant cutoff, int limit) {
+        return jdbcTemplate.query(DELETE_EXPIRED,
+                (rs, i) -> rs.getObject("created_at", OffsetDateTime.class).toInstant(), Timestamp.from(cutoff), limit);
+    }
+}
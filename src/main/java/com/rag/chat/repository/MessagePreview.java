@@ -0,0 +1,11 @@
+package com.rag.chat.repository;
+
+import com.rag.chat.enums.SenderType;
+
+/**
+ * Start of a session's newest message, for session listings
+ * @param content at most app.session-preview.max-chars code points of the message content
+ * @param truncated whether the content goes on beyond the preview
+ */
+public record MessagePreview(long seq, SenderType role, String content, boolean truncated) {
+}
@@ -0,0 +1,36 @@
+package com.rag.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+/**
+ * Per-session message sequence counters (session_message_stats.last_seq)
+ */
+@Repository
+@RequiredArgsConstructor
+public class MessageSequenceRepository {
+
+    private static final String ALLOCATE = """
+            INSERT INTO session_message_stats AS c (session_id, last_seq) VALUES (?, ?)
+            ON CONFLICT (session_id) DO UPDATE SET last_seq = c.last_seq + EXCLUDED.last_seq
+            RETURNING last_seq""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reserves the next {@code count} sequence numbers of a session for the current transaction. The counter row
+     * stays locked until the transaction ends, so concurrent appends to the same session take their numbers in
+     * commit order; a rolled-back append returns its numbers.
+     * @return the last reserved number; the batch is {@code last - count + 1 .. last}
+     */
+    public long allocate(UUID sessionId, int count) {
+        Long last = jdbcTemplate.queryForObject(ALLOCATE, Long.class, sessionId, count);
+        if (last == null) {
+            throw new IllegalStateException("No sequence returned for session " + sessionId);
+        }
+        return last;
+    }
+}
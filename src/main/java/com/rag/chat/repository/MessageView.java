@@ -0,0 +1,46 @@
+package com.rag.chat.repository;
+
+import com.rag.chat.entity.ChatMessage;
+import com.rag.chat.enums.MessageField;
+import com.rag.chat.enums.SenderType;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable read model of a message, selected straight into this record by a JPQL constructor expression:
+ * no managed entity, no dirty-checking snapshot and no session proxy. Content arrives decoded (the attribute
+ * converter still applies); retrievedContext may still hold chunk references. In a sparse listing the fields that
+ * were not selected are {@code null}.
+ */
+public record MessageView(
+        UUID id,
+        UUID sessionId,
+        Long seq,
+        SenderType role,
+        String content,
+        String retrievedContext,
+        String metadata,
+        Instant createdAt
+) {
+
+    public static MessageView of(ChatMessage m) {
+        return new MessageView(m.getId(), m.getSession() != null ? m.getSession().getId() : null, m.getSeq(),
+                m.getRole(), m.getContent(), m.getRetrievedContext(), m.getMetadata(), m.getCreatedAt());
+    }
+
+    /**
+     * This view with only the given fields set, for rows that were read in full (archive segments)
+     */
+    public MessageView select(Set<MessageField> fields) {
+        return new MessageView(id,
+                fields.contains(MessageField.SESSION_ID) ? sessionId : null,
+                fields.contains(MessageField.SEQ) ? seq : null,
+                fields.contains(MessageField.ROLE) ? role : null,
+                fields.contains(MessageField.CONTENT) ? content : null,
+                fields.contains(MessageField.RETRIEVED_CONTEXT) ? retrievedContext : null,
+                fields.contains(MessageField.METADATA) ? metadata : null,
+                fields.contains(MessageField.CREATED_AT) ? createdAt : null);
+    }
+}
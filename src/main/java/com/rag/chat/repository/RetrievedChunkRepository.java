@@ -0,0 +1,60 @@
+package com.rag.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Chunk bodies keyed by the SHA-256 of their JSON; hashes travel as lowercase hex.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RetrievedChunkRepository {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert bodies that are not stored yet. Rows are written in hash order so concurrent batches
+     * sharing chunks cannot deadlock.
+     * @param chunks body JSON by hash
+     */
+    public void insertMissing(Map<String, String> chunks) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(chunks.size());
+        new TreeMap<>(chunks).forEach((hash, body) -> rows.add(new Object[]{HEX.parseHex(hash), body}));
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO retrieved_chunk (hash, body) VALUES (?, CAST(? AS jsonb))
+                ON CONFLICT (hash) DO NOTHING""", rows);
+    }
+
+    /**
+     * @return body JSON by hash for the hashes that exist
+     */
+    public Map<String, String> findByHashes(Collection<String> hashes) {
+        Map<String, String> result = new HashMap<>();
+        if (hashes.isEmpty()) {
+            return result;
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT hash, body::text FROM retrieved_chunk WHERE hash = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bytea", hashes.stream().map(HEX::parseHex).toArray(byte[][]::new)));
+            return ps;
+        }, rs -> {
+            result.put(HEX.formatHex(rs.getBytes(1)), rs.getString(2));
+        });
+        return result;
+    }
+}
@@ -0,0 +1,45 @@
+package com.rag.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes coalesced session activity back to chat_session.updated_at
+ */
+@Repository
+@RequiredArgsConstructor
+public class SessionActivityRepository {
+
+    private static final String TOUCH = """
+            UPDATE chat_session s SET updated_at = a.active_at
+            FROM unnest(?, ?) AS a(id, active_at)
+            WHERE s.id = a.id AND s.updated_at < a.active_at
+              AND s.deleted_at IS NULL AND s.archived_at IS NULL""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Moves updatedAt of each live session forward to its last activity in one statement; a session whose
+     * updatedAt is already later is left alone.
+     * @return number of sessions updated
+     */
+    public int touch(Map<UUID, Instant> lastActivity) {
+        if (lastActivity.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(TOUCH);
+            ps.setArray(1, con.createArrayOf("uuid", lastActivity.keySet().toArray()));
+            ps.setArray(2, con.createArrayOf("timestamptz",
+                    lastActivity.values().stream().map(Timestamp::from).toArray()));
+            return ps;
+        });
+    }
+}
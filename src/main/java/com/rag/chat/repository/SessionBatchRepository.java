@@ -0,0 +1,104 @@
+package com.rag.chat.repository;
+
+import com.rag.chat.entity.ChatSession;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Reads and writes many sessions by id, each in one statement. The writes are plain SQL: callers evict the changed
+ * sessions from the second-level cache (see {@link com.rag.chat.cache.SessionCacheInvalidator#evictSessions}).
+ */
+@Repository
+public class SessionBatchRepository {
+
+    /**
+     * Applies the given fields (null = unchanged, retention 0 = none) to the owner's live sessions among the ids. Sessions
+     * that already hold the values are not rewritten, so like an entity save they keep updatedAt and version.
+     */
+    private static final String UPDATE_SESSIONS = """
+            WITH patch AS (SELECT ?::varchar AS title, ?::boolean AS favorite, ?::int AS retention_days),
+            target AS (SELECT id FROM chat_session WHERE id = ANY (?) AND owner_id = ? AND deleted_at IS NULL),
+            changed AS (
+                UPDATE chat_session s
+                SET title = COALESCE(p.title, s.title),
+                    is_favorite = COALESCE(p.favorite, s.is_favorite),
+                    retention_days = CASE WHEN p.retention_days IS NULL THEN s.retention_days
+                                          ELSE NULLIF(p.retention_days, 0) END
+                FROM patch p, target t
+                WHERE s.id = t.id AND s.deleted_at IS NULL
+                  AND ((p.title IS NOT NULL AND p.title IS DISTINCT FROM s.title)
+                    OR (p.favorite IS NOT NULL AND p.favorite IS DISTINCT FROM s.is_favorite)
+                    OR (p.retention_days IS NOT NULL AND NULLIF(p.retention_days, 0) IS DISTINCT FROM s.retention_days))
+                RETURNING s.id)
+            SELECT id FROM target""";
+
+    private static final String SOFT_DELETE = """
+            UPDATE chat_session SET deleted_at = ?
+            WHERE id = ANY (?) AND owner_id = ? AND deleted_at IS NULL
+            RETURNING id""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SessionBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Live sessions among the ids, in id order. Sessions in the second-level cache are taken from there; the rest
+     * are loaded with a single {@code id = any(?)} query.
+     */
+    public List<ChatSession> findLive(List<UUID> ids) {
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(ChatSession.class)
+                .withBatchSize(ids.size())
+                .multiLoad(ids)
+                .stream()
+                .filter(Objects::nonNull)
+                .filter(s -> s.getDeletedAt() == null)
+                .toList();
+    }
+
+    /**
+     * @return ids of the owner's live sessions among {@code ids}, whether or not they needed a change
+     */
+    public List<UUID> update(Collection<UUID> ids, String ownerId, String title, Boolean favorite,
+                             Integer retentionDays) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(UPDATE_SESSIONS);
+            ps.setString(1, title);
+            ps.setObject(2, favorite, Types.BOOLEAN);
+            ps.setObject(3, retentionDays, Types.INTEGER);
+            ps.setArray(4, con.createArrayOf("uuid", ids.toArray()));
+            ps.setString(5, ownerId);
+            return ps;
+        }, (rs, i) -> rs.getObject("id", UUID.class));
+    }
+
+    /**
+     * @return ids of the owner's sessions deleted by this call
+     */
+    public List<UUID> softDelete(Collection<UUID> ids, String ownerId, Instant deletedAt) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SOFT_DELETE);
+            ps.setTimestamp(1, Timestamp.from(deletedAt));
+            ps.setArray(2, con.createArrayOf("uuid", ids.toArray()));
+            ps.setString(3, ownerId);
+            return ps;
+        }, (rs, i) -> rs.getObject("id", UUID.class));
+    }
+}
@@ -0,0 +1,54 @@
+package com.rag.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads the ids of all live sessions for {@link com.rag.chat.cache.SessionExistenceFilter}.
+ * Must run inside a transaction, so PostgreSQL streams the ids through a server-side cursor.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SessionExistenceRepository {
+
+    private static final String ESTIMATE_COUNT = """
+            SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE oid = 'chat_session'::regclass""";
+
+    private static final String SELECT_LIVE_IDS = """
+            SELECT id FROM chat_session WHERE deleted_at IS NULL""";
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Planner estimate of the chat_session row count as of the last ANALYZE, read without scanning the table
+     */
+    public long estimateCount() {
+        Long estimate = jdbcTemplate.queryForObject(ESTIMATE_COUNT, Long.class);
+        return estimate == null ? 0 : estimate;
+    }
+
+    /**
+     * @return number of ids passed to the consumer
+     */
+    public long forEachLiveId(Consumer<UUID> consumer) {
+        long[] count = {0};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_LIVE_IDS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            consumer.accept(rs.getObject(1, UUID.class));
+            count[0]++;
+        });
+        return count[0];
+    }
+}
@@ -0,0 +1,106 @@
+package com.rag.chat.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Set-based deletes for the purge job. Meant to run outside a transaction: every statement is its own
+ * short auto-committed unit, so locks and WAL are released batch by batch.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SessionPurgeRepository {
+
+    private static final String EXPIRE_RETENTION = """
+            UPDATE chat_session SET deleted_at = ?
+            WHERE id IN (SELECT id FROM chat_session
+                         WHERE retention_days IS NOT NULL AND deleted_at IS NULL
+                           AND updated_at + make_interval(days => retention_days) < ?
+                         ORDER BY updated_at
+                         LIMIT ?
+                         FOR UPDATE SKIP LOCKED)
+            RETURNING id""";
+
+    private static final String FIND_PURGEABLE = """
+            SELECT id, deleted_at, created_at, archive_segment FROM chat_session
+            WHERE deleted_at IS NOT NULL AND deleted_at < ?
+              AND (deleted_at, id) > (?, ?)
+            ORDER BY deleted_at, id
+            LIMIT ?""";
+
+    private static final String COUNT_PURGEABLE = """
+            SELECT count(*) FROM chat_session WHERE deleted_at IS NOT NULL AND deleted_at < ?""";
+
+    private static final String DELETE_MESSAGES = """
+            DELETE FROM chat_message
+            WHERE (id, created_at) IN (SELECT id, created_at FROM chat_message
+                                       WHERE session_id = ? AND created_at >= ?
+                                       ORDER BY created_at
+                                       LIMIT ?)
+            RETURNING created_at""";
+
+    private static final String DELETE_SESSION = """
+            DELETE FROM chat_session WHERE id = ? AND deleted_at IS NOT NULL AND deleted_at < ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A soft-deleted session waiting for its hard purge; (deletedAt, id) is the keyset position
+     * @param archiveSegment segment holding the session's messages when it was archived, else null
+     */
+    public record PurgeCandidate(UUID id, Instant deletedAt, Instant createdAt, Integer archiveSegment) {
+
+        public static final PurgeCandidate START = new PurgeCandidate(new UUID(0, 0), Instant.EPOCH, Instant.EPOCH, null);
+    }
+
+    /**
+     * Soft-delete up to {@code limit} live sessions whose retention has run out
+     * @param now
+     * @param limit
+     * @return ids of the sessions expired by this call
+     */
+    public List<UUID> expireRetention(Instant now, int limit) {
+        Timestamp ts = Timestamp.from(now);
+        return jdbcTemplate.query(EXPIRE_RETENTION, (rs, i) -> rs.getObject("id", UUID.class), ts, ts, limit);
+    }
+
+    /**
+     * Next page of sessions deleted before {@code cutoff}, strictly after {@code after} in (deletedAt, id) order
+     */
+    public List<PurgeCandidate> findPurgeable(Instant cutoff, PurgeCandidate after, int limit) {
+        return jdbcTemplate.query(FIND_PURGEABLE, (rs, i) -> new PurgeCandidate(
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("deleted_at", OffsetDateTime.class).toInstant(),
+                        rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+                        rs.getObject("archive_segment", Integer.class)),
+                Timestamp.from(cutoff), Timestamp.from(after.deletedAt()), after.id(), limit);
+    }
+
+    public long countPurgeable(Instant cutoff) {
+        Long count = jdbcTemplate.queryForObject(COUNT_PURGEABLE, Long.class, Timestamp.from(cutoff));
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Delete the oldest {@code limit} messages of a session from {@code since} on
+     * @return createdAt of every deleted row; the latest one is the keyset bound for the next batch
+     */
+    public List<Instant> deleteMessages(UUID sessionId, Instant since, int limit) {
+        return jdbcTemplate.query(DELETE_MESSAGES, (rs, i) -> rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+                sessionId, Timestamp.from(since), limit);
+    }
+
+    /**
+     * @return 1 when the session row was deleted
+     */
+    public int deleteSession(UUID sessionId, Instant cutoff) {
+        return jdbcTemplate.update(DELETE_SESSION, sessionId, Timestamp.from(cutoff));
+    }
+}
@@ -0,0 +1,21 @@
+package com.rag.chat.repository;
+
+import java.time.Instant;
+
+/**
+ * Maintained message aggregates of a session
+ * @param messageCount messages in the session, including archived ones
+ * @param lastMessageAt createdAt of the newest message; null without messages or for sessions archived before the
+ *                      aggregates were kept
+ * @param payloadBytes stored size of the messages (see message_payload_bytes); null when unknown
+ * @param lastMessage preview of the newest message when requested; null otherwise, without messages, or once the
+ *                    message has left chat_message (archived or expired)
+ */
+public record SessionStats(long messageCount, Instant lastMessageAt, Long payloadBytes, MessagePreview lastMessage) {
+
+    public static final SessionStats EMPTY = new SessionStats(0, null, 0L);
+
+    public SessionStats(long messageCount, Instant lastMessageAt, Long payloadBytes) {
+        this(messageCount, lastMessageAt, payloadBytes, null);
+    }
+}
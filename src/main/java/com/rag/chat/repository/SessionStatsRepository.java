@@ -0,0 +1,136 @@
+package com.rag.chat.repository;
+
+import com.rag.chat.compression.MessageContentCodec;
+import com.rag.chat.enums.SenderType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Maintained per-session message aggregates (session_message_stats), read instead of counting chat_message
+ */
+@Repository
+@RequiredArgsConstructor
+public class SessionStatsRepository {
+
+    private static final String ADD_APPENDED = """
+            UPDATE session_message_stats s
+            SET message_count = s.message_count + a.message_count,
+                last_message_at = GREATEST(s.last_message_at, a.last_message_at),
+                payload_bytes = s.payload_bytes + a.payload_bytes
+            FROM (SELECT count(*) AS message_count, max(created_at) AS last_message_at,
+                         sum(message_payload_bytes(content, retrieved_context, metadata)) AS payload_bytes
+                  FROM chat_message
+                  WHERE session_id = ? AND seq BETWEEN ? AND ? AND created_at >= ?) a
+            WHERE s.session_id = ?""";
+
+    private static final String SELECT_STATS = """
+            SELECT session_id, message_count, last_message_at, payload_bytes
+            FROM session_message_stats WHERE session_id = ANY (?)""";
+
+    /**
+     * last_seq points at the newest message; the lateral probe is one index seek per session. Only the first bytes
+     * of raw (0x00) content are transferred; compressed frames come whole and are decoded as a stream up to the limit.
+     */
+    private static final String SELECT_STATS_WITH_LAST_MESSAGE = """
+            SELECT s.session_id, s.message_count, s.last_message_at, s.payload_bytes, m.seq, m.role,
+                   CASE WHEN substring(m.content FROM 1 FOR 1) = '\\x00'::bytea
+                        THEN substring(m.content FROM 1 FOR ?) ELSE m.content END AS content
+            FROM session_message_stats s
+            LEFT JOIN LATERAL (SELECT seq, role, content FROM chat_message
+                               WHERE session_id = s.session_id AND seq = s.last_seq
+                               LIMIT 1) m ON true
+            WHERE s.session_id = ANY (?)""";
+
+    private static final String SELECT_MESSAGE_COUNT = """
+            SELECT message_count FROM session_message_stats WHERE session_id = ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageContentCodec contentCodec;
+
+    /**
+     * Adds the just-inserted messages {@code fromSeq..toSeq} of a session to its aggregates. Runs in the appending
+     * transaction, which already holds the row lock from allocating those numbers.
+     * @param since lower created_at bound of the batch, so partitioned tables are pruned
+     */
+    public void addAppended(UUID sessionId, long fromSeq, long toSeq, Instant since) {
+        jdbcTemplate.update(ADD_APPENDED, sessionId, fromSeq, toSeq, Timestamp.from(since), sessionId);
+    }
+
+    /**
+     * @return aggregates by session id; sessions that never had a message map to {@link SessionStats#EMPTY}
+     */
+    public Map<UUID, SessionStats> find(Collection<UUID> sessionIds) {
+        Map<UUID, SessionStats> stats = new HashMap<>();
+        if (sessionIds.isEmpty()) {
+            return stats;
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_STATS);
+            ps.setArray(1, con.createArrayOf("uuid", sessionIds.toArray()));
+            return ps;
+        }, rs -> {
+            stats.put(rs.getObject("session_id", UUID.class), stats(rs, null));
+        });
+        sessionIds.forEach(id -> stats.putIfAbsent(id, SessionStats.EMPTY));
+        return stats;
+    }
+
+    /**
+     * Like {@link #find}, plus a preview of each session's newest message, in one query
+     * @param previewChars preview length in code points; content beyond it is neither decoded nor returned
+     */
+    public Map<UUID, SessionStats> findWithLastMessage(Collection<UUID> sessionIds, int previewChars) {
+        Map<UUID, SessionStats> stats = new HashMap<>();
+        if (sessionIds.isEmpty()) {
+            return stats;
+        }
+        // a code point is at most 4 UTF-8 bytes, so this prefix holds previewChars whole ones plus one more if cut
+        int prefixBytes = previewChars * 4 + 1;
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_STATS_WITH_LAST_MESSAGE);
+            ps.setInt(1, prefixBytes + 1);
+            ps.setArray(2, con.createArrayOf("uuid", sessionIds.toArray()));
+            return ps;
+        }, rs -> {
+            MessagePreview preview = null;
+            String role = rs.getString("role");
+            if (role != null) {
+                String prefix = contentCodec.decodePrefix(rs.getBytes("content"), prefixBytes);
+                boolean truncated = prefix.codePointCount(0, prefix.length()) > previewChars;
+                preview = new MessagePreview(rs.getLong("seq"), SenderType.valueOf(role),
+                        truncated ? prefix.substring(0, prefix.offsetByCodePoints(0, previewChars)) : prefix,
+                        truncated);
+            }
+            stats.put(rs.getObject("session_id", UUID.class), stats(rs, preview));
+        });
+        sessionIds.forEach(id -> stats.putIfAbsent(id, SessionStats.EMPTY));
+        return stats;
+    }
+
+    private static SessionStats stats(ResultSet rs, MessagePreview lastMessage) throws SQLException {
+        OffsetDateTime lastMessageAt = rs.getObject("last_message_at", OffsetDateTime.class);
+        return new SessionStats(
+                rs.getLong("message_count"),
+                lastMessageAt != null ? lastMessageAt.toInstant() : null,
+                rs.getObject("payload_bytes", Long.class),
+                lastMessage);
+    }
+
+    public long messageCount(UUID sessionId) {
+        List<Long> count = jdbcTemplate.queryForList(SELECT_MESSAGE_COUNT, Long.class, sessionId);
+        return count.isEmpty() ? 0 : count.get(0);
+    }
+}
@@ -0,0 +1,18 @@
+package com.rag.chat.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Immutable read model of a session for sparse listings; fields that were not selected are {@code null}
+ */
+public record SessionView(
+        UUID id,
+        String title,
+        Boolean favorite,
+        Instant createdAt,
+        Instant updatedAt,
+        Integer retentionDays,
+        Instant archivedAt
+) {
+}
@@ -0,0 +1,99 @@
+package com.rag.chat.repository;
+
+import com.rag.chat.enums.MessageField;
+import com.rag.chat.enums.SelectableField;
+import com.rag.chat.enums.SenderType;
+import com.rag.chat.enums.SessionField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Listings that select only the columns behind the requested fields ({@code fields=}), so a transcript view without
+ * retrievedContext or metadata never reads, detoasts or transfers those columns. Select lists are built from the
+ * {@link SelectableField} whitelist; rows come back as tuples and unselected fields stay {@code null}.
+ */
+@Repository
+public class SparseViewRepository {
+
+    private static final String MESSAGES_FROM = """
+             from ChatMessage m join m.session s
+            where s.id = :sessionId and s.ownerId = :ownerId and s.deletedAt is null and m.createdAt >= :since""";
+    private static final String FAVORITES_FROM = """
+             from ChatSession s
+            where s.ownerId = :ownerId and s.favorite = true and s.deletedAt is null""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Same rows as {@link ChatMessageRepository#findViews}, restricted to the given fields
+     */
+    public List<MessageView> findMessageViews(UUID sessionId, String ownerId, Instant since, Set<MessageField> fields,
+                                              Pageable pageable) {
+        TypedQuery<Tuple> query = entityManager.createQuery(
+                QueryUtils.applySorting(select(fields) + MESSAGES_FROM, pageable.getSort(), "m"), Tuple.class);
+        query.setParameter("sessionId", sessionId).setParameter("ownerId", ownerId).setParameter("since", since);
+        page(query, pageable);
+        return query.getResultList().stream().map(t -> new MessageView(
+                t.get(MessageField.ID.fieldName(), UUID.class),
+                value(t, fields, MessageField.SESSION_ID, UUID.class),
+                value(t, fields, MessageField.SEQ, Long.class),
+                value(t, fields, MessageField.ROLE, SenderType.class),
+                value(t, fields, MessageField.CONTENT, String.class),
+                value(t, fields, MessageField.RETRIEVED_CONTEXT, String.class),
+                value(t, fields, MessageField.METADATA, String.class),
+                value(t, fields, MessageField.CREATED_AT, Instant.class))).toList();
+    }
+
+    /**
+     * One owner's active favorite sessions, restricted to the given fields
+     */
+    public Page<SessionView> findFavoriteViews(String ownerId, Set<SessionField> fields, Pageable pageable) {
+        TypedQuery<Tuple> query = entityManager.createQuery(
+                QueryUtils.applySorting(select(fields) + FAVORITES_FROM, pageable.getSort(), "s"), Tuple.class);
+        query.setParameter("ownerId", ownerId);
+        page(query, pageable);
+        List<SessionView> content = query.getResultList().stream().map(t -> new SessionView(
+                t.get(SessionField.ID.fieldName(), UUID.class),
+                value(t, fields, SessionField.TITLE, String.class),
+                value(t, fields, SessionField.FAVORITE, Boolean.class),
+                value(t, fields, SessionField.CREATED_AT, Instant.class),
+                value(t, fields, SessionField.UPDATED_AT, Instant.class),
+                value(t, fields, SessionField.RETENTION_DAYS, Integer.class),
+                value(t, fields, SessionField.ARCHIVED_AT, Instant.class))).toList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> entityManager
+                .createQuery("select count(s)" + FAVORITES_FROM, Long.class)
+                .setParameter("ownerId", ownerId)
+                .getSingleResult());
+    }
+
+    private static String select(Set<? extends SelectableField> fields) {
+        return fields.stream()
+                .map(f -> f.path() + " as " + f.fieldName())
+                .collect(Collectors.joining(", ", "select ", ""));
+    }
+
+    private static void page(TypedQuery<?> query, Pageable pageable) {
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+    }
+
+    private static <T> T value(Tuple tuple, Set<? extends SelectableField> fields, SelectableField field, Class<T> type) {
+        return fields.contains(field) ? tuple.get(field.fieldName(), type) : null;
+    }
+}
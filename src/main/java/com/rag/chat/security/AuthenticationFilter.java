@@ -13,11 +13,15 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Slf4j
 public class AuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String ROLES_CLAIM = "roles";
+    private static final String ADMIN_ROLE = "admin";
 
     private final JwtAuthenticationProvider jwtProvider;
     private final ApiKeyAuthenticationProvider apiKeyProvider;
@@ -73,14 +77,14 @@ public class AuthenticationFilter extends OncePerRequestFilter {
         apiKeyValid = apiKeyProvider.isValid(apiKey);
 
         if (jwtValid && apiKeyValid) {
+            List<SimpleGrantedAuthority> authorities = new ArrayList<>(List.of(
+                    new SimpleGrantedAuthority("ROLE_API_CLIENT"),
+                    new SimpleGrantedAuthority("ROLE_RAG_SERVICE")));
+            if (hasRole(claims, ADMIN_ROLE)) {
+                authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+            }
             UsernamePasswordAuthenticationToken auth =
-                new UsernamePasswordAuthenticationToken(
-                        claims.getSubject(),
-                    null,
-                    List.of(
-                        new SimpleGrantedAuthority("ROLE_API_CLIENT"),
-                        new SimpleGrantedAuthority("ROLE_RAG_SERVICE")
-                    ));
+                new UsernamePasswordAuthenticationToken(claims.getSubject(), null, authorities);
             SecurityContextHolder.getContext().setAuthentication(auth);
             log.info("Authentication successful: valid JWT and valid API key.");
             chain.doFilter(request, response);
@@ -90,6 +94,17 @@ public class AuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
+    /**
+     * Whether the token's "roles" claim (a list of role names, or a single name) contains the role
+     */
+    private static boolean hasRole(Claims claims, String role) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (roles instanceof Collection<?> names) {
+            return names.stream().anyMatch(name -> role.equalsIgnoreCase(String.valueOf(name)));
+        }
+        return roles instanceof String name && role.equalsIgnoreCase(name);
+    }
+
     private boolean isPublicEndpoint(String path) {
         return path.startsWith("/swagger-ui")
                 || path.startsWith("/v3/api-docs")
@@ -0,0 +1,200 @@
+package com.rag.chat.service;
+
+import com.rag.chat.aop.LogExecution;
+import com.rag.chat.config.ChatPartitionProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps monthly chat_message partitions ahead of the clock and retires expired ones.
+ * Each DDL statement runs in auto-commit on one connection guarded by a session advisory lock,
+ * so several instances can schedule the job and a failing statement does not undo the others. Only a detach shares
+ * its transaction, with the update that takes the partition's messages out of the session aggregates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.partitioning", name = "enabled", havingValue = "true")
+public class ChatMessagePartitionMaintainer {
+
+    static final long ADVISORY_LOCK_KEY = 0x63686174_6d736770L; // "chatmsgp"
+    private static final String LOCK_NOT_AVAILABLE = "55P03";
+    private static final Pattern PARTITION_NAME = Pattern.compile("^chat_message_p(\\d{6})$");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String LIST_PARTITIONS = """
+            SELECT c.relname
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'chat_message'::regclass""";
+    private static final String SUBTRACT_PARTITION_STATS = """
+            UPDATE session_message_stats s
+            SET message_count = s.message_count - p.message_count, payload_bytes = s.payload_bytes - p.payload_bytes
+            FROM (SELECT session_id, count(*) AS message_count,
+                         sum(message_payload_bytes(content, retrieved_context, metadata)) AS payload_bytes
+                  FROM %s GROUP BY session_id) p
+            WHERE s.session_id = p.session_id""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatPartitionProperties properties;
+    private final Clock clock = Clock.systemUTC();
+
+    /**
+     * Partitions to create and to retire for the given month
+     * @param create months without a partition in [current, current + premakeMonths]
+     * @param expire existing months before current - retentionMonths (empty when retention is off)
+     */
+    public record Plan(List<YearMonth> create, List<YearMonth> expire) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${app.partitioning.maintenance-cron:0 15 3 * * *}", zone = "UTC")
+    @LogExecution(includeArgs = false, includeResult = true, warnThresholdMs = 5000)
+    public Plan maintain() {
+        return jdbcTemplate.execute((ConnectionCallback<Plan>) this::maintain);
+    }
+
+    private Plan maintain(Connection con) throws SQLException {
+        con.setAutoCommit(true);
+        try (Statement st = con.createStatement()) {
+            if (!tryLock(st)) {
+                log.info("Partition maintenance already running elsewhere; skipping");
+                return new Plan(List.of(), List.of());
+            }
+            try {
+                Plan plan = plan(existingMonths(st), YearMonth.now(clock), properties);
+                for (YearMonth month : plan.create()) {
+                    execute(st, "CREATE TABLE IF NOT EXISTS %s PARTITION OF chat_message FOR VALUES FROM ('%s') TO ('%s')"
+                            .formatted(partitionName(month), bound(month), bound(month.plusMonths(1))));
+                }
+                for (YearMonth month : plan.expire()) {
+                    String name = partitionName(month);
+                    if (detach(con, st, name, properties.detachLockTimeout()) && properties.dropExpired()) {
+                        execute(st, "DROP TABLE " + name);
+                    }
+                }
+                return plan;
+            } finally {
+                st.execute("SELECT pg_advisory_unlock(" + ADVISORY_LOCK_KEY + ")");
+            }
+        }
+    }
+
+    /**
+     * Work out which monthly partitions are missing or expired
+     * @param existing months that already have a partition
+     * @param current the current UTC month
+     * @param properties
+     * @return
+     */
+    public static Plan plan(Set<YearMonth> existing, YearMonth current, ChatPartitionProperties properties) {
+        List<YearMonth> create = new ArrayList<>();
+        for (int i = 0; i <= properties.premakeMonths(); i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!existing.contains(month)) {
+                create.add(month);
+            }
+        }
+        List<YearMonth> expire = new ArrayList<>();
+        if (properties.retentionMonths() > 0) {
+            YearMonth oldestKept = current.minusMonths(properties.retentionMonths());
+            existing.stream().filter(month -> month.isBefore(oldestKept)).sorted().forEach(expire::add);
+        }
+        return new Plan(create, expire);
+    }
+
+    static String partitionName(YearMonth month) {
+        return "chat_message_p" + month.format(SUFFIX);
+    }
+
+    private static String bound(YearMonth month) {
+        return month.atDay(1) + " 00:00:00+00";
+    }
+
+    private static boolean tryLock(Statement st) throws SQLException {
+        try (ResultSet rs = st.executeQuery("SELECT pg_try_advisory_lock(" + ADVISORY_LOCK_KEY + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private static Set<YearMonth> existingMonths(Statement st) throws SQLException {
+        Set<YearMonth> months = new TreeSet<>();
+        try (ResultSet rs = st.executeQuery(LIST_PARTITIONS)) {
+            while (rs.next()) {
+                Matcher m = PARTITION_NAME.matcher(rs.getString(1));
+                if (m.matches()) {
+                    months.add(YearMonth.parse(m.group(1), SUFFIX));
+                }
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Detaches an expired partition and takes its messages out of the session aggregates in one transaction, so
+     * message counts never include rows that are gone or miss rows that are still there. The subtraction holds row
+     * locks on session_message_stats that appends need, and a waiting DETACH queues every other chat_message query
+     * behind it, so the DETACH gives up after lockTimeout; the partition is still expired on the next run.
+     */
+    private static boolean detach(Connection con, Statement st, String name, Duration lockTimeout) throws SQLException {
+        con.setAutoCommit(false);
+        try {
+            st.executeUpdate(SUBTRACT_PARTITION_STATS.formatted(name));
+            st.execute("SET LOCAL lock_timeout = '" + lockTimeout.toMillis() + "ms'");
+            st.execute("ALTER TABLE chat_message DETACH PARTITION " + name);
+            con.commit();
+            log.info("Partition maintenance: detached {}", name);
+            return true;
+        } catch (SQLException e) {
+            con.rollback();
+            if (LOCK_NOT_AVAILABLE.equals(e.getSQLState())) {
+                log.info("Partition maintenance: {} is busy, retrying its detach on the next run", name);
+            } else {
+                log.warn("Partition maintenance failed to detach {} ({})", name, e.getMessage());
+            }
+            return false;
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * A failure (e.g. rows for that month already sitting in the default partition) is logged and
+     * leaves the remaining statements to run.
+     */
+    private static boolean execute(Statement st, String ddl) {
+        try {
+            st.execute(ddl);
+            log.info("Partition maintenance: {}", ddl);
+            return true;
+        } catch (SQLException e) {
+            log.warn("Partition maintenance statement failed: {} ({})", ddl, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,21 +1,60 @@
 package com.rag.chat.service;
 
+import com.rag.chat.activity.SessionActivityTracker;
 import com.rag.chat.aop.LogExecution;
+import com.rag.chat.archive.SessionArchive;
+import com.rag.chat.cache.CacheNames;
+import com.rag.chat.cache.SessionCacheInvalidator;
+import com.rag.chat.cache.SessionExistenceFilter;
+import com.rag.chat.chunk.RetrievedChunkStore;
 import com.rag.chat.dto.request.CreateMessageRequest;
+import com.rag.chat.dto.response.CursorPageResponse;
 import com.rag.chat.entity.ChatMessage;
 import com.rag.chat.entity.ChatSession;
+import com.rag.chat.enums.MessageField;
+import com.rag.chat.enums.ScrollDirection;
+import com.rag.chat.exception.IdempotencyKeyReusedException;
 import com.rag.chat.exception.ResourceNotFoundException;
+import com.rag.chat.exception.SessionArchivedException;
+import com.rag.chat.idempotency.IdempotencyKeyStore;
+import com.rag.chat.repository.ChatMessageProjectionRepository;
 import com.rag.chat.repository.ChatMessageRepository;
 import com.rag.chat.repository.ChatSessionRepository;
+import com.rag.chat.repository.MessageAppendKeyRepository.AppendKey;
+import com.rag.chat.repository.MessageSequenceRepository;
+import com.rag.chat.repository.MessageView;
+import com.rag.chat.repository.SessionStatsRepository;
+import com.rag.chat.repository.SparseViewRepository;
+import com.rag.chat.util.CursorCodec;
+import com.rag.chat.util.JsonProjection;
+import com.rag.chat.util.UuidV7;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static com.rag.chat.util.JSONSerializerDeserializerUtil.serialize;
@@ -25,19 +64,60 @@ import static com.rag.chat.util.JSONSerializerDeserializerUtil.serialize;
 @Service
 public class ChatMessageService {
 
+    private static final Duration PARTITION_PRUNING_SLACK = Duration.ofHours(1);
+
     private final ChatMessageRepository messageRepository;
     private final ChatSessionRepository sessionRepository;
+    private final MeterRegistry meterRegistry;
+    private final SessionCacheInvalidator cacheInvalidator;
+    private final ChatMessageProjectionRepository projectionRepository;
+    private final RetrievedChunkStore chunkStore;
+    private final SessionArchive archive;
+    private final SparseViewRepository sparseViewRepository;
+    private final IdempotencyKeyStore keyStore;
+    private final SessionActivityTracker activityTracker;
+    private final MessageSequenceRepository sequenceRepository;
+    private final SessionExistenceFilter existenceFilter;
+    private final SessionStatsRepository statsRepository;
+
+    /**
+     * Outcome of an append
+     * @param messages the messages of the batch, in request order
+     * @param replayed true when an earlier append with the same idempotency key was returned instead
+     */
+    public record Appended(List<ChatMessage> messages, boolean replayed) {
+    }
 
     /**
-     * Get a chat message by sessionId
+     * Append a batch of messages to a session without an idempotency key, see {@link #append}
      * @param sessionId
      * @param reqList
      * @return
      */
     @Transactional
-    @CacheEvict(value = "chatMessages", allEntries = true)
     @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
     public List<ChatMessage> create(UUID sessionId, List<CreateMessageRequest> reqList) {
+        return append(sessionId, null, reqList).messages();
+    }
+
+    /**
+     * Append a batch of messages to a session.
+     * The session is validated under a share lock, so concurrent appends to it do not wait for each other, and
+     * referenced without loading it; messages are flushed as one JDBC batch (see hibernate.jdbc.batch_size).
+     * The session's updatedAt is not written here: the activity goes to the {@link SessionActivityTracker} on commit.
+     * Messages are numbered from the session's sequence counter in request order; as the counter stays locked until
+     * commit, seq order is commit order and a reader that has seen seq N never later finds a smaller one appear.
+     * With an idempotency key, a retry of a committed append returns the original messages without writing; of
+     * concurrent retries the key's primary key lets only one write, the others wait for it and replay.
+     * Reusing a key for a different batch is rejected.
+     * @param sessionId
+     * @param idempotencyKey client-supplied key, or null
+     * @param reqList
+     * @return
+     */
+    @Transactional
+    @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
+    public Appended append(UUID sessionId, String idempotencyKey, List<CreateMessageRequest> reqList) {
         if (reqList == null || reqList.isEmpty()) {
             throw new IllegalArgumentException("Message request list cannot be empty");
         }
@@ -53,52 +133,258 @@ public class ChatMessageService {
             }
         }
 
-        ChatSession session = sessionRepository.findByIdAndDeletedAtIsNull(sessionId)
-                .orElseThrow(() -> new ResourceNotFoundException("session.not.found"));
+        byte[] fingerprint = null;
+        if (idempotencyKey != null) {
+            IdempotencyKeyStore.validate(idempotencyKey);
+            fingerprint = IdempotencyKeyStore.fingerprint(reqList);
+            Optional<AppendKey> done = keyStore.find(sessionId, idempotencyKey);
+            if (done.isPresent()) {
+                return replay(ownedSession(sessionId), fingerprint, done.get());
+            }
+        }
 
-        List<ChatMessage> savedMessages = new ArrayList<>();
-        for (CreateMessageRequest r : reqList) {
-            ChatMessage message = getChatMessage(r, session);
-            message = messageRepository.save(message);
-            savedMessages.add(message);
-
-            // Update session's updatedAt if needed
-            if (!session.getUpdatedAt().equals(message.getCreatedAt())) {
-                session.setUpdatedAt(message.getCreatedAt());
-                sessionRepository.save(session);
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        existenceFilter.rejectKnownMissing(sessionId);
+        ChatSessionRepository.AppendTarget target = sessionRepository.lockForAppend(sessionId)
+                .orElseThrow(() -> sessionNotFound(sessionId));
+        if (!SecurityService.currentOwner().equals(target.getOwnerId())) {
+            throw new ResourceNotFoundException("session.not.found");
+        }
+        if (target.getArchived()) {
+            throw new SessionArchivedException("session.archived");
+        }
+        if (idempotencyKey != null && !keyStore.claim(sessionId, idempotencyKey, fingerprint)) {
+            // a concurrent retry committed first while this one waited for its key
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             }
+            return replay(ownedSession(sessionId), fingerprint, keyStore.find(sessionId, idempotencyKey).orElseThrow());
+        }
+        ChatSession session = sessionRepository.getReferenceById(sessionId);
 
-            log.info("Created message with ID: {} for session ID: {}", message.getId(), sessionId);
+        List<ChatMessage> messages = new ArrayList<>(reqList.size());
+        Map<String, String> chunks = new HashMap<>();
+        for (CreateMessageRequest r : reqList) {
+            RetrievedChunkStore.Dehydrated context = chunkStore.dehydrate(r.getRetrievedContext());
+            chunks.putAll(context.chunks());
+            messages.add(getChatMessage(r, session, context.json()));
+        }
+        chunkStore.save(chunks);
+        // numbered last: the counter row stays locked until commit, so appends to this session only queue for the insert
+        long seq = sequenceRepository.allocate(sessionId, messages.size()) - messages.size();
+        for (ChatMessage message : messages) {
+            message.setSeq(++seq);
+        }
+        List<ChatMessage> savedMessages = messageRepository.saveAll(messages);
+        messageRepository.flush();
+        statsRepository.addAppended(sessionId, seq - messages.size() + 1, seq, savedMessages.stream()
+                .map(ChatMessage::getCreatedAt).filter(Objects::nonNull).min(Comparator.naturalOrder()).orElse(Instant.EPOCH));
+        if (idempotencyKey != null) {
+            keyStore.complete(sessionId, idempotencyKey, fingerprint, savedMessages.stream().map(ChatMessage::getId).toList());
         }
+        cacheInvalidator.evictSessionMessages(sessionId);
+        activityTracker.recordAfterCommit(sessionId, Instant.now());
 
-        return savedMessages;
+        sample.stop(Timer.builder("chat.message.append")
+                .description("Latency of a message batch append")
+                .tag("batch", batchBucket(reqList.size()))
+                .register(meterRegistry));
+        log.info("Created {} messages for session ID: {}", savedMessages.size(), sessionId);
+
+        return new Appended(savedMessages, false);
     }
 
     /**
-     * List Stored Chat Messages
+     * The messages of a recorded append, from chat_message or, once the session is archived, its segment
+     */
+    private Appended replay(ChatSession session, byte[] fingerprint, AppendKey recorded) {
+        if (!MessageDigest.isEqual(recorded.requestHash(), fingerprint)) {
+            throw new IdempotencyKeyReusedException("idempotency.key.reused");
+        }
+        Map<UUID, ChatMessage> byId = new HashMap<>();
+        messageRepository.findAllById(recorded.messageIds()).forEach(m -> byId.put(m.getId(), m));
+        if (byId.size() < recorded.messageIds().size() && session.isArchived()) {
+            List<UUID> missing = recorded.messageIds().stream().filter(id -> !byId.containsKey(id)).toList();
+            archive.find(session, missing).forEach(m -> byId.put(m.getId(), m));
+        }
+        meterRegistry.counter("chat.message.append.replayed").increment();
+        log.info("Replayed {} messages for session ID: {}", recorded.messageIds().size(), session.getId());
+        return new Appended(recorded.messageIds().stream().map(byId::get).filter(Objects::nonNull).toList(), true);
+    }
+
+    /**
+     * List Stored Chat Messages as immutable {@link MessageView} records; archived sessions are served from their
+     * archive segment. A page with rows comes from a single query that also checks the session; only an empty page
+     * looks the session up, to tell an empty or archived session from a missing one. Another owner's session reads
+     * as missing; the caller is part of the cache key. The page total is the session's
+     * maintained message count, not a count query.
+     * Without a session row to read createdAt from, the partition bound comes from the session's UUIDv7 id.
+     * A sparse fieldset selects only its own columns; unselected fields of the views are {@code null}.
      * @param sessionId
+     * @param fields fields to select, see {@link MessageField}
      * @param pageable
      * @return
      */
     @Cacheable(
-            value = "chatMessages",
-            key = "#sessionId + '-' + #pageable.pageNumber + '-' + #pageable.pageSize + '-' + #pageable.sort.toString()",
-            unless = "#result.isEmpty()"
+            value = CacheNames.CHAT_MESSAGES,
+            key = "#sessionId + '-' + T(com.rag.chat.service.SecurityService).currentOwner() + '-' + #pageable.pageNumber + '-' + #pageable.pageSize + '-' + #pageable.sort.toString() + '-' + #fields",
+            condition = "T(com.rag.chat.datasource.ConsistencyToken).required() == null",
+            unless = "#result.isEmpty() or T(com.rag.chat.datasource.ConsistencyToken).replicaRead()"
     )
     @Transactional(readOnly = true)
     @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
-    public org.springframework.data.domain.Page<ChatMessage> list(UUID sessionId, org.springframework.data.domain.Pageable pageable) {
+    public Page<MessageView> list(UUID sessionId, Set<MessageField> fields, Pageable pageable) {
+        existenceFilter.rejectKnownMissing(sessionId);
+        Instant since = pruneFrom(UuidV7.timestamp(sessionId));
+        String ownerId = SecurityService.currentOwner();
+        List<MessageView> rows = fields.containsAll(EnumSet.allOf(MessageField.class))
+                ? messageRepository.findViews(sessionId, ownerId, since, pageable)
+                : sparseViewRepository.findMessageViews(sessionId, ownerId, since, fields, pageable);
+        Page<MessageView> page = PageableExecutionUtils.getPage(rows, pageable, () -> statsRepository.messageCount(sessionId));
+        if (page.hasContent()) {
+            return page;
+        }
+        ChatSession session = ownedSession(sessionId);
+        if (session.isArchived()) {
+            return archivedPage(session, pageable).map(m -> MessageView.of(m).select(fields));
+        }
+        return page;
+    }
+
+    /**
+     * Cursor-based listing in ascending seq order; no offset scan and no count query.
+     * @param sessionId
+     * @param cursor opaque cursor from a previous page, or null to start at one end
+     * @param direction where to start when no cursor is given (FORWARD = oldest, BACKWARD = newest)
+     * @param size
+     * @return
+     */
+    @Transactional(readOnly = true)
+    @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
+    public CursorPageResponse<ChatMessage> scroll(UUID sessionId, String cursor, ScrollDirection direction, int size) {
+        ChatSession session = ownedSession(sessionId);
+        Instant since = pruneFrom(session.getCreatedAt());
+        Pageable limit = PageRequest.ofSize(size + 1);
+        CursorCodec.SequenceCursor position = cursor == null || cursor.isBlank() ? null : CursorCodec.decodeSequence(cursor);
+        ScrollDirection fetchDirection = position == null ? direction : position.direction();
+
+        List<ChatMessage> rows;
+        if (session.isArchived()) {
+            rows = fetchDirection == ScrollDirection.FORWARD
+                    ? archive.after(session, position == null ? 0 : position.seq(), size + 1)
+                    : archive.before(session, position == null ? Long.MAX_VALUE : position.seq(), size + 1);
+        } else if (position == null) {
+            rows = direction == ScrollDirection.FORWARD
+                    ? messageRepository.findOldest(sessionId, since, limit)
+                    : messageRepository.findNewest(sessionId, since, limit);
+        } else {
+            rows = fetchDirection == ScrollDirection.FORWARD
+                    ? messageRepository.findAfter(sessionId, since, position.seq(), limit)
+                    : messageRepository.findBefore(sessionId, since, position.seq(), limit);
+        }
+
+        return CursorPageResponse.of(rows, size, fetchDirection, position != null,
+                (m, dir) -> CursorCodec.encode(dir, m.getSeq()));
+    }
+
+    /**
+     * Evaluate JSON sub-path projections (e.g. retrievedContext.chunks[*].id) in the database.
+     * @param messages
+     * @param expressions projection expressions; validated against {@link JsonProjection}
+     * @return projection JSON object per message id
+     */
+    @Transactional(readOnly = true)
+    @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
+    public Map<UUID, String> project(List<MessageView> messages, List<String> expressions) {
+        List<JsonProjection> projections = JsonProjection.parseAll(expressions);
+        if (projections.isEmpty() || messages.isEmpty()) {
+            return Map.of();
+        }
+        List<UUID> ids = messages.stream().map(MessageView::id).toList();
+        Map<UUID, String> result = new HashMap<>(projectionRepository.project(ids, projections));
+        if (result.size() < messages.size()) {
+            // archived messages are no longer in chat_message; evaluate their documents as parameters instead,
+            // with chunk references resolved here since those documents never pass resolve_chunk_refs
+            List<MessageView> archived = messages.stream().filter(m -> !result.containsKey(m.id())).toList();
+            Map<UUID, String> contexts = retrievedContexts(archived);
+            List<MessageView> documents = archived.stream()
+                    .map(m -> new MessageView(m.id(), m.sessionId(), m.seq(), m.role(), m.content(),
+                            contexts.get(m.id()), m.metadata(), m.createdAt()))
+                    .toList();
+            result.putAll(projectionRepository.projectDocuments(documents, projections));
+        }
+        return result;
+    }
+
+    /**
+     * Lower createdAt bound for a session's messages. A message cannot predate its session;
+     * the slack absorbs clock skew between application nodes.
+     */
+    public static Instant pruneFrom(Instant sessionCreatedAt) {
+        return sessionCreatedAt == null ? Instant.EPOCH : sessionCreatedAt.minus(PARTITION_PRUNING_SLACK);
+    }
+
+    /**
+     * Stored retrievedContext documents with chunk references resolved (one bulk lookup for cache misses).
+     * @param messages
+     * @return document per message id; messages without a retrievedContext are absent
+     */
+    public Map<UUID, String> retrievedContexts(List<MessageView> messages) {
+        List<String> hydrated = chunkStore.hydrate(messages.stream().map(MessageView::retrievedContext).toList());
+        Map<UUID, String> contexts = new HashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            if (hydrated.get(i) != null) {
+                contexts.put(messages.get(i).id(), hydrated.get(i));
+            }
+        }
+        return contexts;
+    }
+
+    /**
+     * One page of an archived transcript; only the page's messages are decoded, and the block header supplies the
+     * total when the page alone does not tell it
+     */
+    private Page<ChatMessage> archivedPage(ChatSession session, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            List<ChatMessage> messages = archive.read(session);
+            return new PageImpl<>(messages, pageable, messages.size());
+        }
+        List<ChatMessage> messages = archive.slice(session, pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(messages, pageable, () -> archive.count(session));
+    }
+
+    /**
+     * The caller's live session; another owner's session is not found either, but is not recorded as missing
+     */
+    private ChatSession ownedSession(UUID sessionId) {
+        existenceFilter.rejectKnownMissing(sessionId);
         ChatSession session = sessionRepository.findByIdAndDeletedAtIsNull(sessionId)
-                .orElseThrow(() -> new ResourceNotFoundException("session.not.found")); // changed here
-        return messageRepository.findBySessionOrderByCreatedAtAsc(session, pageable);
+                .orElseThrow(() -> sessionNotFound(sessionId));
+        if (!SecurityService.ownedByCaller(session)) {
+            throw new ResourceNotFoundException("session.not.found");
+        }
+        return session;
+    }
+
+    private ResourceNotFoundException sessionNotFound(UUID sessionId) {
+        existenceFilter.recordMissing(sessionId);
+        return new ResourceNotFoundException("session.not.found");
+    }
+
+    private static String batchBucket(int size) {
+        if (size <= 1) return "1";
+        if (size <= 10) return "2-10";
+        if (size <= 50) return "11-50";
+        return "51+";
     }
 
-    private ChatMessage getChatMessage(CreateMessageRequest req, ChatSession session) {
+    private ChatMessage getChatMessage(CreateMessageRequest req, ChatSession session, String retrievedContext) {
         ChatMessage message = new ChatMessage();
         message.setSession(session);
         message.setRole(req.getRole());
         message.setContent(req.getContent());
-        message.setRetrievedContext(serialize(req.getRetrievedContext(), "retrievedContext"));
+        message.setRetrievedContext(retrievedContext);
         message.setMetadata(serialize(req.getMetadata(), "metadata"));
         return message;
     }
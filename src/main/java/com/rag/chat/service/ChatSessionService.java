@@ -1,11 +1,25 @@
 package com.rag.chat.service;
 
 import com.rag.chat.aop.LogExecution;
+import com.rag.chat.cache.CacheNames;
+import com.rag.chat.cache.SessionCacheInvalidator;
+import com.rag.chat.cache.SessionExistenceFilter;
+import com.rag.chat.config.SessionPreviewProperties;
+import com.rag.chat.dto.request.BatchUpdateSessionsRequest;
 import com.rag.chat.dto.request.CreateSessionRequest;
 import com.rag.chat.dto.request.UpdateSessionRequest;
+import com.rag.chat.dto.response.CursorPageResponse;
 import com.rag.chat.entity.ChatSession;
+import com.rag.chat.enums.ScrollDirection;
+import com.rag.chat.enums.SessionField;
 import com.rag.chat.exception.ResourceNotFoundException;
 import com.rag.chat.repository.ChatSessionRepository;
+import com.rag.chat.repository.SessionBatchRepository;
+import com.rag.chat.repository.SessionStats;
+import com.rag.chat.repository.SessionStatsRepository;
+import com.rag.chat.repository.SessionView;
+import com.rag.chat.repository.SparseViewRepository;
+import com.rag.chat.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
@@ -13,12 +27,18 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -27,6 +47,12 @@ public class ChatSessionService {
 
     private final ChatSessionRepository repository;
     private final MessageSource messageSource;
+    private final SessionCacheInvalidator cacheInvalidator;
+    private final SparseViewRepository sparseViewRepository;
+    private final SessionExistenceFilter existenceFilter;
+    private final SessionStatsRepository statsRepository;
+    private final SessionPreviewProperties previewProperties;
+    private final SessionBatchRepository batchRepository;
 
     private String msg() {
         return messageSource.getMessage("session.default.title", null, "session.default.title", LocaleContextHolder.getLocale());
@@ -36,7 +62,7 @@ public class ChatSessionService {
      * Create a new chat session
      */
     @Transactional
-    @CacheEvict(value = "sessionPages", allEntries = true)
+    @CacheEvict(value = CacheNames.SESSION_PAGES, allEntries = true)
     @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
     public ChatSession create(CreateSessionRequest req) {
         SecurityService.sanitizeInput(req.getTitle());
@@ -45,37 +71,160 @@ public class ChatSessionService {
         session.setTitle(req.getTitle() != null
                 ? req.getTitle()
                 : msg() + " " + Instant.now());
+        session.setRetentionDays(req.getRetentionDays());
+        session.setOwnerId(SecurityService.currentOwner());
 
         return repository.save(session);
     }
 
     /**
-     * Get session by ID or throw ResourceNotFoundException
+     * Get the caller's session by ID or throw ResourceNotFoundException; ids known to be missing are rejected without
+     * a lookup. Another owner's session is not found either, but is not recorded as missing since it exists.
      */
     public ChatSession getOrThrow(UUID id) {
-        return repository.findByIdAndDeletedAtIsNull(id)
-                .orElseThrow(() -> new ResourceNotFoundException("session.not.found")); // changed here
+        existenceFilter.rejectKnownMissing(id);
+        ChatSession session = repository.findByIdAndDeletedAtIsNull(id)
+                .orElseThrow(() -> {
+                    existenceFilter.recordMissing(id);
+                    return new ResourceNotFoundException("session.not.found");
+                });
+        if (!SecurityService.ownedByCaller(session)) {
+            throw new ResourceNotFoundException("session.not.found");
+        }
+        return session;
     }
 
     /**
-     * List favorite sessions with pagination
+     * The caller's live sessions among the ids, in the given order; missing, deleted and other owners' sessions are
+     * skipped. Cached sessions come from the second-level cache and the rest from one query.
+     */
+    @Transactional(readOnly = true)
+    @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
+    public List<ChatSession> getAll(Collection<UUID> ids) {
+        List<UUID> candidates = ids.stream().distinct().filter(id -> !existenceFilter.isKnownMissing(id)).toList();
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        List<ChatSession> sessions = batchRepository.findLive(candidates);
+        if (sessions.size() < candidates.size()) {
+            Set<UUID> found = sessions.stream().map(ChatSession::getId).collect(Collectors.toSet());
+            candidates.stream().filter(id -> !found.contains(id)).forEach(existenceFilter::recordMissing);
+        }
+        // other owners' sessions exist, so they are left out here rather than recorded as missing
+        String ownerId = SecurityService.currentOwner();
+        return sessions.stream().filter(s -> ownerId.equals(s.getOwnerId())).toList();
+    }
+
+    /**
+     * Maintained message aggregates of the given sessions in one query, e.g. for a whole page; never cached, so the
+     * counts stay current while the sessions themselves come from cache
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, SessionStats> stats(Collection<UUID> ids) {
+        return statsRepository.find(ids);
+    }
+
+    /**
+     * {@link #stats(Collection)} with a preview of each session's newest message, cut to
+     * app.session-preview.max-chars; still one query for the whole page
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, SessionStats> statsWithLastMessage(Collection<UUID> ids) {
+        return statsRepository.findWithLastMessage(ids, previewProperties.maxChars());
+    }
+
+    /**
+     * List the owner's favorite sessions with pagination
      */
     @Cacheable(
-            value = "sessionPages",
-            key = "#pageable.pageNumber + '-' + #pageable.pageSize + '-' + #pageable.sort.toString()",
-            unless = "#result.isEmpty()"
+            value = CacheNames.SESSION_PAGES,
+            key = "{#ownerId, #pageable.pageNumber, #pageable.pageSize, #pageable.sort.toString()}",
+            condition = "T(com.rag.chat.datasource.ConsistencyToken).required() == null",
+            unless = "#result.isEmpty() or T(com.rag.chat.datasource.ConsistencyToken).replicaRead()"
     )
     @Transactional(readOnly = true)
     @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
-    public Page<ChatSession> list(Pageable pageable) {
-        return repository.findByFavoriteIsTrueAndDeletedAtIsNull(pageable);
+    public Page<ChatSession> list(String ownerId, Pageable pageable) {
+        return repository.findByOwnerIdAndFavoriteIsTrueAndDeletedAtIsNull(ownerId, pageable);
+    }
+
+    /**
+     * List the owner's favorite sessions selecting only the given fields; unselected fields of the views are {@code null}
+     */
+    @Cacheable(
+            value = CacheNames.SESSION_PAGES,
+            key = "{#ownerId, #pageable.pageNumber, #pageable.pageSize, #pageable.sort.toString(), #fields}",
+            condition = "T(com.rag.chat.datasource.ConsistencyToken).required() == null",
+            unless = "#result.isEmpty() or T(com.rag.chat.datasource.ConsistencyToken).replicaRead()"
+    )
+    @Transactional(readOnly = true)
+    @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
+    public Page<SessionView> list(String ownerId, Set<SessionField> fields, Pageable pageable) {
+        return sparseViewRepository.findFavoriteViews(ownerId, fields, pageable);
+    }
+
+    /**
+     * Cursor-based listing of the owner's favorite sessions by updatedAt desc; no offset scan and no count query.
+     * @param cursor opaque cursor from a previous page, or null to start at one end
+     * @param direction where to start when no cursor is given (FORWARD = most recent, BACKWARD = oldest)
+     */
+    @Transactional(readOnly = true)
+    @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
+    public CursorPageResponse<ChatSession> scroll(String ownerId, String cursor, ScrollDirection direction, int size) {
+        return seek(ownerId, true, cursor, direction, size);
+    }
+
+    /**
+     * Cursor-based listing of all the owner's sessions, favorite or not, most recently active first
+     * @see #scroll
+     */
+    @Transactional(readOnly = true)
+    @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
+    public CursorPageResponse<ChatSession> recent(String ownerId, String cursor, ScrollDirection direction, int size) {
+        return seek(ownerId, false, cursor, direction, size);
+    }
+
+    private CursorPageResponse<ChatSession> seek(String ownerId, boolean favoritesOnly, String cursor,
+                                                 ScrollDirection direction, int size) {
+        Pageable limit = PageRequest.ofSize(size + 1);
+
+        List<ChatSession> rows;
+        ScrollDirection fetchDirection;
+        if (cursor == null || cursor.isBlank()) {
+            fetchDirection = direction;
+            if (favoritesOnly) {
+                rows = direction == ScrollDirection.FORWARD
+                        ? repository.findFavoritesNewest(ownerId, limit)
+                        : repository.findFavoritesOldest(ownerId, limit);
+            } else {
+                rows = direction == ScrollDirection.FORWARD
+                        ? repository.findRecentNewest(ownerId, limit)
+                        : repository.findRecentOldest(ownerId, limit);
+            }
+        } else {
+            CursorCodec.Cursor position = CursorCodec.decode(cursor);
+            fetchDirection = position.direction();
+            if (favoritesOnly) {
+                rows = fetchDirection == ScrollDirection.FORWARD
+                        ? repository.findFavoritesAfter(ownerId, position.timestamp(), position.id(), limit)
+                        : repository.findFavoritesBefore(ownerId, position.timestamp(), position.id(), limit);
+            } else {
+                rows = fetchDirection == ScrollDirection.FORWARD
+                        ? repository.findRecentAfter(ownerId, position.timestamp(), position.id(), limit)
+                        : repository.findRecentBefore(ownerId, position.timestamp(), position.id(), limit);
+            }
+        }
+
+        boolean fromCursor = cursor != null && !cursor.isBlank();
+        return CursorPageResponse.of(rows, size, fetchDirection, fromCursor,
+                (s, dir) -> CursorCodec.encode(dir, s.getUpdatedAt(), s.getId()));
     }
 
     /**
      * Toggle favorite flag
      */
     @Transactional
-    @CacheEvict(value = "sessionPages", allEntries = true)
+    @CacheEvict(value = CacheNames.SESSION_PAGES, allEntries = true)
     @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
     public ChatSession toggleFavorite(UUID id) {
         ChatSession session = getOrThrow(id);
@@ -87,7 +236,7 @@ public class ChatSessionService {
      * Update session
      */
     @Transactional
-    @CacheEvict(value = "sessionPages", allEntries = true)
+    @CacheEvict(value = CacheNames.SESSION_PAGES, allEntries = true)
     @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
     public ChatSession update(UUID id, UpdateSessionRequest req) {
         ChatSession session = getOrThrow(id);
@@ -95,19 +244,53 @@ public class ChatSessionService {
 
         if (req.getTitle() != null) session.setTitle(req.getTitle());
         if (req.getFavorite() != null) session.setFavorite(req.getFavorite());
+        if (req.getRetentionDays() != null) session.setRetentionDays(req.getRetentionDays() > 0 ? req.getRetentionDays() : null);
 
         return repository.save(session);
     }
 
+    /**
+     * Applies the same update to many sessions in one statement, with one cache eviction pass
+     * @return ids of the caller's live sessions among the requested ones
+     */
+    @Transactional
+    @CacheEvict(value = CacheNames.SESSION_PAGES, allEntries = true)
+    @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
+    public List<UUID> updateAll(BatchUpdateSessionsRequest req) {
+        SecurityService.sanitizeInput(req.getTitle());
+
+        List<UUID> updated = batchRepository.update(Set.copyOf(req.getIds()), SecurityService.currentOwner(),
+                req.getTitle(), req.getFavorite(), req.getRetentionDays());
+        cacheInvalidator.evictSessions(updated);
+        return updated;
+    }
+
+    /**
+     * Soft deletes many sessions in one statement, with one cache eviction pass
+     * @return ids of the sessions deleted; missing, already deleted and other owners' ones are left out
+     */
+    @Transactional
+    @CacheEvict(value = CacheNames.SESSION_PAGES, allEntries = true)
+    @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
+    public List<UUID> deleteAll(Collection<UUID> ids) {
+        List<UUID> deleted = batchRepository.softDelete(Set.copyOf(ids), SecurityService.currentOwner(), Instant.now());
+        cacheInvalidator.evictSessions(deleted);
+        cacheInvalidator.evictSessionMessages(deleted);
+        existenceFilter.recordDeleted(deleted);
+        return deleted;
+    }
+
     /**
      * Soft delete session
      */
     @Transactional
-    @CacheEvict(value = "sessionPages", allEntries = true)
+    @CacheEvict(value = CacheNames.SESSION_PAGES, allEntries = true)
     @LogExecution(includeArgs = true, includeResult = false, warnThresholdMs = 500)
     public void delete(UUID id) {
         ChatSession session = getOrThrow(id);
         session.setDeletedAt(Instant.now());
         repository.save(session);
+        cacheInvalidator.evictSessionMessages(id);
+        existenceFilter.recordDeleted(id);
     }
 }
\ No newline at end of file
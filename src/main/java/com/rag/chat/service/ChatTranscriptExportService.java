@@ -0,0 +1,144 @@
+package com.rag.chat.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rag.chat.aop.LogExecution;
+import com.rag.chat.archive.SessionArchive;
+import com.rag.chat.cache.SessionExistenceFilter;
+import com.rag.chat.chunk.RetrievedChunkStore;
+import com.rag.chat.compression.MessageContentCodec;
+import com.rag.chat.entity.ChatSession;
+import com.rag.chat.exception.ResourceNotFoundException;
+import com.rag.chat.repository.ChatMessageExportRepository;
+import com.rag.chat.repository.ChatSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Streams whole transcripts as NDJSON straight from a JDBC cursor.
+ * No entities, pages or intermediate lists are built, so memory stays flat regardless of transcript length.
+ * Archived sessions are written from their archive block instead.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ChatTranscriptExportService {
+
+    private static final int FLUSH_EVERY_ROWS = 200;
+
+    private final ChatSessionRepository sessionRepository;
+    private final ChatMessageExportRepository exportRepository;
+    private final ObjectMapper objectMapper;
+    private final MessageContentCodec contentCodec;
+    private final RetrievedChunkStore chunkStore;
+    private final SessionArchive archive;
+    private final SessionExistenceFilter existenceFilter;
+
+    /**
+     * Fail fast (before the response is committed) when the session does not exist or is not the caller's
+     * @param sessionId
+     */
+    @Transactional(readOnly = true)
+    public void assertExportable(UUID sessionId) {
+        existenceFilter.rejectKnownMissing(sessionId);
+        ChatSession session = sessionRepository.findByIdAndDeletedAtIsNull(sessionId).orElseThrow(() -> {
+            existenceFilter.recordMissing(sessionId);
+            return new ResourceNotFoundException("session.not.found");
+        });
+        if (!SecurityService.ownedByCaller(session)) {
+            throw new ResourceNotFoundException("session.not.found");
+        }
+    }
+
+    /**
+     * Write one JSON object per message, newline separated, in transcript order
+     * @param sessionId
+     * @param out
+     * @return number of messages written
+     */
+    @Transactional(readOnly = true)
+    @LogExecution(includeArgs = false, includeResult = false, warnThresholdMs = 5000)
+    public long writeNdjson(UUID sessionId, OutputStream out) throws IOException {
+        long[] rows = {0};
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.setRootValueSeparator(null);
+            Optional<ChatSession> session = sessionRepository.findByIdAndDeletedAtIsNull(sessionId);
+            if (session.isPresent() && !SecurityService.ownedByCaller(session.get())) {
+                throw new ResourceNotFoundException("session.not.found");
+            }
+            if (session.isPresent() && session.get().isArchived()) {
+                archive.forEach(session.get(), m -> {
+                    try {
+                        writeMessage(gen, m.getId().toString(), sessionId.toString(), m.getSeq(), m.getRole().name(),
+                                m.getContent(), m.getRetrievedContext(), m.getMetadata(), m.getCreatedAt());
+                        if (++rows[0] % FLUSH_EVERY_ROWS == 0) {
+                            gen.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } else {
+                Instant since = session.map(s -> ChatMessageService.pruneFrom(s.getCreatedAt())).orElse(Instant.EPOCH);
+                exportRepository.streamBySession(sessionId, since, rs -> {
+                    try {
+                        writeRow(gen, rs);
+                        if (++rows[0] % FLUSH_EVERY_ROWS == 0) {
+                            gen.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            gen.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.info("Exported {} messages for session ID: {}", rows[0], sessionId);
+        return rows[0];
+    }
+
+    private void writeRow(JsonGenerator gen, ResultSet rs) throws IOException, SQLException {
+        OffsetDateTime createdAt = rs.getObject("created_at", OffsetDateTime.class);
+        writeMessage(gen, rs.getString("id"), rs.getString("session_id"), rs.getLong("seq"), rs.getString("role"),
+                contentCodec.decode(rs.getBytes("content")), rs.getString("retrieved_context"), rs.getString("metadata"),
+                createdAt != null ? createdAt.toInstant() : null);
+    }
+
+    private void writeMessage(JsonGenerator gen, String id, String sessionId, long seq, String role, String content,
+                              String retrievedContext, String metadata, Instant createdAt) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("id", id);
+        gen.writeStringField("sessionId", sessionId);
+        gen.writeNumberField("seq", seq);
+        gen.writeStringField("role", role);
+        gen.writeStringField("content", content);
+        writeRawJsonField(gen, "retrievedContext", chunkStore.hydrate(retrievedContext));
+        writeRawJsonField(gen, "metadata", metadata);
+        gen.writeStringField("createdAt", createdAt != null ? createdAt.toString() : null);
+        gen.writeEndObject();
+        gen.writeRaw('\n');
+    }
+
+    private static void writeRawJsonField(JsonGenerator gen, String name, String json) throws IOException {
+        if (json == null || json.isBlank()) {
+            return;
+        }
+        gen.writeFieldName(name);
+        gen.writeRawValue(json);
+    }
+}
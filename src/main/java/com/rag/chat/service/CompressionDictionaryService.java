@@ -0,0 +1,87 @@
+package com.rag.chat.service;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdException;
+import com.rag.chat.aop.LogExecution;
+import com.rag.chat.compression.CompressionDictionary;
+import com.rag.chat.compression.MessageContentCodec;
+import com.rag.chat.config.CompressionProperties;
+import com.rag.chat.dto.response.CompressionDictionaryResponse;
+import com.rag.chat.repository.CompressionDictionaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CompressionDictionaryService {
+
+    static final int MIN_SAMPLES = 20;
+
+    private final CompressionDictionaryRepository dictionaryRepository;
+    private final MessageContentCodec codec;
+    private final CompressionProperties properties;
+
+    /**
+     * Train a new dictionary on the most recent message contents and make it the active version.
+     * Previous versions are kept so content compressed with them stays readable.
+     * @return the stored dictionary version
+     */
+    @Transactional
+    @LogExecution(includeArgs = false, includeResult = true, warnThresholdMs = 10000)
+    public CompressionDictionaryResponse train() {
+        Instant since = Instant.now().minus(properties.trainingWindow());
+        List<byte[]> samples = dictionaryRepository.findRecentContent(since, properties.trainingSamples()).stream()
+                .map(codec::decode)
+                .map(text -> text.getBytes(StandardCharsets.UTF_8))
+                .toList();
+        long sampleBytes = samples.stream().mapToLong(s -> s.length).sum();
+        if (samples.size() < MIN_SAMPLES) {
+            throw new IllegalArgumentException("compression.samples.insufficient");
+        }
+
+        ZstdDictTrainer trainer = new ZstdDictTrainer((int) Math.min(sampleBytes, Integer.MAX_VALUE), properties.dictionaryBytes());
+        samples.forEach(trainer::addSample);
+        byte[] dictionary;
+        try {
+            dictionary = trainer.trainSamples();
+        } catch (ZstdException e) {
+            log.warn("Dictionary training failed on {} samples ({} bytes): {}", samples.size(), sampleBytes, e.getMessage());
+            throw new IllegalArgumentException("compression.samples.insufficient");
+        }
+
+        int id = dictionaryRepository.insert(dictionary, samples.size(), sampleBytes);
+        activateAfterCommit(new CompressionDictionary(id, dictionary));
+        return CompressionDictionaryResponse.builder()
+                .id(id)
+                .dictionaryBytes(dictionary.length)
+                .sampleCount(samples.size())
+                .sampleBytes(sampleBytes)
+                .build();
+    }
+
+    /**
+     * Frames written with a dictionary must only appear once its row is visible to every other transaction
+     * (other instances, replicas); a rolled back training leaves the active dictionary as it was.
+     */
+    private void activateAfterCommit(CompressionDictionary dictionary) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    codec.activate(dictionary);
+                }
+            });
+        } else {
+            codec.activate(dictionary);
+        }
+    }
+}
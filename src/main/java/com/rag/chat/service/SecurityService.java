@@ -1,7 +1,10 @@
 package com.rag.chat.service;
 
 import com.rag.chat.aop.LogExecution;
+import com.rag.chat.entity.ChatSession;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -28,4 +31,19 @@ public class SecurityService {
         }
         return sanitized;
     }
-}
\ No newline at end of file
+
+    /**
+     * Owner id of the current caller: the JWT subject the request was authenticated with, '' when there is none
+     */
+    public static String currentOwner() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getName() != null ? authentication.getName() : "";
+    }
+
+    /**
+     * Whether the session belongs to the current caller; callers answer other owners' sessions as not found
+     */
+    public static boolean ownedByCaller(ChatSession session) {
+        return currentOwner().equals(session.getOwnerId());
+    }
+}
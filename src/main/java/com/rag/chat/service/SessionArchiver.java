@@ -0,0 +1,132 @@
+package com.rag.chat.service;
+
+import com.rag.chat.activity.SessionActivityTracker;
+import com.rag.chat.aop.LogExecution;
+import com.rag.chat.archive.SessionArchive;
+import com.rag.chat.cache.SessionCacheInvalidator;
+import com.rag.chat.config.ArchiveProperties;
+import com.rag.chat.entity.ChatMessage;
+import com.rag.chat.entity.ChatSession;
+import com.rag.chat.repository.ChatMessageRepository;
+import com.rag.chat.repository.ChatSessionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Seals sessions that have been inactive for app.archive.inactive-after and moves their messages
+ * from chat_message into the {@link SessionArchive}.
+ * Each session is archived in its own transaction: the block is forced to disk before the session is marked
+ * archived and its rows deleted, so a failure leaves at worst an unreferenced block in a segment.
+ * A session advisory lock keeps a single instance appending to the shared segment files.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.archive", name = "enabled", havingValue = "true")
+public class SessionArchiver {
+
+    static final long ADVISORY_LOCK_KEY = 0x63686174_61726368L; // "chatarch"
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChatSessionRepository sessionRepository;
+    private final ChatMessageRepository messageRepository;
+    private final SessionArchive archive;
+    private final SessionCacheInvalidator cacheInvalidator;
+    private final SessionActivityTracker activityTracker;
+    private final ArchiveProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock = Clock.systemUTC();
+
+    /**
+     * Archive up to app.archive.batch-size inactive sessions
+     * @return number of sessions archived by this run
+     */
+    @Scheduled(cron = "${app.archive.cron:0 45 3 * * *}", zone = "UTC")
+    @LogExecution(includeArgs = false, includeResult = true, warnThresholdMs = 60000)
+    public int archiveInactive() {
+        Integer archived = jdbcTemplate.execute((ConnectionCallback<Integer>) this::archiveInactive);
+        return archived != null ? archived : 0;
+    }
+
+    private int archiveInactive(Connection con) throws SQLException {
+        con.setAutoCommit(true);
+        try (Statement st = con.createStatement()) {
+            if (!tryLock(st)) {
+                log.info("Session archival already running elsewhere; skipping");
+                return 0;
+            }
+            try {
+                activityTracker.flush();
+                Instant cutoff = clock.instant().minus(properties.inactiveAfter());
+                List<UUID> candidates = sessionRepository.findArchivalCandidates(cutoff, PageRequest.ofSize(properties.batchSize()));
+                int archived = 0;
+                for (UUID sessionId : candidates) {
+                    try {
+                        if (Boolean.TRUE.equals(transactionTemplate.execute(status -> archive(sessionId, cutoff)))) {
+                            archived++;
+                        }
+                    } catch (RuntimeException e) {
+                        log.warn("Failed to archive session {}: {}", sessionId, e.getMessage());
+                        meterRegistry.counter("chat.archive.sessions", "outcome", "failed").increment();
+                    }
+                }
+                log.info("Archived {} of {} inactive sessions (idle since before {})", archived, candidates.size(), cutoff);
+                return archived;
+            } finally {
+                st.execute("SELECT pg_advisory_unlock(" + ADVISORY_LOCK_KEY + ")");
+            }
+        }
+    }
+
+    /**
+     * Must run inside a transaction. Returns false when the session became active (or went away) since it was listed,
+     * including activity the tracker has not written back yet.
+     */
+    boolean archive(UUID sessionId, Instant cutoff) {
+        Optional<ChatSession> locked = sessionRepository.lockArchivable(sessionId, cutoff);
+        if (locked.isEmpty() || activityTracker.isPending(sessionId)) {
+            return false;
+        }
+        ChatSession session = locked.get();
+        Instant since = ChatMessageService.pruneFrom(session.getCreatedAt());
+        List<ChatMessage> messages = messageRepository.findOldest(sessionId, since, Pageable.unpaged());
+
+        int segment = archive.append(sessionId, messages);
+        session.markArchived(segment, clock.instant());
+        int deleted = messageRepository.deleteBySession(sessionId, since);
+        if (deleted != messages.size()) {
+            throw new IllegalStateException("Session " + sessionId + " changed while archiving: read "
+                    + messages.size() + " messages, deleted " + deleted);
+        }
+        cacheInvalidator.evictSessionMessages(sessionId);
+        meterRegistry.counter("chat.archive.sessions", "outcome", "archived").increment();
+        meterRegistry.counter("chat.archive.messages").increment(messages.size());
+        return true;
+    }
+
+    private static boolean tryLock(Statement st) throws SQLException {
+        try (ResultSet rs = st.executeQuery("SELECT pg_try_advisory_lock(" + ADVISORY_LOCK_KEY + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+}
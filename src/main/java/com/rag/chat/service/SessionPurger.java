@@ -0,0 +1,307 @@
+package com.rag.chat.service;
+
+import com.rag.chat.activity.SessionActivityTracker;
+import com.rag.chat.aop.LogExecution;
+import com.rag.chat.archive.SessionArchive;
+import com.rag.chat.cache.SessionCacheInvalidator;
+import com.rag.chat.config.IdempotencyProperties;
+import com.rag.chat.config.PurgeProperties;
+import com.rag.chat.repository.MessageAppendKeyRepository;
+import com.rag.chat.repository.SessionPurgeRepository;
+import com.rag.chat.repository.SessionPurgeRepository.PurgeCandidate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hard-deletes soft-deleted sessions (and their messages) once app.purge.grace-period has passed, soft-deletes
+ * sessions whose per-session retention ran out and deletes message idempotency keys older than
+ * app.idempotency.retention. All work happens in small auto-committed batches walked by keyset;
+ * a {@link Throttle} adapts the batch size and pause to how long batches take, so the job backs off while the
+ * database is busy. A session advisory lock keeps one instance purging at a time. Archived sessions are erased from
+ * their segment before their row is deleted; that needs the archival lock too, and while archival holds it they are
+ * left for the next run rather than reported as purged with their messages still on disk.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "app.purge", name = "enabled", havingValue = "true")
+public class SessionPurger {
+
+    static final long ADVISORY_LOCK_KEY = 0x63686174_70757267L; // "chatpurg"
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionPurgeRepository purgeRepository;
+    private final SessionCacheInvalidator cacheInvalidator;
+    private final SessionActivityTracker activityTracker;
+    private final SessionArchive archive;
+    private final PurgeProperties properties;
+    private final MessageAppendKeyRepository appendKeyRepository;
+    private final IdempotencyProperties idempotencyProperties;
+    private final Clock clock = Clock.systemUTC();
+
+    private final Counter expiredSessions;
+    private final Counter purgedSessions;
+    private final Counter purgedMessages;
+    private final Counter expiredAppendKeys;
+    private final Timer batchTimer;
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicInteger currentBatchSize = new AtomicInteger();
+
+    public SessionPurger(JdbcTemplate jdbcTemplate, SessionPurgeRepository purgeRepository,
+                         SessionCacheInvalidator cacheInvalidator, SessionActivityTracker activityTracker,
+                         SessionArchive archive, PurgeProperties properties,
+                         MessageAppendKeyRepository appendKeyRepository, IdempotencyProperties idempotencyProperties,
+                         MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.purgeRepository = purgeRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.activityTracker = activityTracker;
+        this.archive = archive;
+        this.properties = properties;
+        this.appendKeyRepository = appendKeyRepository;
+        this.idempotencyProperties = idempotencyProperties;
+        this.expiredSessions = meterRegistry.counter("chat.purge.sessions.expired");
+        this.purgedSessions = meterRegistry.counter("chat.purge.sessions");
+        this.purgedMessages = meterRegistry.counter("chat.purge.messages");
+        this.expiredAppendKeys = meterRegistry.counter("chat.purge.idempotency.keys");
+        this.batchTimer = Timer.builder("chat.purge.batch")
+                .description("Latency of one purge batch")
+                .register(meterRegistry);
+        Gauge.builder("chat.purge.backlog", backlog, AtomicLong::get)
+                .description("Soft-deleted sessions past the grace period still waiting to be purged")
+                .register(meterRegistry);
+        Gauge.builder("chat.purge.batch.size", currentBatchSize, AtomicInteger::get)
+                .description("Current throttled purge batch size")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Outcome of one run
+     * @param expired sessions soft-deleted because their retention ran out
+     * @param sessions sessions hard-deleted
+     * @param messages messages hard-deleted
+     * @param complete false when the run stopped at app.purge.max-run-duration with work left, or archived sessions
+     *                 were deferred because archival was running
+     */
+    public record Result(int expired, int sessions, long messages, boolean complete) {
+    }
+
+    @Scheduled(cron = "${app.purge.cron:0 30 * * * *}", zone = "UTC")
+    @LogExecution(includeArgs = false, includeResult = true, warnThresholdMs = 60000)
+    public Result purge() {
+        return jdbcTemplate.execute((ConnectionCallback<Result>) con -> {
+            con.setAutoCommit(true);
+            try (Statement st = con.createStatement()) {
+                if (!tryLock(st, ADVISORY_LOCK_KEY)) {
+                    log.info("Session purge already running elsewhere; skipping");
+                    return new Result(0, 0, 0, true);
+                }
+                boolean archiveLocked = false;
+                try {
+                    archiveLocked = tryLock(st, SessionArchiver.ADVISORY_LOCK_KEY);
+                    return run(archiveLocked);
+                } finally {
+                    if (archiveLocked) {
+                        st.execute("SELECT pg_advisory_unlock(" + SessionArchiver.ADVISORY_LOCK_KEY + ")");
+                    }
+                    st.execute("SELECT pg_advisory_unlock(" + ADVISORY_LOCK_KEY + ")");
+                }
+            }
+        });
+    }
+
+    private Result run(boolean archiveLocked) {
+        Instant started = clock.instant();
+        Instant deadline = started.plus(properties.maxRunDuration());
+        Instant cutoff = started.minus(properties.gracePeriod());
+        Throttle throttle = new Throttle(properties);
+        currentBatchSize.set(throttle.batchSize());
+        // retention runs on updatedAt; write back recent appends first so they count as activity
+        activityTracker.flush();
+
+        int expired = 0;
+        while (clock.instant().isBefore(deadline)) {
+            List<UUID> ids = timed(throttle, () -> purgeRepository.expireRetention(clock.instant(), throttle.batchSize()));
+            cacheInvalidator.evictSessionMessages(ids);
+            cacheInvalidator.evictSessions(ids);
+            expired += ids.size();
+            expiredSessions.increment(ids.size());
+            if (ids.size() < throttle.lastRequested()) {
+                break;
+            }
+        }
+        if (expired > 0) {
+            cacheInvalidator.evictSessionPages();
+        }
+
+        Instant keyCutoff = started.minus(idempotencyProperties.retention());
+        long expiredKeys = 0;
+        while (clock.instant().isBefore(deadline)) {
+            List<Instant> keys = timed(throttle, () -> appendKeyRepository.deleteExpired(keyCutoff, throttle.batchSize()));
+            expiredKeys += keys.size();
+            expiredAppendKeys.increment(keys.size());
+            if (keys.size() < throttle.lastRequested()) {
+                break;
+            }
+        }
+
+        backlog.set(purgeRepository.countPurgeable(cutoff));
+        long[] purged = {0, 0}; // sessions, messages
+        PurgeCandidate position = PurgeCandidate.START;
+        boolean complete = false;
+        int deferred = 0;
+        scan:
+        while (clock.instant().isBefore(deadline)) {
+            List<PurgeCandidate> page = purgeRepository.findPurgeable(cutoff, position, throttle.batchSize());
+            if (page.isEmpty()) {
+                complete = true;
+                break;
+            }
+            for (PurgeCandidate candidate : page) {
+                if (candidate.archiveSegment() != null && !archiveLocked) {
+                    deferred++;
+                } else if (!purgeSession(candidate, cutoff, deadline, throttle, purged)) {
+                    break scan;
+                }
+                position = candidate;
+            }
+        }
+        log.info("Purge run: expired {} sessions and {} idempotency keys, purged {} sessions and {} messages{}{}",
+                expired, expiredKeys, purged[0], purged[1], complete ? "" : " (stopped at the run budget)",
+                deferred > 0 ? "; " + deferred + " archived sessions deferred while archival runs" : "");
+        return new Result(expired, (int) purged[0], purged[1], complete && deferred == 0);
+    }
+
+    /**
+     * Deletes a session's messages batch by batch (keyset on createdAt), erases its archived block if it has one,
+     * then deletes the session row.
+     * @param purged running totals of sessions and messages deleted
+     * @return false when the run budget ran out before the session was finished
+     */
+    private boolean purgeSession(PurgeCandidate candidate, Instant cutoff, Instant deadline, Throttle throttle, long[] purged) {
+        Instant since = ChatMessageService.pruneFrom(candidate.createdAt());
+        while (true) {
+            if (!clock.instant().isBefore(deadline)) {
+                return false;
+            }
+            Instant from = since;
+            List<Instant> batch = timed(throttle, () -> purgeRepository.deleteMessages(candidate.id(), from, throttle.batchSize()));
+            purged[1] += batch.size();
+            purgedMessages.increment(batch.size());
+            if (batch.size() < throttle.lastRequested()) {
+                break;
+            }
+            since = Collections.max(batch);
+        }
+        if (candidate.archiveSegment() != null) {
+            try {
+                archive.erase(candidate.archiveSegment(), candidate.id());
+            } catch (UncheckedIOException e) {
+                // the row stays, so the next run retries; the session is not reported as purged
+                log.warn("Could not erase archived session {}: {}", candidate.id(), e.getMessage());
+                return true;
+            }
+        }
+        if (purgeRepository.deleteSession(candidate.id(), cutoff) == 1) {
+            cacheInvalidator.evictSessions(List.of(candidate.id()));
+            purged[0]++;
+            purgedSessions.increment();
+            backlog.updateAndGet(n -> Math.max(0, n - 1));
+        }
+        return true;
+    }
+
+    private <T extends List<?>> T timed(Throttle throttle, Supplier<T> batch) {
+        throttle.requesting();
+        long start = System.nanoTime();
+        T rows = batchTimer.record(batch);
+        Duration wait = throttle.record(Duration.ofNanos(System.nanoTime() - start));
+        currentBatchSize.set(throttle.batchSize());
+        sleep(wait);
+        return rows;
+    }
+
+    private static void sleep(Duration wait) {
+        if (wait.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(wait.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Session purge interrupted", e);
+        }
+    }
+
+    private static boolean tryLock(Statement st, long key) throws SQLException {
+        try (ResultSet rs = st.executeQuery("SELECT pg_try_advisory_lock(" + key + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    /**
+     * Additive-increase / multiplicative-decrease batch sizing. A batch slower than app.purge.max-batch-duration
+     * halves the next batch (down to min-batch-size) and is followed by a pause at least as long as the batch took,
+     * capping the job at roughly half of one connection; fast batches grow the size back by a tenth of the maximum.
+     */
+    public static final class Throttle {
+
+        private final PurgeProperties properties;
+        private int batchSize;
+        private int lastRequested;
+
+        public Throttle(PurgeProperties properties) {
+            this.properties = properties;
+            this.batchSize = properties.batchSize();
+        }
+
+        public int batchSize() {
+            return batchSize;
+        }
+
+        /**
+         * The batch size handed to the statement that is about to run
+         */
+        public int lastRequested() {
+            return lastRequested;
+        }
+
+        void requesting() {
+            lastRequested = batchSize;
+        }
+
+        /**
+         * @param elapsed how long the last batch took
+         * @return how long to wait before the next batch
+         */
+        public Duration record(Duration elapsed) {
+            if (elapsed.compareTo(properties.maxBatchDuration()) > 0) {
+                batchSize = Math.max(properties.minBatchSize(), batchSize / 2);
+                return elapsed.compareTo(properties.pause()) > 0 ? elapsed : properties.pause();
+            }
+            batchSize = Math.min(properties.batchSize(), batchSize + Math.max(1, properties.batchSize() / 10));
+            return properties.pause();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.rag.chat.util;
+
+import com.rag.chat.enums.ScrollDirection;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Encodes keyset positions (timestamp + id tiebreaker, or a sequence number) into opaque, URL-safe cursors.
+ * The scroll direction travels inside the cursor so clients only echo it back.
+ */
+public final class CursorCodec {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private CursorCodec() {
+    }
+
+    public record Cursor(ScrollDirection direction, Instant timestamp, UUID id) {
+    }
+
+    public record SequenceCursor(ScrollDirection direction, long seq) {
+    }
+
+    public static String encode(ScrollDirection direction, Instant timestamp, UUID id) {
+        String raw = direction.name().charAt(0) + "." + timestamp.getEpochSecond() + "." + timestamp.getNano() + "." + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String encode(ScrollDirection direction, long seq) {
+        String raw = direction.name().charAt(0) + "." + seq;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor previously produced by {@link #encode(ScrollDirection, Instant, UUID)}.
+     * @throws IllegalArgumentException with key cursor.invalid when the cursor is malformed
+     */
+    public static Cursor decode(String cursor) {
+        try {
+            String[] parts = new String(DECODER.decode(cursor), StandardCharsets.UTF_8).split("\\.");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("cursor.invalid");
+            }
+            ScrollDirection direction = direction(parts[0]);
+            Instant timestamp = Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            return new Cursor(direction, timestamp, UUID.fromString(parts[3]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("cursor.invalid", e);
+        }
+    }
+
+    /**
+     * Decode a cursor previously produced by {@link #encode(ScrollDirection, long)}.
+     * @throws IllegalArgumentException with key cursor.invalid when the cursor is malformed
+     */
+    public static SequenceCursor decodeSequence(String cursor) {
+        try {
+            String[] parts = new String(DECODER.decode(cursor), StandardCharsets.UTF_8).split("\\.");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("cursor.invalid");
+            }
+            long seq = Long.parseLong(parts[1]);
+            if (seq < 0) {
+                throw new IllegalArgumentException("cursor.invalid");
+            }
+            return new SequenceCursor(direction(parts[0]), seq);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("cursor.invalid", e);
+        }
+    }
+
+    private static ScrollDirection direction(String code) {
+        return switch (code) {
+            case "F" -> ScrollDirection.FORWARD;
+            case "B" -> ScrollDirection.BACKWARD;
+            default -> throw new IllegalArgumentException("cursor.invalid");
+        };
+    }
+}
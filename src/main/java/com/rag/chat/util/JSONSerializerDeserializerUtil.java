@@ -1,7 +1,10 @@
 package com.rag.chat.util;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
@@ -12,11 +15,18 @@ import java.util.HexFormat;
 @Slf4j
 public class JSONSerializerDeserializerUtil {
 
+    /**
+     * Shared codec; ObjectMapper is thread-safe once configured and costly to build per call.
+     */
+    public static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
     public static JsonNode deserialize(String json) {
-        ObjectMapper objectMapper = new ObjectMapper();
         if (json == null || json.isBlank()) return null;
         try {
-            return objectMapper.readTree(json);
+            return MAPPER.readTree(json);
         } catch (IOException e) {
             String digest = sha256Short(json);
             log.debug("Failed to deserialize JSON (sha256_16={}): {}", digest, e.getMessage());
@@ -25,16 +35,23 @@ public class JSONSerializerDeserializerUtil {
     }
 
     public static String serialize(Object obj, String fieldName) {
-        ObjectMapper objectMapper = new ObjectMapper();
         if (obj == null) return null;
         try {
-            return objectMapper.writeValueAsString(obj);
+            return MAPPER.writeValueAsString(obj);
         } catch (Exception e) {
             log.warn("Failed to serialize {} field: {}", fieldName, e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Stored JSON for verbatim output (@JsonRawValue). Only values written through
+     * {@link #serialize(Object, String)} reach the database, so they are valid JSON already.
+     */
+    public static String raw(String json) {
+        return json == null || json.isBlank() ? null : json;
+    }
+
     private static String sha256Short(String input) {
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
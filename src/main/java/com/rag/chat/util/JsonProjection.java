@@ -0,0 +1,61 @@
+package com.rag.chat.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A client-supplied sub-path of a stored JSON column, e.g. {@code retrievedContext.chunks[*].id}.
+ * Only a safe subset of SQL/JSON path is accepted (member names, {@code [*]} and {@code [n]}),
+ * and the column is resolved from a fixed whitelist, so neither ever reaches SQL unchecked.
+ */
+public record JsonProjection(String expression, String column, String jsonPath) {
+
+    public static final int MAX_PROJECTIONS = 10;
+
+    private static final Pattern EXPRESSION =
+            Pattern.compile("^(retrievedContext|metadata)((?:\\.[A-Za-z_][A-Za-z0-9_-]{0,63}|\\[\\*]|\\[\\d{1,4}])+)$");
+    private static final Pattern SEGMENT =
+            Pattern.compile("\\.([A-Za-z_][A-Za-z0-9_-]*)|\\[(\\*|\\d+)]");
+
+    /**
+     * @throws IllegalArgumentException with key projection.invalid when the expression is not supported
+     */
+    public static JsonProjection parse(String expression) {
+        Matcher m = expression == null ? null : EXPRESSION.matcher(expression.strip());
+        if (m == null || !m.matches()) {
+            throw new IllegalArgumentException("projection.invalid");
+        }
+        String column = m.group(1).equals("retrievedContext") ? "retrieved_context" : "metadata";
+        StringBuilder path = new StringBuilder("$");
+        Matcher segment = SEGMENT.matcher(m.group(2));
+        while (segment.find()) {
+            if (segment.group(1) != null) {
+                path.append(".\"").append(segment.group(1)).append('"');
+            } else {
+                path.append('[').append(segment.group(2)).append(']');
+            }
+        }
+        return new JsonProjection(expression.strip(), column, path.toString());
+    }
+
+    /**
+     * Parse and de-duplicate a list of expressions; {@code null} or empty yields an empty list.
+     */
+    public static List<JsonProjection> parseAll(List<String> expressions) {
+        if (expressions == null || expressions.isEmpty()) {
+            return List.of();
+        }
+        LinkedHashSet<String> unique = new LinkedHashSet<>(expressions);
+        if (unique.size() > MAX_PROJECTIONS) {
+            throw new IllegalArgumentException("projection.invalid");
+        }
+        List<JsonProjection> projections = new ArrayList<>(unique.size());
+        for (String expression : unique) {
+            projections.add(parse(expression));
+        }
+        return projections;
+    }
+}
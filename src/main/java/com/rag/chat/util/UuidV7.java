@@ -0,0 +1,49 @@
+package com.rag.chat.util;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RFC 9562 version 7 UUIDs: 48-bit Unix millisecond timestamp, then a 12-bit counter (rand_a)
+ * and 62 random bits. Ids from this JVM are strictly increasing, so B-tree inserts land on the
+ * right-most leaf instead of random pages.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    /** Last issued (timestamp << 12 | counter). */
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID generate() {
+        long next = LAST.updateAndGet(last -> {
+            long candidate = System.currentTimeMillis() << COUNTER_BITS;
+            // Same millisecond (or clock stepped back): keep the timestamp and bump the counter;
+            // counter overflow carries into the timestamp, which stays monotonic.
+            return candidate > last ? candidate : last + 1;
+        });
+        long millis = next >>> COUNTER_BITS;
+        long counter = next & COUNTER_MASK;
+
+        long msb = (millis << 16) | (0x7L << 12) | counter;
+        long lsb = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * @return the creation instant embedded in a version 7 id, or null for any other version
+     */
+    public static Instant timestamp(UUID id) {
+        if (id == null || id.version() != 7) {
+            return null;
+        }
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    }
+}
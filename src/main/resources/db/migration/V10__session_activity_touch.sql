@@ -0,0 +1,23 @@
+-- Session activity (the last append) is written back in coalesced batches that only move updated_at forward.
+-- Such an activity-only touch keeps the timestamp it was given and leaves version alone, so it never fails the
+-- optimistic lock of a concurrent rename or favorite toggle. Any other change still stamps NOW() and bumps version.
+CREATE OR REPLACE FUNCTION update_chat_session_updated_at_column()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.updated_at > OLD.updated_at
+       AND to_jsonb(NEW) - 'updated_at' - 'version' = to_jsonb(OLD) - 'updated_at' - 'version' THEN
+        NEW.version = OLD.version;
+        RETURN NEW;
+    END IF;
+    NEW.updated_at = NOW();
+    NEW.version = OLD.version + 1;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER update_chat_session_updated_at ON chat_session;
+
+CREATE TRIGGER update_chat_session_updated_at
+    BEFORE UPDATE ON chat_session
+    FOR EACH ROW
+    EXECUTE FUNCTION update_chat_session_updated_at_column();
@@ -0,0 +1,31 @@
+-- Per-session message sequence: seq numbers a session's messages 1, 2, 3, ... in append order and is the
+-- transcript order for listings, cursors and exports (createdAt ties within a batch).
+-- session_message_seq holds the last number handed out; an append bumps it inside its own transaction, so numbers
+-- have no gaps and a higher seq is never visible before a lower one of the same session.
+CREATE TABLE session_message_seq (
+    session_id UUID PRIMARY KEY,
+    last_seq BIGINT NOT NULL CHECK (last_seq > 0),
+    CONSTRAINT fk_session_message_seq_session FOREIGN KEY (session_id) REFERENCES chat_session(id) ON DELETE CASCADE
+);
+
+ALTER TABLE chat_message ADD COLUMN seq BIGINT;
+
+-- Number existing messages in their previous (createdAt, id) order. The backfill is not a content change,
+-- so it must not stamp updated_at or bump version.
+ALTER TABLE chat_message DISABLE TRIGGER update_chat_message_updated_at;
+
+UPDATE chat_message m SET seq = n.seq
+FROM (SELECT id, created_at, row_number() OVER (PARTITION BY session_id ORDER BY created_at, id) AS seq
+      FROM chat_message) n
+WHERE m.id = n.id AND m.created_at = n.created_at;
+
+ALTER TABLE chat_message ENABLE TRIGGER update_chat_message_updated_at;
+
+ALTER TABLE chat_message ALTER COLUMN seq SET NOT NULL;
+
+INSERT INTO session_message_seq (session_id, last_seq)
+SELECT session_id, max(seq) FROM chat_message GROUP BY session_id;
+
+-- Ordering, cursors and "since seq N" are seeks on this index. Not unique: on a partitioned chat_message a
+-- unique index would have to include created_at; the counter is what keeps seq unique.
+CREATE INDEX idx_chat_message_session_seq ON chat_message (session_id, seq);
@@ -0,0 +1,35 @@
+-- Per-session message aggregates, kept next to the sequence counter: an append already locks and updates that row,
+-- so maintaining them costs no extra row lock, and chat_session (cached, and touched by the activity write-back)
+-- is not rewritten per append. Appends add to them, expiring a chat_message partition subtracts its rows, and
+-- purging a session drops its row with the session.
+ALTER TABLE session_message_seq RENAME TO session_message_stats;
+ALTER TABLE session_message_stats RENAME CONSTRAINT session_message_seq_pkey TO session_message_stats_pkey;
+ALTER TABLE session_message_stats RENAME CONSTRAINT session_message_seq_last_seq_check TO session_message_stats_last_seq_check;
+ALTER TABLE session_message_stats RENAME CONSTRAINT fk_session_message_seq_session TO fk_session_message_stats_session;
+
+-- payload_bytes is NULL (unknown) for sessions archived before this migration: their messages are only in segments
+ALTER TABLE session_message_stats
+    ADD COLUMN message_count BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN last_message_at TIMESTAMPTZ,
+    ADD COLUMN payload_bytes BIGINT DEFAULT 0;
+
+-- Stored size of a message: content as stored (compressed when large) plus its JSON documents
+CREATE FUNCTION message_payload_bytes(content BYTEA, retrieved_context JSONB, metadata JSONB)
+RETURNS BIGINT AS $$
+    SELECT octet_length(content)::bigint
+        + coalesce(octet_length(retrieved_context::text), 0)
+        + coalesce(octet_length(metadata::text), 0)
+$$ LANGUAGE sql IMMUTABLE;
+
+UPDATE session_message_stats s
+SET message_count = a.message_count, last_message_at = a.last_message_at, payload_bytes = a.payload_bytes
+FROM (SELECT session_id, count(*) AS message_count, max(created_at) AS last_message_at,
+             sum(message_payload_bytes(content, retrieved_context, metadata)) AS payload_bytes
+      FROM chat_message GROUP BY session_id) a
+WHERE s.session_id = a.session_id;
+
+-- Archived sessions have no chat_message rows; every message they were given is in their segment
+UPDATE session_message_stats s
+SET message_count = s.last_seq, payload_bytes = NULL
+FROM chat_session c
+WHERE c.id = s.session_id AND c.archived_at IS NOT NULL;
@@ -0,0 +1,15 @@
+-- Session owner: the JWT subject of the caller that created the session. Listings only cover the caller's own
+-- sessions. '' is the owner of callers without a subject, and of every session created before this migration.
+-- The constant default makes this a catalog-only change, without rewriting the table.
+ALTER TABLE chat_session
+    ADD COLUMN owner_id VARCHAR(255) NOT NULL DEFAULT '';
+
+-- Favorites of one owner by activity (page listing, scroll and its count); id is the keyset tiebreaker
+CREATE INDEX idx_chat_session_owner_favorite
+    ON chat_session (owner_id, is_favorite, updated_at, id)
+    WHERE deleted_at IS NULL;
+
+-- Recent sessions of one owner by activity, favorite or not
+CREATE INDEX idx_chat_session_owner_recent
+    ON chat_session (owner_id, updated_at, id)
+    WHERE deleted_at IS NULL;
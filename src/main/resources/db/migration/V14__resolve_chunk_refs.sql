@@ -0,0 +1,21 @@
+-- Projections evaluate SQL/JSON paths on retrieved_context, which holds {"$chunk": "<sha-256 hex>"} references
+-- for deduplicated chunk bodies. This resolves them the way RetrievedChunkStore.hydrate does (body fields merged
+-- over the per-message fields); a reference whose body is missing loses its "$chunk" key rather than leaking it.
+-- Documents without references are returned as they are.
+CREATE FUNCTION resolve_chunk_refs(doc JSONB)
+RETURNS JSONB AS $fn$
+    SELECT CASE
+        WHEN jsonb_typeof(doc -> 'chunks') IS DISTINCT FROM 'array' THEN doc
+        WHEN NOT jsonb_path_exists(doc, '$.chunks[*]."$chunk"') THEN doc
+        ELSE jsonb_set(doc, '{chunks}', (
+            SELECT jsonb_agg(CASE WHEN jsonb_typeof(e.chunk -> '$chunk') = 'string'
+                                  THEN (e.chunk - '$chunk') || coalesce(rc.body, '{}')
+                                  ELSE e.chunk END ORDER BY e.ord)
+            FROM jsonb_array_elements(doc -> 'chunks') WITH ORDINALITY AS e(chunk, ord)
+            LEFT JOIN retrieved_chunk rc
+                ON jsonb_typeof(e.chunk -> '$chunk') = 'string' AND rc.hash = decode(e.chunk ->> '$chunk', 'hex')))
+    END
+$fn$ LANGUAGE sql STABLE PARALLEL SAFE;
+
+-- Chunk bodies left chat_message.retrieved_context (and its GIN index) with deduplication; index them here
+CREATE INDEX idx_retrieved_chunk_body ON retrieved_chunk USING GIN (body jsonb_path_ops);
@@ -0,0 +1,21 @@
+-- ChatMessage.content used to be mapped with @Lob, which made Hibernate store a
+-- PostgreSQL large object and write its OID into the TEXT column. Inline the text
+-- so SQL-level readers (exports, projections) see the real content, then drop the
+-- large objects that were only referenced from chat_message.
+CREATE TEMP TABLE chat_message_lob AS
+SELECT c.id, c.lob
+FROM (SELECT m.id,
+             CASE WHEN m.content ~ '^[0-9]{1,10}$' AND m.content::bigint <= 4294967295
+                  THEN m.content::bigint::oid END AS lob
+      FROM chat_message m) c
+WHERE c.lob IS NOT NULL
+  AND EXISTS (SELECT 1 FROM pg_largeobject_metadata lo WHERE lo.oid = c.lob);
+
+UPDATE chat_message m
+SET content = convert_from(lo_get(l.lob), 'UTF8')
+FROM chat_message_lob l
+WHERE l.id = m.id;
+
+SELECT lo_unlink(lob) FROM chat_message_lob;
+
+DROP TABLE chat_message_lob;
@@ -0,0 +1,11 @@
+-- Store retrieved_context and metadata as JSONB so they can be indexed and projected server-side.
+-- Both columns are only written through a JSON serializer, so the casts are safe.
+ALTER TABLE chat_message
+    ALTER COLUMN retrieved_context TYPE JSONB USING retrieved_context::jsonb,
+    ALTER COLUMN metadata TYPE JSONB USING metadata::jsonb;
+
+-- jsonb_path_ops: smaller and faster than the default opclass; serves @>, @? and @@ lookups.
+CREATE INDEX IF NOT EXISTS idx_chat_message_retrieved_context
+    ON chat_message USING GIN (retrieved_context jsonb_path_ops);
+CREATE INDEX IF NOT EXISTS idx_chat_message_metadata
+    ON chat_message USING GIN (metadata jsonb_path_ops);
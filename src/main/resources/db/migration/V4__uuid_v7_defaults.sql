@@ -0,0 +1,16 @@
+-- Time-ordered (RFC 9562 v7) ids for rows inserted outside the application.
+-- The application assigns v7 ids itself; existing v4 ids remain valid.
+CREATE OR REPLACE FUNCTION uuid_generate_v7() RETURNS uuid
+    LANGUAGE sql VOLATILE PARALLEL SAFE AS
+$$
+SELECT encode(
+           set_bit(set_bit(
+               overlay(uuid_send(gen_random_uuid())
+                       PLACING substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+                       FROM 1 FOR 6),
+               52, 1), 53, 1),
+           'hex')::uuid
+$$;
+
+ALTER TABLE chat_session ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE chat_message ALTER COLUMN id SET DEFAULT uuid_generate_v7();
@@ -0,0 +1,16 @@
+-- Message content is written by MessageContentCodec: a one-byte marker, then either UTF-8 text (0x00)
+-- or a dictionary id and a zstd frame (0x01). Existing rows become uncompressed (0x00) payloads.
+ALTER TABLE chat_message
+    ALTER COLUMN content TYPE BYTEA USING '\x00'::bytea || convert_to(content, 'UTF8');
+
+-- Compressed payloads gain nothing from a second pglz pass; keep TOAST out-of-line storage only.
+ALTER TABLE chat_message ALTER COLUMN content SET STORAGE EXTERNAL;
+
+-- Versioned zstd dictionaries; rows reference the id they were compressed with, so ids are never reused.
+CREATE TABLE compression_dictionary (
+    id SERIAL PRIMARY KEY,
+    dictionary BYTEA NOT NULL,
+    sample_count INT NOT NULL,
+    sample_bytes BIGINT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
@@ -0,0 +1,7 @@
+-- Content-addressed retrieved-context chunks. chat_message.retrieved_context keeps per-message fields
+-- (id, score, rank) plus {"$chunk": "<sha-256 hex>"} pointing at the shared body here.
+CREATE TABLE retrieved_chunk (
+    hash BYTEA PRIMARY KEY CHECK (length(hash) = 32),
+    body JSONB NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
@@ -0,0 +1,10 @@
+-- Sealed sessions whose messages were moved to a cold-tier segment file (see SessionArchive).
+-- archive_segment names the segment; the segment's own index maps the session to its block.
+ALTER TABLE chat_session
+    ADD COLUMN archived_at TIMESTAMPTZ,
+    ADD COLUMN archive_segment INTEGER;
+
+-- Archival candidates: live, not yet archived sessions ordered by last activity
+CREATE INDEX idx_chat_session_archivable
+    ON chat_session (updated_at)
+    WHERE archived_at IS NULL AND deleted_at IS NULL;
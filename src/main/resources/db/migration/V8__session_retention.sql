@@ -0,0 +1,14 @@
+-- Per-session retention: a session idle for retention_days is soft-deleted by the purge job,
+-- then hard-deleted with its messages once the grace period has passed.
+ALTER TABLE chat_session
+    ADD COLUMN retention_days INTEGER CHECK (retention_days > 0);
+
+-- TTL scan: live sessions that carry a retention policy
+CREATE INDEX idx_chat_session_retention
+    ON chat_session (updated_at)
+    WHERE retention_days IS NOT NULL AND deleted_at IS NULL;
+
+-- Purge keyset: soft-deleted sessions in deletion order
+CREATE INDEX idx_chat_session_deleted
+    ON chat_session (deleted_at, id)
+    WHERE deleted_at IS NOT NULL;
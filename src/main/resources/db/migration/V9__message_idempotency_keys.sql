@@ -0,0 +1,15 @@
+-- Idempotency-Key of a message append: a retried POST with the same key replays the recorded messages
+-- instead of inserting the batch again. request_hash (SHA-256 of the request body) catches a key reused
+-- for a different batch. Keys are expired by the purge job and go with their session.
+CREATE TABLE message_append_key (
+    session_id UUID NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash BYTEA NOT NULL CHECK (length(request_hash) = 32),
+    message_ids UUID[] NOT NULL DEFAULT '{}',
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT pk_message_append_key PRIMARY KEY (session_id, idempotency_key),
+    CONSTRAINT fk_message_append_key_session FOREIGN KEY (session_id) REFERENCES chat_session(id) ON DELETE CASCADE
+);
+
+-- Expiry scan
+CREATE INDEX idx_message_append_key_created ON message_append_key (created_at);
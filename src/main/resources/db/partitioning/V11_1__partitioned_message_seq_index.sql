@@ -0,0 +1,3 @@
+-- V4_1 rebuilds chat_message with its indexes as of V4. When partitioning is switched on after V11, it runs out of
+-- order and drops idx_chat_message_session_seq with the old table; this puts it back.
+CREATE INDEX IF NOT EXISTS idx_chat_message_session_seq ON chat_message (session_id, seq);
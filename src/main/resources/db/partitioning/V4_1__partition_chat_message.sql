@@ -0,0 +1,46 @@
+-- Opt-in (app.partitioning.enabled=true): range-partition chat_message by created_at, one partition per month.
+-- Rewrites the table under an ACCESS EXCLUSIVE lock; run it in a maintenance window on large deployments.
+-- Future partitions are pre-created and expired ones detached/dropped by ChatMessagePartitionMaintainer.
+
+-- Month boundaries are UTC, matching ChatMessagePartitionMaintainer.
+SET LOCAL timezone = 'UTC';
+
+ALTER TABLE chat_message RENAME TO chat_message_unpartitioned;
+
+-- LIKE keeps column types, defaults and checks in step with later migrations when this runs out of order.
+CREATE TABLE chat_message (LIKE chat_message_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING STORAGE)
+    PARTITION BY RANGE (created_at);
+
+-- Monthly partitions covering existing rows up to three months ahead; anything outside lands in the default.
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE((SELECT min(created_at) FROM chat_message_unpartitioned), now()))::date;
+    last_month DATE := (date_trunc('month', now()) + INTERVAL '3 months')::date;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF chat_message FOR VALUES FROM (%L) TO (%L)',
+                       'chat_message_p' || to_char(month_start, 'YYYYMM'),
+                       month_start, (month_start + INTERVAL '1 month')::date);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+CREATE TABLE chat_message_default PARTITION OF chat_message DEFAULT;
+
+INSERT INTO chat_message SELECT * FROM chat_message_unpartitioned;
+
+DROP TABLE chat_message_unpartitioned;
+
+-- The partition key has to be part of every unique constraint.
+ALTER TABLE chat_message ADD CONSTRAINT chat_message_pkey PRIMARY KEY (id, created_at);
+ALTER TABLE chat_message ADD CONSTRAINT fk_chat_message_session
+    FOREIGN KEY (session_id) REFERENCES chat_session (id) ON DELETE CASCADE;
+
+CREATE INDEX idx_chat_message_session_created ON chat_message (session_id, created_at);
+CREATE INDEX idx_chat_message_retrieved_context ON chat_message USING GIN (retrieved_context jsonb_path_ops);
+CREATE INDEX idx_chat_message_metadata ON chat_message USING GIN (metadata jsonb_path_ops);
+
+CREATE TRIGGER update_chat_message_updated_at
+    BEFORE UPDATE ON chat_message
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
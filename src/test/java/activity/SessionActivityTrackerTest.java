@@ -0,0 +1,84 @@
+package activity;
+
+import com.rag.chat.activity.SessionActivityTracker;
+import com.rag.chat.cache.SessionCacheInvalidator;
+import com.rag.chat.config.SessionActivityProperties;
+import com.rag.chat.repository.SessionActivityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class SessionActivityTrackerTest {
+
+    private static final Instant T0 = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final SessionActivityRepository repository = mock(SessionActivityRepository.class);
+    private final SessionCacheInvalidator cacheInvalidator = mock(SessionCacheInvalidator.class);
+
+    @Test
+    void coalescesActivityPerSessionIntoOneStatement() {
+        SessionActivityTracker tracker = tracker(100);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        List<Map<UUID, Instant>> flushed = new ArrayList<>();
+        when(repository.touch(anyMap())).thenAnswer(inv -> {
+            Map<UUID, Instant> batch = Map.copyOf(inv.getArgument(0));
+            flushed.add(batch);
+            return batch.size();
+        });
+
+        tracker.record(a, T0.plusSeconds(2));
+        tracker.record(a, T0);
+        tracker.record(b, T0.plusSeconds(1));
+        tracker.record(a, T0.plusSeconds(1));
+
+        assertTrue(tracker.isPending(a));
+        assertEquals(2, tracker.flush());
+        assertEquals(List.of(Map.of(a, T0.plusSeconds(2), b, T0.plusSeconds(1))), flushed);
+        assertFalse(tracker.isPending(a));
+        assertEquals(0, tracker.flush());
+        verify(repository, times(1)).touch(anyMap());
+        verify(cacheInvalidator).evictSessions(Set.of(a, b));
+    }
+
+    @Test
+    void splitsLargeFlushesIntoBatches() {
+        SessionActivityTracker tracker = tracker(2);
+        when(repository.touch(anyMap())).thenAnswer(inv -> inv.<Map<?, ?>>getArgument(0).size());
+        for (int i = 0; i < 5; i++) {
+            tracker.record(UUID.randomUUID(), T0);
+        }
+
+        assertEquals(5, tracker.flush());
+        verify(repository, times(3)).touch(anyMap());
+    }
+
+    @Test
+    void failedFlushKeepsActivityForTheNextOne() {
+        SessionActivityTracker tracker = tracker(100);
+        UUID a = UUID.randomUUID();
+        when(repository.touch(anyMap())).thenThrow(new CannotAcquireLockException("deadlock detected")).thenReturn(1);
+        tracker.record(a, T0);
+
+        assertEquals(0, tracker.flush());
+        assertTrue(tracker.isPending(a));
+        assertEquals(1, tracker.flush());
+        assertFalse(tracker.isPending(a));
+    }
+
+    private SessionActivityTracker tracker(int batchSize) {
+        return new SessionActivityTracker(repository, new SessionActivityProperties(null, batchSize), cacheInvalidator,
+                new SimpleMeterRegistry());
+    }
+}
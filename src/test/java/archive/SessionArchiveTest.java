@@ -0,0 +1,219 @@
+package archive;
+
+import com.rag.chat.archive.SessionArchive;
+import com.rag.chat.config.ArchiveProperties;
+import com.rag.chat.entity.ChatMessage;
+import com.rag.chat.entity.ChatSession;
+import com.rag.chat.enums.SenderType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendedSessionReadsBackIdentically() throws IOException {
+        SessionArchive archive = new SessionArchive(properties(1 << 20));
+        ChatSession session = session();
+        List<ChatMessage> messages = messages(session, 3);
+        messages.get(1).setRetrievedContext(null);
+        messages.get(2).setContent("مرحبا — non-ASCII survives");
+
+        session.setArchiveSegment(archive.append(session.getId(), messages));
+        List<ChatMessage> read = archive.read(session);
+        archive.close();
+
+        assertEquals(messages.size(), read.size());
+        for (int i = 0; i < messages.size(); i++) {
+            ChatMessage expected = messages.get(i);
+            ChatMessage actual = read.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getSeq(), actual.getSeq());
+            assertSame(session, actual.getSession());
+            assertEquals(expected.getRole(), actual.getRole());
+            assertEquals(expected.getContent(), actual.getContent());
+            assertEquals(expected.getRetrievedContext(), actual.getRetrievedContext());
+            assertEquals(expected.getMetadata(), actual.getMetadata());
+            assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+            assertEquals(expected.getVersion(), actual.getVersion());
+        }
+    }
+
+    @Test
+    void rangeReadsDecodeOnlyTheRequestedMessages() throws IOException {
+        SessionArchive archive = new SessionArchive(properties(1 << 20));
+        ChatSession session = session();
+        List<ChatMessage> messages = messages(session, 10);
+        session.setArchiveSegment(archive.append(session.getId(), messages));
+
+        assertEquals(10, archive.count(session));
+        assertEquals(List.of(4L, 5L), seqs(archive.slice(session, 3, 2)));
+        assertEquals(List.of(), archive.slice(session, 10, 2));
+        assertEquals(List.of(8L, 9L, 10L), seqs(archive.after(session, 7, 5)));
+        assertEquals(List.of(1L, 2L), seqs(archive.after(session, 0, 2)));
+        assertEquals(List.of(10L, 9L, 8L), seqs(archive.before(session, Long.MAX_VALUE, 3)));
+        assertEquals(List.of(3L, 2L, 1L), seqs(archive.before(session, 4, 10)));
+        assertEquals(List.of(messages.get(1).getId(), messages.get(8).getId()),
+                archive.find(session, List.of(messages.get(8).getId(), messages.get(1).getId(), UUID.randomUUID()))
+                        .stream().map(ChatMessage::getId).toList());
+        List<Long> visited = new ArrayList<>();
+        assertEquals(10, archive.forEach(session, m -> visited.add(m.getSeq())));
+        assertEquals(seqs(messages), visited);
+        assertEquals(messages.get(4).getContent(), archive.slice(session, 4, 1).get(0).getContent());
+        archive.close();
+    }
+
+    @Test
+    void fullSegmentRollsOverAndOlderSegmentsStayReadable() throws IOException {
+        SessionArchive archive = new SessionArchive(properties(64));
+        List<ChatSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ChatSession session = session();
+            session.setArchiveSegment(archive.append(session.getId(), messages(session, 2)));
+            sessions.add(session);
+        }
+
+        assertEquals(List.of(1, 2, 3), sessions.stream().map(ChatSession::getArchiveSegment).toList());
+        for (ChatSession session : sessions) {
+            assertEquals(2, archive.read(session).size());
+        }
+        archive.close();
+        assertTrue(Files.exists(directory.resolve("segment-000003.idx")));
+    }
+
+    @Test
+    void growingSegmentIsRemappedForLaterAppends() throws IOException {
+        SessionArchive archive = new SessionArchive(properties(1 << 20));
+        ChatSession first = session();
+        first.setArchiveSegment(archive.append(first.getId(), messages(first, 1)));
+        assertEquals(1, archive.read(first).size()); // maps the segment as it is now
+
+        ChatSession second = session();
+        second.setArchiveSegment(archive.append(second.getId(), messages(second, 4)));
+
+        assertEquals(first.getArchiveSegment(), second.getArchiveSegment());
+        assertEquals(4, archive.read(second).size());
+        archive.close();
+    }
+
+    @Test
+    void reopenedArchiveKeepsAppendingToLatestSegment() throws IOException {
+        SessionArchive archive = new SessionArchive(properties(1 << 20));
+        ChatSession first = session();
+        first.setArchiveSegment(archive.append(first.getId(), messages(first, 2)));
+        archive.close();
+
+        SessionArchive reopened = new SessionArchive(properties(1 << 20));
+        ChatSession second = session();
+        second.setArchiveSegment(reopened.append(second.getId(), messages(second, 1)));
+
+        assertEquals(first.getArchiveSegment(), second.getArchiveSegment());
+        assertEquals(2, reopened.read(first).size());
+        assertEquals(1, reopened.read(second).size());
+        reopened.close();
+    }
+
+    @Test
+    void sessionMissingFromSegmentFails() throws IOException {
+        SessionArchive archive = new SessionArchive(properties(1 << 20));
+        ChatSession archived = session();
+        archived.setArchiveSegment(archive.append(archived.getId(), messages(archived, 1)));
+
+        ChatSession unknown = session();
+        unknown.setArchiveSegment(archived.getArchiveSegment());
+
+        assertThrows(IllegalStateException.class, () -> archive.read(unknown));
+        archive.close();
+    }
+
+    @Test
+    void erasedSessionIsZeroedOnDiskAndOthersStayReadable() throws IOException {
+        SessionArchive archive = new SessionArchive(properties(1 << 20));
+        ChatSession erased = session();
+        erased.setArchiveSegment(archive.append(erased.getId(), messages(erased, 3)));
+        ChatSession kept = session();
+        kept.setArchiveSegment(archive.append(kept.getId(), messages(kept, 2)));
+        ByteBuffer entry = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("segment-000001.idx")), 16, 12);
+        int offset = Math.toIntExact(entry.getLong());
+        int length = entry.getInt();
+
+        archive.erase(erased.getArchiveSegment(), erased.getId());
+        archive.erase(erased.getArchiveSegment(), erased.getId());
+
+        byte[] data = Files.readAllBytes(directory.resolve("segment-000001.dat"));
+        for (int i = offset; i < offset + length; i++) {
+            assertEquals(0, data[i]);
+        }
+        assertThrows(IllegalStateException.class, () -> archive.read(erased));
+        assertEquals(2, archive.read(kept).size());
+        archive.close();
+
+        SessionArchive reopened = new SessionArchive(properties(1 << 20));
+        assertThrows(IllegalStateException.class, () -> reopened.read(erased));
+        assertEquals(2, reopened.read(kept).size());
+        reopened.close();
+    }
+
+    @Test
+    void sealedSegmentWithoutSessionsIsDeleted() throws IOException {
+        SessionArchive archive = new SessionArchive(properties(64));
+        ChatSession first = session();
+        first.setArchiveSegment(archive.append(first.getId(), messages(first, 2)));
+        ChatSession last = session();
+        last.setArchiveSegment(archive.append(last.getId(), messages(last, 2)));
+
+        archive.erase(first.getArchiveSegment(), first.getId());
+        archive.erase(last.getArchiveSegment(), last.getId());
+        archive.close();
+
+        assertFalse(Files.exists(directory.resolve("segment-000001.dat")));
+        assertFalse(Files.exists(directory.resolve("segment-000001.idx")));
+        assertTrue(Files.exists(directory.resolve("segment-000002.dat")), "the segment being appended to stays");
+    }
+
+    private static List<Long> seqs(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getSeq).toList();
+    }
+
+    private ArchiveProperties properties(long segmentMaxBytes) {
+        return new ArchiveProperties(true, directory.toString(), Duration.ofDays(1), 10, segmentMaxBytes, 3, null);
+    }
+
+    private static ChatSession session() {
+        ChatSession session = new ChatSession();
+        session.setId(UUID.randomUUID());
+        session.setCreatedAt(Instant.parse("2025-01-01T00:00:00Z"));
+        session.setArchivedAt(Instant.now());
+        return session;
+    }
+
+    private static List<ChatMessage> messages(ChatSession session, int count) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChatMessage m = ChatMessage.of(session, i % 2 == 0 ? SenderType.USER : SenderType.ASSISTANT, "message " + i);
+            m.setId(UUID.randomUUID());
+            m.setSeq(i + 1L);
+            m.setCreatedAt(Instant.parse("2025-01-01T00:00:00Z").plusSeconds(i).plusNanos(123_456_789));
+            m.setUpdatedAt(m.getCreatedAt());
+            m.setVersion((long) i);
+            m.setRetrievedContext("{\"chunks\": [{\"id\": \"doc-" + i + "\", \"$chunk\": \"ab\"}]}");
+            m.setMetadata("{\"turn\": " + i + "}");
+            messages.add(m);
+        }
+        return messages;
+    }
+}
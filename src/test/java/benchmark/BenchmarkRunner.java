@@ -0,0 +1,28 @@
+package benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the JMH benchmarks under this package.
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath benchmark.BenchmarkRunner MessageAppend"
+ * </pre>
+ * Further arguments name JMH profilers to attach, e.g. {@code MessageListing gc} for allocation per operation.
+ * Benchmarks that need PostgreSQL start one through Testcontainers, so Docker must be available.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*";
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(BenchmarkRunner.class.getPackageName() + "\\..*" + include + ".*");
+        for (int i = 1; i < args.length; i++) {
+            options.addProfiler(args[i]);
+        }
+        new Runner(options.build()).run();
+    }
+}
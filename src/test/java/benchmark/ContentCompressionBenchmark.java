@@ -0,0 +1,131 @@
+package benchmark;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.rag.chat.compression.CompressionDictionary;
+import com.rag.chat.compression.MessageContentCodec;
+import com.rag.chat.config.CompressionProperties;
+import com.rag.chat.repository.CompressionDictionaryRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode throughput of MessageContentCodec on a synthetic RAG transcript corpus
+ * (a shared system prompt plus chunks drawn from a small document pool).
+ * In throughput mode the aux counters read as KB/s: {@code rawKb} is the text processed, {@code storedKb}
+ * what ends up in the column, so storedKb / rawKb is the storage ratio and 1 / rawKb the cost per KB.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentCompressionBenchmark {
+
+    private static final String SYSTEM_PROMPT = """
+            You are a helpful assistant for the product knowledge base. Answer only from the provided context, \
+            cite the chunk ids you used and say so when the context does not contain the answer.
+            """;
+
+    @Param({"1024", "8192", "65536"})
+    public int payloadBytes;
+
+    @Param({"raw", "zstd", "zstd-dictionary"})
+    public String mode;
+
+    private MessageContentCodec codec;
+    private String[] payloads;
+    private byte[][] stored;
+    private int next;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Volume {
+        public double rawKb;
+        public double storedKb;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] documents = new String[64];
+        for (int i = 0; i < documents.length; i++) {
+            documents[i] = "{\"id\":\"doc-" + i + "#p" + random.nextInt(40) + "\",\"text\":\"" + sentence(random, 80) + "\"}";
+        }
+        payloads = new String[256];
+        for (int i = 0; i < payloads.length; i++) {
+            StringBuilder sb = new StringBuilder(SYSTEM_PROMPT);
+            while (sb.length() < payloadBytes) {
+                sb.append(documents[random.nextInt(documents.length)]).append('\n');
+            }
+            payloads[i] = sb.substring(0, payloadBytes);
+        }
+
+        boolean enabled = !"raw".equals(mode);
+        codec = new MessageContentCodec(new StubRepository(), new CompressionProperties(
+                enabled, 512, 6, 112 * 1024, 0, Duration.ofDays(1), null));
+        if ("zstd-dictionary".equals(mode)) {
+            ZstdDictTrainer trainer = new ZstdDictTrainer(16 << 20, 112 * 1024);
+            for (int i = 0; i < 2000; i++) {
+                StringBuilder sb = new StringBuilder(SYSTEM_PROMPT);
+                for (int c = 0; c < 4; c++) {
+                    sb.append(documents[random.nextInt(documents.length)]).append('\n');
+                }
+                trainer.addSample(sb.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            codec.activate(new CompressionDictionary(1, trainer.trainSamples()));
+        }
+        stored = new byte[payloads.length][];
+        long rawTotal = 0;
+        long storedTotal = 0;
+        for (int i = 0; i < payloads.length; i++) {
+            stored[i] = codec.encode(payloads[i]);
+            rawTotal += payloads[i].length();
+            storedTotal += stored[i].length;
+        }
+        System.out.printf("%n[%s, %d B] storage ratio %.3f%n", mode, payloadBytes, (double) storedTotal / rawTotal);
+    }
+
+    @Benchmark
+    public byte[] encode(Volume volume) {
+        int i = next++ & (payloads.length - 1);
+        byte[] out = codec.encode(payloads[i]);
+        volume.rawKb += payloads[i].length() / 1024.0;
+        volume.storedKb += out.length / 1024.0;
+        return out;
+    }
+
+    @Benchmark
+    public String decode(Volume volume) {
+        int i = next++ & (stored.length - 1);
+        volume.rawKb += payloads[i].length() / 1024.0;
+        volume.storedKb += stored[i].length / 1024.0;
+        return codec.decode(stored[i]);
+    }
+
+    private static String sentence(Random random, int words) {
+        String[] vocabulary = ("retrieval vector index chunk embedding score document passage rerank context window "
+                + "latency cache prompt answer tenant billing invoice refund policy account limit region").split(" ");
+        StringBuilder sb = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            sb.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static final class StubRepository extends CompressionDictionaryRepository {
+        StubRepository() {
+            super(null);
+        }
+
+        @Override
+        public Optional<CompressionDictionary> findLatest() {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy per-row append (INSERT + session UPDATE per message) with the batched
+ * append used by ChatMessageService.create (one session UPDATE + one rewritten multi-row INSERT).
+ * Reports latency per batch and the JDBC round trips it took.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageAppendBenchmark {
+
+    private static final String INSERT_MESSAGE =
+            "INSERT INTO chat_message (id, session_id, role, content, created_at, updated_at, version) VALUES (?, ?, 'USER', ?, ?, ?, 0)";
+    private static final String TOUCH_SESSION =
+            "UPDATE chat_session SET updated_at = ? WHERE id = ? AND deleted_at IS NULL";
+
+    @Param({"1", "10", "50", "200"})
+    public int batchSize;
+
+    private PostgreSQLContainer<?> postgres;
+    private Connection connection;
+    private UUID sessionId;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class RoundTrips {
+        public long roundTrips;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+        postgres.start();
+        connection = DriverManager.getConnection(
+                postgres.getJdbcUrl() + "&reWriteBatchedInserts=true", postgres.getUsername(), postgres.getPassword());
+        try (Statement st = connection.createStatement()) {
+            st.execute(Files.readString(Path.of("init-db-schema.sql")));
+        }
+        sessionId = UUID.randomUUID();
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO chat_session (id, title) VALUES (?, 'bench')")) {
+            ps.setObject(1, sessionId);
+            ps.executeUpdate();
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public void perRow(RoundTrips counter) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_MESSAGE);
+             PreparedStatement touch = connection.prepareStatement(TOUCH_SESSION)) {
+            for (int i = 0; i < batchSize; i++) {
+                Timestamp now = Timestamp.from(Instant.now());
+                bindMessage(insert, now, i);
+                insert.executeUpdate();
+                touch.setTimestamp(1, now);
+                touch.setObject(2, sessionId);
+                touch.executeUpdate();
+                counter.roundTrips += 2;
+            }
+        }
+        connection.commit();
+        counter.roundTrips++;
+    }
+
+    @Benchmark
+    public void batched(RoundTrips counter) throws SQLException {
+        Timestamp now = Timestamp.from(Instant.now());
+        try (PreparedStatement touch = connection.prepareStatement(TOUCH_SESSION);
+             PreparedStatement insert = connection.prepareStatement(INSERT_MESSAGE)) {
+            touch.setTimestamp(1, now);
+            touch.setObject(2, sessionId);
+            touch.executeUpdate();
+            counter.roundTrips++;
+            for (int i = 0; i < batchSize; i++) {
+                bindMessage(insert, now, i);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            // pgjdbc rewrites the batch into multi-row INSERTs and pipelines them behind a single Sync
+            counter.roundTrips++;
+        }
+        connection.commit();
+        counter.roundTrips++;
+    }
+
+    private void bindMessage(PreparedStatement insert, Timestamp now, int i) throws SQLException {
+        insert.setObject(1, UUID.randomUUID());
+        insert.setObject(2, sessionId);
+        insert.setString(3, "benchmark message " + i);
+        insert.setTimestamp(4, now);
+        insert.setTimestamp(5, now);
+    }
+}
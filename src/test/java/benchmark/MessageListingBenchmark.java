@@ -0,0 +1,113 @@
+package benchmark;
+
+import com.rag.chat.RagChatServiceApplication;
+import com.rag.chat.dto.request.CreateMessageRequest;
+import com.rag.chat.dto.request.CreateSessionRequest;
+import com.rag.chat.entity.ChatSession;
+import com.rag.chat.enums.SenderType;
+import com.rag.chat.repository.ChatMessageRepository;
+import com.rag.chat.repository.ChatSessionRepository;
+import com.rag.chat.repository.MessageView;
+import com.rag.chat.service.ChatMessageService;
+import com.rag.chat.service.ChatSessionService;
+import com.rag.chat.util.UuidV7;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old message listing read path (load the ChatSession, load a page of managed ChatMessage entities,
+ * copy them into response records) with the projection path used by ChatMessageService.list (one query selecting
+ * records straight from chat_message joined to a live session). Both run in a read-only transaction against the
+ * full application context, bypassing the response cache.
+ * Run with {@code BenchmarkRunner MessageListing gc} to compare allocation per page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageListingBenchmark {
+
+    private static final int MESSAGES = 500;
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private ChatSessionRepository sessionRepository;
+    private ChatMessageRepository messageRepository;
+    private TransactionTemplate readOnly;
+    private UUID sessionId;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+        postgres.start();
+        context = new SpringApplicationBuilder(RagChatServiceApplication.class)
+                .run(
+                        "--DATABASE_URL=" + postgres.getJdbcUrl(),
+                        "--DATABASE_USERNAME=" + postgres.getUsername(),
+                        "--DATABASE_PASSWORD=" + postgres.getPassword(),
+                        "--server.port=0",
+                        "--logging.level.root=WARN");
+        sessionRepository = context.getBean(ChatSessionRepository.class);
+        messageRepository = context.getBean(ChatMessageRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        ChatSession session = context.getBean(ChatSessionService.class).create(new CreateSessionRequest());
+        sessionId = session.getId();
+        ChatMessageService messageService = context.getBean(ChatMessageService.class);
+        for (int batch = 0; batch < MESSAGES / 100; batch++) {
+            List<CreateMessageRequest> requests = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                CreateMessageRequest req = new CreateMessageRequest();
+                req.setRole(i % 2 == 0 ? SenderType.USER : SenderType.ASSISTANT);
+                req.setContent("benchmark message " + batch + "/" + i + " " + "lorem ipsum dolor sit amet ".repeat(8));
+                req.setRetrievedContext(Map.of("chunks", List.of(Map.of("id", "doc-" + i + "#p3", "score", 0.8))));
+                req.setMetadata(Map.of("client", "bench"));
+                requests.add(req);
+            }
+            messageService.create(sessionId, requests);
+        }
+        pageable = PageRequest.of(1, pageSize, Sort.by("seq"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public Page<MessageView> entities() {
+        return readOnly.execute(status -> {
+            ChatSession session = sessionRepository.findByIdAndDeletedAtIsNull(sessionId).orElseThrow();
+            return messageRepository.findBySessionAndCreatedAtGreaterThanEqualOrderBySeqAsc(
+                    session, ChatMessageService.pruneFrom(session.getCreatedAt()), pageable).map(MessageView::of);
+        });
+    }
+
+    @Benchmark
+    public List<MessageView> projections() {
+        return readOnly.execute(status -> messageRepository.findViews(
+                sessionId, "", ChatMessageService.pruneFrom(UuidV7.timestamp(sessionId)), pageable));
+    }
+}
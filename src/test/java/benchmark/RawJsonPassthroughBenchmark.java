@@ -0,0 +1,63 @@
+package benchmark;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rag.chat.util.JSONSerializerDeserializerUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy read path (fresh ObjectMapper, parse stored JSON into a tree, serialize it back)
+ * with the shared-codec tree round trip and the raw passthrough used by MessageResponse.
+ * Run with -prof gc to compare allocation per response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RawJsonPassthroughBenchmark {
+
+    @Param({"5", "50"})
+    public int chunks;
+
+    private String retrievedContext;
+
+    public record TreeResponse(String content, JsonNode retrievedContext) {
+    }
+
+    public record RawResponse(String content, @JsonRawValue String retrievedContext) {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("{\"chunks\":[");
+        for (int i = 0; i < chunks; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":\"doc-").append(i).append("#p3\",\"score\":0.").append(90 - i % 90)
+                    .append(",\"text\":\"").append("Lorem ipsum dolor sit amet ".repeat(20)).append("\"}");
+        }
+        retrievedContext = sb.append("]}").toString();
+    }
+
+    @Benchmark
+    public String treePerCallMapper() throws Exception {
+        JsonNode node = new ObjectMapper().readTree(retrievedContext);
+        return new ObjectMapper().writeValueAsString(new TreeResponse("hello", node));
+    }
+
+    @Benchmark
+    public String treeSharedMapper() throws Exception {
+        JsonNode node = JSONSerializerDeserializerUtil.deserialize(retrievedContext);
+        return JSONSerializerDeserializerUtil.MAPPER.writeValueAsString(new TreeResponse("hello", node));
+    }
+
+    @Benchmark
+    public String rawPassthrough() throws Exception {
+        String raw = JSONSerializerDeserializerUtil.raw(retrievedContext);
+        return JSONSerializerDeserializerUtil.MAPPER.writeValueAsString(new RawResponse("hello", raw));
+    }
+}
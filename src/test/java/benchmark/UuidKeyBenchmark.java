@@ -0,0 +1,89 @@
+package benchmark;
+
+import com.rag.chat.util.UuidV7;
+import org.openjdk.jmh.annotations.*;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput into chat_message with random (v4) versus time-ordered (v7) primary keys.
+ * At trial end prints the primary-key index size per row, which grows with page splits
+ * when v4 keys land on random leaves.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UuidKeyBenchmark {
+
+    private static final String INSERT_MESSAGE =
+            "INSERT INTO chat_message (id, session_id, role, content, created_at, updated_at, version) VALUES (?, ?, 'USER', ?, ?, ?, 0)";
+    private static final int BATCH_SIZE = 500;
+
+    @Param({"v4", "v7"})
+    public String idVersion;
+
+    private PostgreSQLContainer<?> postgres;
+    private Connection connection;
+    private UUID sessionId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+                // keep the working set larger than shared_buffers so random leaf access shows up
+                .withCommand("postgres", "-c", "shared_buffers=16MB");
+        postgres.start();
+        connection = DriverManager.getConnection(
+                postgres.getJdbcUrl() + "&reWriteBatchedInserts=true", postgres.getUsername(), postgres.getPassword());
+        try (Statement st = connection.createStatement()) {
+            st.execute(Files.readString(Path.of("init-db-schema.sql")));
+        }
+        sessionId = UUID.randomUUID();
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO chat_session (id, title) VALUES (?, 'bench')")) {
+            ps.setObject(1, sessionId);
+            ps.executeUpdate();
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("""
+                     SELECT pg_relation_size('chat_message_pkey'), (SELECT count(*) FROM chat_message)""")) {
+            rs.next();
+            long indexBytes = rs.getLong(1);
+            long rows = rs.getLong(2);
+            System.out.printf("%n[%s] chat_message_pkey: %d bytes for %d rows (%.1f bytes/row)%n",
+                    idVersion, indexBytes, rows, rows == 0 ? 0.0 : (double) indexBytes / rows);
+        }
+        connection.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public void insertBatch() throws SQLException {
+        boolean v7 = "v7".equals(idVersion);
+        Timestamp now = Timestamp.from(Instant.now());
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_MESSAGE)) {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                insert.setObject(1, v7 ? UuidV7.generate() : UUID.randomUUID());
+                insert.setObject(2, sessionId);
+                insert.setString(3, "benchmark message " + i);
+                insert.setTimestamp(4, now);
+                insert.setTimestamp(5, now);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+    }
+}
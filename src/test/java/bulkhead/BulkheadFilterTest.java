@@ -0,0 +1,102 @@
+package bulkhead;
+
+import com.rag.chat.bulkhead.Bulkhead;
+import com.rag.chat.bulkhead.BulkheadFilter;
+import com.rag.chat.bulkhead.RequestClass;
+import com.rag.chat.config.BulkheadProperties.Limits;
+import com.rag.chat.util.Translator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BulkheadFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Translator translator = mock(Translator.class);
+
+    @Test
+    void requestsAreClassifiedByPathAndMethod() {
+        assertEquals(RequestClass.INTERACTIVE, RequestClass.of(request("GET", "/api/v1/sessions")));
+        assertEquals(RequestClass.INGEST, RequestClass.of(request("POST", "/api/v1/sessions/1/messages")));
+        assertEquals(RequestClass.INGEST, RequestClass.of(request("DELETE", "/api/v1/sessions/1")));
+        assertEquals(RequestClass.BULK, RequestClass.of(request("GET", "/api/v1/sessions/1/messages/export")));
+        assertNull(RequestClass.of(request("GET", "/actuator/health")));
+    }
+
+    @Test
+    void fullBulkheadQueuesUpToItsLimitThenRejects() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead(RequestClass.INGEST, new Limits(1, 0, Duration.ofMillis(10), 1), meterRegistry);
+
+        assertTrue(bulkhead.tryAcquire());
+        assertFalse(bulkhead.tryAcquire());
+        bulkhead.release();
+        assertTrue(bulkhead.tryAcquire());
+
+        assertEquals(1.0, meterRegistry.get("chat.bulkhead.active").tag("class", "ingest").gauge().value());
+        assertEquals(1.0, meterRegistry.get("chat.bulkhead.rejected").tag("class", "ingest").counter().count());
+    }
+
+    @Test
+    void queuedRequestGetsTheSlotWhenOneFreesUp() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(RequestClass.INGEST, new Limits(1, 1, Duration.ofSeconds(5), 1), meterRegistry);
+        assertTrue(bulkhead.tryAcquire());
+
+        AtomicReference<Boolean> acquired = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                acquired.set(bulkhead.tryAcquire());
+            } catch (InterruptedException e) {
+                acquired.set(false);
+            }
+        });
+        waiter.start();
+        while (meterRegistry.get("chat.bulkhead.queued").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+        assertFalse(bulkhead.tryAcquire()); // the queue of one is taken
+        bulkhead.release();
+        waiter.join(5000);
+
+        assertTrue(acquired.get());
+        assertEquals(0.0, meterRegistry.get("chat.bulkhead.queued").gauge().value());
+    }
+
+    @Test
+    void saturatedClassIsRejectedWithoutTouchingOtherClasses() throws Exception {
+        Bulkhead ingest = new Bulkhead(RequestClass.INGEST, new Limits(1, 0, Duration.ZERO, 1), meterRegistry);
+        Bulkhead interactive = new Bulkhead(RequestClass.INTERACTIVE, new Limits(1, 0, Duration.ZERO, 1), meterRegistry);
+        BulkheadFilter filter = new BulkheadFilter(Map.of(RequestClass.INGEST, ingest, RequestClass.INTERACTIVE, interactive), translator);
+        when(translator.toLocale(eq("bulkhead.rejected"), any())).thenReturn("busy");
+        assertTrue(ingest.tryAcquire()); // an ingest request is in flight
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/api/v1/sessions/1/messages"), rejected, (req, res) -> fail("must not run"));
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("BULKHEAD_FULL"));
+
+        AtomicReference<RequestClass> bound = new AtomicReference<>();
+        MockHttpServletResponse served = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/v1/sessions"), served, (req, res) -> bound.set(RequestClass.current()));
+        assertEquals(200, served.getStatus());
+        assertEquals(RequestClass.INTERACTIVE, bound.get());
+        assertNull(RequestClass.current());
+        assertTrue(interactive.tryAcquire()); // released after the request
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        return new MockHttpServletRequest(method, uri);
+    }
+}
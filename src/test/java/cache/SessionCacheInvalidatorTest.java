@@ -0,0 +1,119 @@
+package cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rag.chat.cache.CacheEntryWeigher;
+import com.rag.chat.cache.CacheNames;
+import com.rag.chat.cache.SessionCacheInvalidator;
+import com.rag.chat.cache.SessionPageCache;
+import com.rag.chat.config.CacheConfig;
+import com.rag.chat.entity.ChatMessage;
+import com.rag.chat.entity.ChatSession;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SessionCacheInvalidatorTest {
+
+    private CaffeineCacheManager cacheManager;
+    private SessionPageCache pages;
+    private SessionCacheInvalidator invalidator;
+    private final jakarta.persistence.Cache secondLevelCache = mock(jakarta.persistence.Cache.class);
+
+    @BeforeEach
+    void setUp() {
+        pages = SessionPageCache.build(CacheNames.CHAT_MESSAGES, Caffeine.newBuilder()
+                .maximumWeight(1024 * 1024)
+                .weigher(new CacheEntryWeigher()));
+        cacheManager = CacheConfig.sessionPageCacheManager(pages);
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+        invalidator = new SessionCacheInvalidator(cacheManager, entityManagerFactory);
+    }
+
+    @Test
+    void evictSessionMessages_onlyRemovesThatSessionsPages() {
+        UUID x = UUID.randomUUID();
+        UUID y = UUID.randomUUID();
+        Cache cache = cacheManager.getCache(CacheNames.CHAT_MESSAGES);
+        cache.put(x + "-0-20-createdAt: ASC", new PageImpl<>(List.of(new ChatMessage())));
+        cache.put(x + "-1-20-createdAt: ASC", new PageImpl<>(List.of(new ChatMessage())));
+        cache.put(y + "-0-20-createdAt: ASC", new PageImpl<>(List.of(new ChatMessage())));
+
+        invalidator.evictSessionMessages(x);
+
+        assertNull(cache.get(x + "-0-20-createdAt: ASC"));
+        assertNull(cache.get(x + "-1-20-createdAt: ASC"));
+        assertNotNull(cache.get(y + "-0-20-createdAt: ASC"));
+    }
+
+    @Test
+    void evictSessionMessages_removesSeveralSessionsInOnePass() {
+        UUID x = UUID.randomUUID();
+        UUID y = UUID.randomUUID();
+        UUID z = UUID.randomUUID();
+        Cache cache = cacheManager.getCache(CacheNames.CHAT_MESSAGES);
+        cache.put(x + "-0-20-createdAt: ASC", new PageImpl<>(List.of(new ChatMessage())));
+        cache.put(y + "-0-20-createdAt: ASC", new PageImpl<>(List.of(new ChatMessage())));
+        cache.put(z + "-0-20-createdAt: ASC", new PageImpl<>(List.of(new ChatMessage())));
+
+        invalidator.evictSessionMessages(List.of(x, y));
+
+        assertNull(cache.get(x + "-0-20-createdAt: ASC"));
+        assertNull(cache.get(y + "-0-20-createdAt: ASC"));
+        assertNotNull(cache.get(z + "-0-20-createdAt: ASC"));
+    }
+
+    @Test
+    void evictSessionMessages_onlyTouchesIndexedKeysOfThatSession() {
+        UUID x = UUID.randomUUID();
+        UUID y = UUID.randomUUID();
+        Cache cache = cacheManager.getCache(CacheNames.CHAT_MESSAGES);
+        assertSame(pages, cache);
+        cache.put(x + "-0-20-createdAt: ASC", new PageImpl<>(List.of(new ChatMessage())));
+        cache.put(y + "-0-20-createdAt: ASC", new PageImpl<>(List.of(new ChatMessage())));
+        cache.evict(x + "-0-20-createdAt: ASC");
+        // a page removed behind the index leaves a stale index entry, which eviction tolerates
+        pages.getNativeCache().invalidate(y + "-0-20-createdAt: ASC");
+        cache.put(x + "-1-20-createdAt: ASC", new PageImpl<>(List.of(new ChatMessage())));
+
+        invalidator.evictSessionMessages(List.of(x, y));
+
+        assertNull(cache.get(x + "-1-20-createdAt: ASC"));
+        assertEquals(0, pages.getNativeCache().estimatedSize());
+    }
+
+    @Test
+    void evictSessions_evictsEachSessionEntity() {
+        UUID x = UUID.randomUUID();
+        UUID y = UUID.randomUUID();
+
+        invalidator.evictSessions(List.of(x, y));
+
+        verify(secondLevelCache).evict(ChatSession.class, x);
+        verify(secondLevelCache).evict(ChatSession.class, y);
+        verifyNoMoreInteractions(secondLevelCache);
+    }
+
+    @Test
+    void weigher_growsWithPayloadSize() {
+        ChatMessage small = new ChatMessage();
+        small.setContent("hi");
+        ChatMessage large = new ChatMessage();
+        large.setContent("x".repeat(10_000));
+
+        CacheEntryWeigher weigher = new CacheEntryWeigher();
+        int smallWeight = weigher.weigh("k", new PageImpl<>(List.of(small)));
+        int largeWeight = weigher.weigh("k", new PageImpl<>(List.of(large)));
+
+        assertTrue(largeWeight > smallWeight + 19_000);
+    }
+}
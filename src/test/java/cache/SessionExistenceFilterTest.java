@@ -0,0 +1,110 @@
+package cache;
+
+import com.rag.chat.cache.SessionExistenceFilter;
+import com.rag.chat.cache.UuidBloomFilter;
+import com.rag.chat.config.SessionLookupProperties;
+import com.rag.chat.exception.ResourceNotFoundException;
+import com.rag.chat.repository.SessionExistenceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SessionExistenceFilterTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    private final SessionExistenceRepository repository = mock(SessionExistenceRepository.class);
+    private final SessionExistenceFilter filter = new SessionExistenceFilter(repository,
+            new SessionLookupProperties(null, 0, Duration.ofMinutes(1), 1000, 0.01, null),
+            mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void remembersSettledMissesOnly() {
+        UUID old = idCreatedAt(NOW.minus(Duration.ofHours(1)));
+        UUID fresh = idCreatedAt(NOW.minusSeconds(5));
+
+        filter.recordMissing(old);
+        filter.recordMissing(fresh);
+
+        assertThrows(ResourceNotFoundException.class, () -> filter.rejectKnownMissing(old));
+        assertDoesNotThrow(() -> filter.rejectKnownMissing(fresh));
+    }
+
+    @Test
+    void deletedSessionsAreRejectedRightAway() {
+        UUID deleted = idCreatedAt(NOW.minusSeconds(5));
+
+        filter.recordDeleted(deleted);
+
+        assertThrows(ResourceNotFoundException.class, () -> filter.rejectKnownMissing(deleted));
+    }
+
+    @Test
+    void bloomFilterRejectsOnlyIdsOlderThanTheRebuild() {
+        UUID live = idCreatedAt(NOW.minus(Duration.ofDays(3)));
+        UUID unknown = idCreatedAt(NOW.minus(Duration.ofDays(2)));
+        UUID fresh = idCreatedAt(NOW.minusSeconds(5));
+        doAnswer(inv -> {
+            inv.<Consumer<UUID>>getArgument(0).accept(live);
+            return 1L;
+        }).when(repository).forEachLiveId(any());
+
+        assertDoesNotThrow(() -> filter.rejectKnownMissing(unknown));
+        assertEquals(1, filter.rebuild());
+
+        assertDoesNotThrow(() -> filter.rejectKnownMissing(live));
+        assertThrows(ResourceNotFoundException.class, () -> filter.rejectKnownMissing(unknown));
+        assertThrows(ResourceNotFoundException.class, () -> filter.rejectKnownMissing(UUID.randomUUID()));
+        assertDoesNotThrow(() -> filter.rejectKnownMissing(fresh));
+    }
+
+    @Test
+    void failedRebuildKeepsAnsweringFromTheNegativeCache() {
+        UUID old = idCreatedAt(NOW.minus(Duration.ofHours(1)));
+        when(repository.forEachLiveId(any())).thenThrow(new IllegalStateException("connection refused"));
+        filter.recordMissing(old);
+
+        assertEquals(-1, filter.rebuild());
+        assertThrows(ResourceNotFoundException.class, () -> filter.rejectKnownMissing(old));
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndBoundedFalsePositives() {
+        UuidBloomFilter bloom = new UuidBloomFilter(10_000, 0.01);
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = idCreatedAt(NOW.minusMillis(i));
+            bloom.add(id);
+            added.add(id);
+        }
+
+        assertTrue(added.stream().allMatch(bloom::mightContain));
+        long falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (bloom.mightContain(idCreatedAt(NOW.plusMillis(i)))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    private static UUID idCreatedAt(Instant createdAt) {
+        long msb = (createdAt.toEpochMilli() << 16) | (0x7L << 12) | ThreadLocalRandom.current().nextLong(0x1000);
+        long lsb = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,78 @@
+package chunk;
+
+import com.rag.chat.chunk.RetrievedChunkStore;
+import com.rag.chat.config.ChunkStoreProperties;
+import com.rag.chat.repository.RetrievedChunkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class RetrievedChunkStoreTest {
+
+    private static final String TEXT = "Chunking with 512-token windows and 64-token overlap improved recall. ".repeat(3);
+
+    private RetrievedChunkRepository repository;
+    private RetrievedChunkStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RetrievedChunkRepository.class);
+        store = new RetrievedChunkStore(repository, new ChunkStoreProperties(true, 64, 1 << 20, null));
+    }
+
+    @Test
+    void dehydrate_smallChunksAndDocumentsWithoutChunks_stayInline() {
+        RetrievedChunkStore.Dehydrated small = store.dehydrate(Map.of("chunks", List.of(Map.of("id", "d1", "text", "x"))));
+        RetrievedChunkStore.Dehydrated other = store.dehydrate(Map.of("query", "q"));
+
+        assertTrue(small.chunks().isEmpty());
+        assertTrue(small.json().contains("\"text\":\"x\""));
+        assertEquals("{\"query\":\"q\"}", other.json());
+    }
+
+    @Test
+    void dehydrate_clientSuppliedReference_isRejected() {
+        Map<String, Object> forged = Map.of("chunks", List.of(Map.of("id", "d1", RetrievedChunkStore.REF_FIELD, "not-a-hash")));
+        RetrievedChunkStore disabled = new RetrievedChunkStore(repository, new ChunkStoreProperties(false, 64, 1 << 20, null));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> store.dehydrate(forged));
+        assertEquals("retrievedContext.chunk.reserved", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> disabled.dehydrate(forged));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void hydrate_coldCache_loadsMissingBodiesInOneQuery() {
+        RetrievedChunkStore.Dehydrated dehydrated = store.dehydrate(
+                Map.of("chunks", List.of(Map.of("id", "d1", "score", 0.5, "text", TEXT))));
+        when(repository.findByHashes(anyCollection())).thenReturn(dehydrated.chunks());
+
+        List<String> hydrated = store.hydrate(Arrays.asList(dehydrated.json(), null, "{\"a\":1}", dehydrated.json()));
+
+        assertTrue(hydrated.get(0).contains(TEXT));
+        assertTrue(hydrated.get(0).contains("\"score\":0.5"));
+        assertFalse(hydrated.get(0).contains(RetrievedChunkStore.REF_FIELD));
+        assertNull(hydrated.get(1));
+        assertEquals("{\"a\":1}", hydrated.get(2));
+        assertEquals(hydrated.get(0), hydrated.get(3));
+        verify(repository, times(1)).findByHashes(anyCollection());
+
+        store.hydrate(dehydrated.json());
+        verify(repository, times(1)).findByHashes(anyCollection());
+    }
+
+    @Test
+    void hydrate_missingBody_keepsReference() {
+        RetrievedChunkStore.Dehydrated dehydrated = store.dehydrate(Map.of("chunks", List.of(Map.of("id", "d1", "text", TEXT))));
+        when(repository.findByHashes(anyCollection())).thenReturn(Map.of());
+
+        assertEquals(dehydrated.json(), store.hydrate(dehydrated.json()));
+    }
+}
@@ -0,0 +1,81 @@
+package compression;
+
+import com.rag.chat.compression.CompressionDictionary;
+import com.rag.chat.compression.MessageContentCodec;
+import com.rag.chat.config.CompressionProperties;
+import com.rag.chat.repository.CompressionDictionaryRepository;
+import com.rag.chat.service.CompressionDictionaryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CompressionDictionaryServiceTest {
+
+    private static final String PROMPT = "You are a helpful assistant answering questions about retrieval augmented generation. ";
+
+    private final CompressionDictionaryRepository repository = mock(CompressionDictionaryRepository.class);
+    private final MessageContentCodec codec = mock(MessageContentCodec.class);
+    private CompressionDictionaryService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CompressionDictionaryService(repository, codec,
+                new CompressionProperties(true, 64, 3, 4096, 200, Duration.ofMinutes(5), null));
+        List<byte[]> samples = samples();
+        when(repository.findRecentContent(any(), eq(200))).thenReturn(samples);
+        when(codec.decode(any(byte[].class))).thenAnswer(i -> new String(i.<byte[]>getArgument(0), StandardCharsets.UTF_8));
+        when(repository.insert(any(), anyInt(), anyLong())).thenReturn(3);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void train_rolledBack_leavesActiveDictionaryUnchanged() {
+        service.train();
+        verify(codec, never()).activate(any());
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(codec, never()).activate(any());
+    }
+
+    @Test
+    void train_committed_activatesNewDictionary() {
+        assertEquals(3, service.train().getId());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(codec).activate(argThat((CompressionDictionary d) -> d.id() == 3 && d.bytes().length > 0));
+    }
+
+    private static List<byte[]> samples() {
+        Random random = new Random(1);
+        String[] words = "retrieval vector index chunk embedding score document passage rerank context".split(" ");
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            StringBuilder sb = new StringBuilder(PROMPT);
+            for (int w = 0; w < 60; w++) {
+                sb.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            samples.add(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,123 @@
+package compression;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.rag.chat.compression.CompressionDictionary;
+import com.rag.chat.compression.MessageContentCodec;
+import com.rag.chat.config.CompressionProperties;
+import com.rag.chat.repository.CompressionDictionaryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MessageContentCodecTest {
+
+    private static final String PROMPT = "You are a helpful assistant answering questions about retrieval augmented generation. ";
+
+    private CompressionDictionaryRepository repository;
+    private MessageContentCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(CompressionDictionaryRepository.class);
+        when(repository.findLatest()).thenReturn(Optional.empty());
+        codec = new MessageContentCodec(repository, new CompressionProperties(true, 64, 3, 4096, 100, Duration.ofMinutes(5), null));
+    }
+
+    @Test
+    void encode_smallPayload_storedRaw() {
+        byte[] stored = codec.encode("hello");
+
+        assertEquals(0x00, stored[0]);
+        assertEquals(6, stored.length);
+        assertEquals("hello", codec.decode(stored));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void encode_largeRepetitivePayload_compressedWithoutDictionary() {
+        String text = PROMPT.repeat(20);
+
+        byte[] stored = codec.encode(text);
+
+        assertEquals(0x01, stored[0]);
+        assertTrue(stored.length < text.length() / 4);
+        assertEquals(text, codec.decode(stored));
+    }
+
+    @Test
+    void encode_neverLargerThanRawPayload() {
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int c = 0; c < 64 + random.nextInt(64); c++) {
+                sb.append((char) (0x21 + random.nextInt(94)));
+            }
+            String text = sb.toString();
+
+            byte[] stored = codec.encode(text);
+
+            assertTrue(stored.length <= text.length() + 1);
+            assertEquals(text, codec.decode(stored));
+        }
+    }
+
+    @Test
+    void decode_olderDictionaryVersion_loadedOnDemand() {
+        CompressionDictionary dictionary = new CompressionDictionary(7, train());
+        codec.activate(dictionary);
+        String text = PROMPT + "vector index chunk embedding score document passage rerank";
+        byte[] stored = codec.encode(text);
+
+        MessageContentCodec freshInstance = new MessageContentCodec(repository,
+                new CompressionProperties(true, 64, 3, 4096, 100, Duration.ofMinutes(5), null));
+        when(repository.findById(7)).thenReturn(Optional.of(dictionary));
+
+        assertEquals(7, java.nio.ByteBuffer.wrap(stored, 1, 4).getInt());
+        assertEquals(text, freshInstance.decode(stored));
+        verify(repository).findById(7);
+    }
+
+    @Test
+    void decodePrefix_stopsAtLimitForRawAndCompressedContent() {
+        String text = PROMPT.repeat(20);
+        byte[] compressed = codec.encode(text);
+        CompressionDictionary dictionary = new CompressionDictionary(7, train());
+        codec.activate(dictionary);
+        byte[] withDictionary = codec.encode(text);
+
+        assertEquals(PROMPT.substring(0, 10), codec.decodePrefix(compressed, 10));
+        assertEquals(PROMPT.substring(0, 10), codec.decodePrefix(withDictionary, 10));
+        assertEquals("hel", codec.decodePrefix(codec.encode("hello"), 3));
+        assertEquals("hello", codec.decodePrefix(codec.encode("hello"), 100));
+        assertEquals(text, codec.decodePrefix(compressed, text.length() + 1));
+    }
+
+    @Test
+    void encode_disabled_storesRaw() {
+        MessageContentCodec disabled = new MessageContentCodec(repository,
+                new CompressionProperties(false, 64, 3, 4096, 100, Duration.ofMinutes(5), null));
+
+        assertEquals(0x00, disabled.encode(PROMPT.repeat(20))[0]);
+    }
+
+    private static byte[] train() {
+        Random random = new Random(1);
+        String[] words = "retrieval vector index chunk embedding score document passage rerank context".split(" ");
+        ZstdDictTrainer trainer = new ZstdDictTrainer(1 << 20, 4096);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder sb = new StringBuilder(PROMPT);
+            for (int w = 0; w < 60; w++) {
+                sb.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            trainer.addSample(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return trainer.trainSamples();
+    }
+}
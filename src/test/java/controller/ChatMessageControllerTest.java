@@ -6,8 +6,13 @@ import com.rag.chat.controller.ChatMessageController;
 import com.rag.chat.dto.response.MessageResponse;
 import com.rag.chat.entity.ChatMessage;
 import com.rag.chat.entity.ChatSession;
+import com.rag.chat.enums.MessageField;
+import com.rag.chat.enums.SelectableField;
 import com.rag.chat.enums.SenderType;
+import com.rag.chat.exception.ResourceNotFoundException;
+import com.rag.chat.repository.MessageView;
 import com.rag.chat.service.ChatMessageService;
+import com.rag.chat.service.ChatTranscriptExportService;
 import com.rag.chat.util.JSONSerializerDeserializerUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,19 +22,30 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 import org.springframework.data.domain.*;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.UUID;
 
 import static com.rag.chat.util.JSONSerializerDeserializerUtil.deserialize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class ChatMessageControllerTest {
@@ -37,6 +53,9 @@ public class ChatMessageControllerTest {
     @Mock
     private ChatMessageService chatMessageService;
 
+    @Mock
+    private ChatTranscriptExportService exportService;
+
     @InjectMocks
     private ChatMessageController chatMessageController;
 
@@ -71,10 +90,10 @@ public class ChatMessageControllerTest {
 
     @Test
     void list_shouldReturnPageResponse() throws Exception {
-        Page<ChatMessage> page = new PageImpl<>(List.of(chatMessage), 
+        Page<MessageView> page = new PageImpl<>(List.of(MessageView.of(chatMessage)), 
                 PageRequest.of(0, 50, Sort.by(Sort.Direction.ASC, "createdAt")), 1);
 
-        when(chatMessageService.list(eq(sessionId), any(Pageable.class))).thenReturn(page);
+        when(chatMessageService.list(eq(sessionId), any(), any(Pageable.class))).thenReturn(page);
 
         mockMvc.perform(get("/api/v1/sessions/{sessionId}/messages", sessionId)
                 .param("page", "0")
@@ -84,6 +103,25 @@ public class ChatMessageControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void list_shouldSelectRequestedFieldsWithoutExcludedDocuments() throws Exception {
+        when(chatMessageService.list(eq(sessionId), any(), any(Pageable.class))).thenReturn(Page.empty());
+
+        mockMvc.perform(get("/api/v1/sessions/{sessionId}/messages", sessionId)
+                        .param("fields", "role,content,retrievedContext")
+                        .param("includeContext", "false"))
+                .andExpect(status().isOk());
+
+        verify(chatMessageService).list(eq(sessionId), eq(EnumSet.of(MessageField.ID, MessageField.ROLE, MessageField.CONTENT)),
+                any(Pageable.class));
+    }
+
+    @Test
+    void parseFields_shouldRejectUnknownNames() {
+        assertEquals(EnumSet.allOf(MessageField.class), SelectableField.parse(MessageField.class, null));
+        assertThrows(IllegalArgumentException.class, () -> SelectableField.parse(MessageField.class, List.of("content", "password")));
+    }
+
     @Test
     void toResponse_shouldRespectIncludeFlags() {
 
@@ -100,13 +138,39 @@ public class ChatMessageControllerTest {
 
     @Test
     void deserialize_shouldReturnNullForInvalidJson() {
-        ChatMessageController controller = new ChatMessageController(chatMessageService);
+        ChatMessageController controller = new ChatMessageController(chatMessageService, exportService);
         String invalidJson = "{ invalid json }";
         JsonNode node = deserialize(invalidJson);
         assertNull(node);
     }
 
 
+    @Test
+    void export_shouldStreamNdjson() throws Exception {
+        when(exportService.writeNdjson(eq(sessionId), any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"id\":\"1\"}\n{\"id\":\"2\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/v1/sessions/{sessionId}/messages/export", sessionId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":\"1\"}\n{\"id\":\"2\"}\n"));
+        verify(exportService).assertExportable(sessionId);
+    }
+
+    @Test
+    void export_unknownSession_shouldNotStartStreaming() {
+        doThrow(new ResourceNotFoundException("session.not.found")).when(exportService).assertExportable(sessionId);
+
+        assertThrows(ResourceNotFoundException.class, () -> chatMessageController.export(sessionId));
+    }
+
     private MessageResponse toResponse(ChatMessage m, boolean includeContext, boolean includeMetadata) {
         UUID sessionId = m.getSession() != null ? m.getSession().getId() : null;
         return MessageResponse.builder()
@@ -114,8 +178,8 @@ public class ChatMessageControllerTest {
                 .sessionId(sessionId)
                 .role(m.getRole())
                 .content(m.getContent())
-                .retrievedContext(includeContext ? deserialize(m.getRetrievedContext()) : null)
-                .metadata(includeMetadata ? JSONSerializerDeserializerUtil.deserialize(m.getMetadata()) : null)
+                .retrievedContext(includeContext ? JSONSerializerDeserializerUtil.raw(m.getRetrievedContext()) : null)
+                .metadata(includeMetadata ? JSONSerializerDeserializerUtil.raw(m.getMetadata()) : null)
                 .createdAt(m.getCreatedAt())
                 .build();
     }
@@ -5,6 +5,11 @@ import com.rag.chat.controller.ChatSessionController;
 import com.rag.chat.dto.request.CreateSessionRequest;
 import com.rag.chat.dto.request.UpdateSessionRequest;
 import com.rag.chat.entity.ChatSession;
+import com.rag.chat.enums.SenderType;
+import com.rag.chat.enums.SessionField;
+import com.rag.chat.repository.MessagePreview;
+import com.rag.chat.repository.SessionStats;
+import com.rag.chat.repository.SessionView;
 import com.rag.chat.service.ChatSessionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,7 +22,9 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.time.Instant;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -83,7 +90,9 @@ class ChatSessionControllerTest {
         Page<ChatSession> page = new PageImpl<>(List.of(chatSession),
                 PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "updatedAt")), 1);
 
-        when(chatSessionService.list(any(Pageable.class))).thenReturn(page);
+        when(chatSessionService.list(eq(""), any(Pageable.class))).thenReturn(page);
+        when(chatSessionService.stats(List.of(sessionId))).thenReturn(Map.of(sessionId,
+                new SessionStats(42, Instant.parse("2025-09-12T11:41:27Z"), 18432L)));
 
         mockMvc.perform(get("/api/v1/sessions")
                         .param("userId", userId)
@@ -93,7 +102,43 @@ class ChatSessionControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content[0].id").value(sessionId.toString()))
                 .andExpect(jsonPath("$.content[0].title").value("Test Session"))
-                .andExpect(jsonPath("$.content[0].favorite").value(true));
+                .andExpect(jsonPath("$.content[0].favorite").value(true))
+                .andExpect(jsonPath("$.content[0].messageCount").value(42))
+                .andExpect(jsonPath("$.content[0].lastMessageAt").exists())
+                .andExpect(jsonPath("$.content[0].payloadBytes").value(18432))
+                .andExpect(jsonPath("$.content[0].lastMessage").doesNotExist());
+    }
+
+    @Test
+    void list_withPreview_shouldReturnLastMessage() throws Exception {
+        Page<ChatSession> page = new PageImpl<>(List.of(chatSession),
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "updatedAt")), 1);
+
+        when(chatSessionService.list(eq(""), any(Pageable.class))).thenReturn(page);
+        when(chatSessionService.statsWithLastMessage(List.of(sessionId))).thenReturn(Map.of(sessionId,
+                new SessionStats(42, Instant.parse("2025-09-12T11:41:27Z"), 18432L,
+                        new MessagePreview(42, SenderType.AI, "Smaller chunks", true))));
+
+        mockMvc.perform(get("/api/v1/sessions").param("preview", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].messageCount").value(42))
+                .andExpect(jsonPath("$.content[0].lastMessage.seq").value(42))
+                .andExpect(jsonPath("$.content[0].lastMessage.role").value("AI"))
+                .andExpect(jsonPath("$.content[0].lastMessage.content").value("Smaller chunks"))
+                .andExpect(jsonPath("$.content[0].lastMessage.truncated").value(true));
+    }
+
+    @Test
+    void list_withFields_shouldReturnOnlySelectedFields() throws Exception {
+        Page<SessionView> page = new PageImpl<>(List.of(new SessionView(sessionId, "Test Session", null, null, null, null, null)));
+        when(chatSessionService.list(eq(""), eq(EnumSet.of(SessionField.ID, SessionField.TITLE)), any(Pageable.class))).thenReturn(page);
+
+        mockMvc.perform(get("/api/v1/sessions").param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(sessionId.toString()))
+                .andExpect(jsonPath("$.content[0].title").value("Test Session"))
+                .andExpect(jsonPath("$.content[0].favorite").doesNotExist())
+                .andExpect(jsonPath("$.content[0].updatedAt").doesNotExist());
     }
 
     @Test
@@ -104,7 +149,9 @@ class ChatSessionControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(sessionId.toString()))
                 .andExpect(jsonPath("$.title").value("Test Session"))
-                .andExpect(jsonPath("$.favorite").value(true));
+                .andExpect(jsonPath("$.favorite").value(true))
+                .andExpect(jsonPath("$.messageCount").value(0))
+                .andExpect(jsonPath("$.lastMessageAt").doesNotExist());
     }
 
     @Test
@@ -137,4 +184,41 @@ class ChatSessionControllerTest {
         mockMvc.perform(delete("/api/v1/sessions/{id}", sessionId))
                 .andExpect(status().isNoContent());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAll_shouldReturnFoundSessions() throws Exception {
+        UUID missing = UUID.randomUUID();
+        when(chatSessionService.getAll(List.of(sessionId, missing))).thenReturn(List.of(chatSession));
+        when(chatSessionService.stats(List.of(sessionId))).thenReturn(Map.of(sessionId,
+                new SessionStats(3, Instant.parse("2025-09-12T11:41:27Z"), 512L)));
+
+        mockMvc.perform(get("/api/v1/sessions/batch").param("ids", sessionId + "," + missing))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(sessionId.toString()))
+                .andExpect(jsonPath("$[0].messageCount").value(3));
+    }
+
+    @Test
+    void updateAll_shouldReportAffectedAndNotFound() throws Exception {
+        UUID missing = UUID.randomUUID();
+        when(chatSessionService.updateAll(any())).thenReturn(List.of(sessionId));
+
+        mockMvc.perform(patch("/api/v1/sessions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[\"" + missing + "\",\"" + sessionId + "\"],\"favorite\":true}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected[0]").value(sessionId.toString()))
+                .andExpect(jsonPath("$.notFound[0]").value(missing.toString()));
+    }
+
+    @Test
+    void deleteAll_shouldReportDeletedSessions() throws Exception {
+        when(chatSessionService.deleteAll(List.of(sessionId))).thenReturn(List.of(sessionId));
+
+        mockMvc.perform(delete("/api/v1/sessions/batch").param("ids", sessionId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected[0]").value(sessionId.toString()))
+                .andExpect(jsonPath("$.notFound").isEmpty());
+    }
+}
@@ -0,0 +1,174 @@
+package datasource;
+
+import com.rag.chat.config.ReadReplicaProperties;
+import com.rag.chat.datasource.ConsistencyToken;
+import com.rag.chat.datasource.ReplicaPool;
+import com.rag.chat.datasource.ReplicaRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReplicaRouterTest {
+
+    private final ReadReplicaProperties properties = new ReadReplicaProperties(true, List.of("a", "b"), null, null,
+            2, null, Duration.ofSeconds(10), Duration.ofSeconds(5));
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+
+    private final Database primary = new Database(false, "0/100");
+    private final Database replicaA = new Database(true, "0/100");
+    private final Database replicaB = new Database(true, "0/100");
+
+    private final ReplicaRouter router = new ReplicaRouter(primary.dataSource,
+            List.of(new ReplicaPool("a", replicaA.dataSource), new ReplicaPool("b", replicaB.dataSource)),
+            properties, meterRegistry, clock);
+
+    @AfterEach
+    void clearToken() {
+        ConsistencyToken.clear();
+    }
+
+    @Test
+    void walPositionsRoundTrip() {
+        assertEquals(0x16_B374D848L, ConsistencyToken.parse("16/B374D848"));
+        assertEquals("16/B374D848", ConsistencyToken.format(0x16_B374D848L));
+        assertEquals("0/0", ConsistencyToken.format(ConsistencyToken.parse("0/0")));
+        assertThrows(IllegalArgumentException.class, () -> ConsistencyToken.parse("16B374D848"));
+        assertThrows(IllegalArgumentException.class, () -> ConsistencyToken.parse("16/"));
+        assertThrows(IllegalArgumentException.class, () -> ConsistencyToken.parse("zz/1"));
+    }
+
+    @Test
+    void readsGoToPrimaryUntilReplicasPassAHealthCheck() throws SQLException {
+        assertSame(primary.connection, router.getConnection());
+        assertFalse(ConsistencyToken.replicaRead());
+
+        router.checkHealth();
+
+        assertSame(replicaB.connection, router.getConnection());
+        assertTrue(ConsistencyToken.replicaRead());
+        assertSame(replicaA.connection, router.getConnection());
+        assertEquals(1, meterRegistry.counter("chat.datasource.route", "pool", "a", "reason", "replica").count());
+        assertEquals(1, meterRegistry.counter("chat.datasource.route", "pool", "primary", "reason", "no-replica").count());
+        assertEquals(1.0, meterRegistry.get("chat.datasource.replica.up").tag("pool", "b").gauge().value());
+    }
+
+    @Test
+    void failingReplicaIsMarkedDownAndSkipped() throws SQLException {
+        router.checkHealth();
+        when(replicaA.dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        assertSame(replicaB.connection, router.getConnection());
+        assertSame(replicaB.connection, router.getConnection());
+        assertFalse(router.getReplicas().get(0).isUp());
+
+        when(replicaB.dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+        assertSame(primary.connection, router.getConnection());
+    }
+
+    @Test
+    void replicaFallingBehindTheLagBudgetStopsReceivingReads() throws SQLException {
+        router.checkHealth();
+        primary.position("0/200");
+        replicaB.position("0/200");
+        for (int i = 0; i < 3; i++) {
+            clock.advance(Duration.ofSeconds(5));
+            router.checkHealth();
+        }
+
+        assertEquals(15.0, meterRegistry.get("chat.datasource.replica.lag").tag("pool", "a").gauge().value());
+        assertSame(replicaB.connection, router.getConnection());
+        assertSame(replicaB.connection, router.getConnection());
+    }
+
+    @Test
+    void tokenAheadOfTheReplicasIsServedByPrimaryUntilTheyCatchUp() throws SQLException {
+        router.checkHealth();
+        ConsistencyToken.require(ConsistencyToken.parse("0/180"));
+
+        assertSame(primary.connection, router.getConnection());
+        assertEquals(1, meterRegistry.counter("chat.datasource.route", "pool", "primary", "reason", "behind-token").count());
+
+        replicaA.position("0/180");
+        Connection first = router.getConnection();
+        Connection second = router.getConnection();
+        assertSame(replicaA.connection, first);
+        assertSame(replicaA.connection, second);
+        assertEquals(0x180L, router.getReplicas().get(0).replayLsn());
+        verify(replicaB.connection, atLeastOnce()).close();
+    }
+
+    private static final class Database {
+
+        final DataSource dataSource = mock(DataSource.class);
+        final Connection connection = mock(Connection.class);
+        private final ResultSet resultSet = mock(ResultSet.class);
+
+        Database(boolean inRecovery, String position) {
+            try {
+                Statement statement = mock(Statement.class);
+                PreparedStatement prepared = mock(PreparedStatement.class);
+                when(dataSource.getConnection()).thenReturn(connection);
+                when(connection.createStatement()).thenReturn(statement);
+                when(connection.prepareStatement(anyString())).thenReturn(prepared);
+                when(statement.executeQuery(anyString())).thenReturn(resultSet);
+                when(prepared.executeQuery()).thenReturn(resultSet);
+                when(resultSet.next()).thenReturn(true);
+                when(resultSet.getBoolean(1)).thenReturn(inRecovery);
+                position(position);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void position(String lsn) throws SQLException {
+            when(resultSet.getString(anyInt())).thenReturn(lsn);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package service;
+
+import com.rag.chat.config.ChatPartitionProperties;
+import com.rag.chat.service.ChatMessagePartitionMaintainer;
+import com.rag.chat.service.ChatMessagePartitionMaintainer.Plan;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChatMessagePartitionMaintainerTest {
+
+    private static final YearMonth NOW = YearMonth.of(2025, 11);
+
+    @Test
+    void plan_createsMissingFutureMonthsAcrossYearBoundary() {
+        ChatPartitionProperties props = new ChatPartitionProperties(true, 3, 0, false, null, null);
+
+        Plan plan = ChatMessagePartitionMaintainer.plan(Set.of(NOW, NOW.plusMonths(1)), NOW, props);
+
+        assertEquals(List.of(YearMonth.of(2026, 1), YearMonth.of(2026, 2)), plan.create());
+        assertTrue(plan.expire().isEmpty());
+    }
+
+    @Test
+    void plan_expiresMonthsOlderThanRetentionOldestFirst() {
+        ChatPartitionProperties props = new ChatPartitionProperties(true, 0, 6, true, null, null);
+        Set<YearMonth> existing = Set.of(NOW, NOW.minusMonths(6), NOW.minusMonths(7), NOW.minusMonths(12));
+
+        Plan plan = ChatMessagePartitionMaintainer.plan(existing, NOW, props);
+
+        assertEquals(List.of(NOW.minusMonths(12), NOW.minusMonths(7)), plan.expire());
+    }
+
+    @Test
+    void properties_defaultsApplied() {
+        ChatPartitionProperties props = new ChatPartitionProperties(true, 0, -1, false, " ", Duration.ZERO);
+
+        assertEquals(3, props.premakeMonths());
+        assertEquals(0, props.retentionMonths());
+        assertEquals("0 15 3 * * *", props.maintenanceCron());
+        assertEquals(Duration.ofSeconds(5), props.detachLockTimeout());
+    }
+
+    @Test
+    void maintain_detachThatTimesOutOnItsLockIsRolledBackAndNotDropped() throws SQLException {
+        String expired = "chat_message_p" + YearMonth.now(ZoneOffset.UTC).minusMonths(24).format(DateTimeFormatter.ofPattern("yyyyMM"));
+        Connection con = mock(Connection.class);
+        Statement st = mock(Statement.class);
+        when(con.createStatement()).thenReturn(st);
+        ResultSet locked = mock(ResultSet.class);
+        when(locked.next()).thenReturn(true);
+        when(locked.getBoolean(1)).thenReturn(true);
+        when(st.executeQuery(startsWith("SELECT pg_try_advisory_lock"))).thenReturn(locked);
+        ResultSet partitions = mock(ResultSet.class);
+        when(partitions.next()).thenReturn(true, false);
+        when(partitions.getString(1)).thenReturn(expired);
+        when(st.executeQuery(contains("pg_inherits"))).thenReturn(partitions);
+        when(st.execute(startsWith("ALTER TABLE chat_message DETACH PARTITION")))
+                .thenThrow(new SQLException("canceling statement due to lock timeout", "55P03"));
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(i -> i.<ConnectionCallback<?>>getArgument(0).doInConnection(con));
+        ChatPartitionProperties props = new ChatPartitionProperties(true, 0, 6, true, null, Duration.ofMillis(1500));
+
+        Plan plan = new ChatMessagePartitionMaintainer(jdbcTemplate, props).maintain();
+
+        assertEquals(1, plan.expire().size());
+        InOrder order = inOrder(con, st);
+        order.verify(st).executeUpdate(contains("UPDATE session_message_stats"));
+        order.verify(st).execute("SET LOCAL lock_timeout = '1500ms'");
+        order.verify(st).execute("ALTER TABLE chat_message DETACH PARTITION " + expired);
+        order.verify(con).rollback();
+        verify(con, never()).commit();
+        verify(st, never()).execute(startsWith("DROP TABLE"));
+        verify(st).execute(startsWith("SELECT pg_advisory_unlock"));
+    }
+}
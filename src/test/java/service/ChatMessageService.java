@@ -67,7 +67,7 @@ public class ChatMessageService {
     public Page<ChatMessage> list(UUID sessionId, Pageable pageable) {
         ChatSession session = sessionRepository.findByIdAndDeletedAtIsNull(sessionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Session not found"));
-        return messageRepository.findBySessionOrderByCreatedAtAsc(session, pageable);
+        return messageRepository.findBySessionOrderBySeqAsc(session, pageable);
     }
 
     private String serialize(Object obj, String fieldName) {
@@ -1,45 +1,115 @@
 package service;
 
+import com.rag.chat.activity.SessionActivityTracker;
+import com.rag.chat.archive.SessionArchive;
+import com.rag.chat.cache.SessionCacheInvalidator;
+import com.rag.chat.cache.SessionExistenceFilter;
+import com.rag.chat.chunk.RetrievedChunkStore;
+import com.rag.chat.config.ChunkStoreProperties;
 import com.rag.chat.dto.request.CreateMessageRequest;
+import com.rag.chat.dto.response.CursorPageResponse;
 import com.rag.chat.entity.ChatMessage;
 import com.rag.chat.entity.ChatSession;
+import com.rag.chat.enums.MessageField;
+import com.rag.chat.enums.ScrollDirection;
 import com.rag.chat.enums.SenderType;
+import com.rag.chat.exception.IdempotencyKeyReusedException;
 import com.rag.chat.exception.ResourceNotFoundException;
+import com.rag.chat.exception.SessionArchivedException;
+import com.rag.chat.idempotency.IdempotencyKeyStore;
+import com.rag.chat.repository.ChatMessageProjectionRepository;
 import com.rag.chat.repository.ChatMessageRepository;
 import com.rag.chat.repository.ChatSessionRepository;
+import com.rag.chat.repository.MessageAppendKeyRepository.AppendKey;
+import com.rag.chat.repository.MessageSequenceRepository;
+import com.rag.chat.repository.MessageView;
+import com.rag.chat.repository.RetrievedChunkRepository;
+import com.rag.chat.repository.SessionStatsRepository;
+import com.rag.chat.repository.SparseViewRepository;
 import com.rag.chat.service.ChatMessageService;
+import com.rag.chat.util.CursorCodec;
+import com.rag.chat.util.UuidV7;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.time.Instant;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class ChatMessageServiceTest {
 
+    private static final Set<MessageField> ALL_FIELDS = EnumSet.allOf(MessageField.class);
+
     @Mock
     private ChatMessageRepository messageRepository;
 
     @Mock
     private ChatSessionRepository sessionRepository;
 
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private SessionCacheInvalidator cacheInvalidator;
+
+    @Mock
+    private ChatMessageProjectionRepository projectionRepository;
+
+    private final RetrievedChunkRepository chunkRepository = mock(RetrievedChunkRepository.class);
+
+    @Spy
+    private RetrievedChunkStore chunkStore =
+            new RetrievedChunkStore(chunkRepository, new ChunkStoreProperties(true, 64, 1 << 20, null));
+
+    @Mock
+    private SessionArchive archive;
+
+    @Mock
+    private SparseViewRepository sparseViewRepository;
+
+    @Mock
+    private IdempotencyKeyStore keyStore;
+
+    @Mock
+    private SessionActivityTracker activityTracker;
+
+    @Mock
+    private MessageSequenceRepository sequenceRepository;
+
+    @Mock
+    private SessionExistenceFilter existenceFilter;
+
+    @Mock
+    private SessionStatsRepository statsRepository;
+
     @InjectMocks
     private ChatMessageService chatMessageService;
 
     private UUID sessionId;
     private ChatSession session;
+    private long nextSeq = 1;
 
     @BeforeEach
     void setUp() {
@@ -47,6 +117,7 @@ class ChatMessageServiceTest {
         sessionId = UUID.randomUUID();
         session = new ChatSession();
         session.setId(sessionId);
+        session.setCreatedAt(Instant.parse("2025-01-01T00:00:00Z"));
         session.setUpdatedAt(Instant.now());
     }
 
@@ -56,22 +127,93 @@ class ChatMessageServiceTest {
         req.setRole(SenderType.USER);
         req.setContent("Hello");
 
-        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(session));
+        when(sessionRepository.lockForAppend(sessionId)).thenReturn(Optional.of(appendTarget("", false)));
+        when(sessionRepository.getReferenceById(sessionId)).thenReturn(session);
 
         ChatMessage savedMessage = new ChatMessage();
         savedMessage.setId(UUID.randomUUID());
         savedMessage.setCreatedAt(Instant.now());
 
-        when(messageRepository.save(any(ChatMessage.class))).thenReturn(savedMessage);
+        when(messageRepository.saveAll(anyList())).thenReturn(List.of(savedMessage));
 
         List<ChatMessage> result = chatMessageService.create(sessionId, List.of(req));
 
         assertNotNull(result);
         assertEquals(savedMessage.getId(), result.get(0).getId());
 
-        ArgumentCaptor<ChatMessage> captor = ArgumentCaptor.forClass(ChatMessage.class);
-        verify(messageRepository).save(captor.capture());
-        assertEquals("Hello", captor.getValue().getContent());
+        ArgumentCaptor<List<ChatMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(messageRepository).saveAll(captor.capture());
+        assertEquals("Hello", captor.getValue().get(0).getContent());
+        verify(messageRepository, never()).save(any(ChatMessage.class));
+    }
+
+    @Test
+    void testCreateMessage_BatchRecordsActivityWithoutWritingSession() {
+        CreateMessageRequest first = new CreateMessageRequest();
+        first.setRole(SenderType.USER);
+        first.setContent("Hello");
+        CreateMessageRequest second = new CreateMessageRequest();
+        second.setRole(SenderType.ASSISTANT);
+        second.setContent("Hi there");
+
+        when(sessionRepository.lockForAppend(sessionId)).thenReturn(Optional.of(appendTarget("", false)));
+        when(sessionRepository.getReferenceById(sessionId)).thenReturn(session);
+        when(messageRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<ChatMessage> result = chatMessageService.create(sessionId, List.of(first, second));
+
+        assertEquals(2, result.size());
+        assertSame(session, result.get(1).getSession());
+        verify(sessionRepository, times(1)).lockForAppend(sessionId);
+        verify(sessionRepository, never()).findByIdAndDeletedAtIsNull(sessionId);
+        verify(sessionRepository, never()).save(any(ChatSession.class));
+        verify(activityTracker, times(1)).recordAfterCommit(eq(sessionId), any(Instant.class));
+        verify(cacheInvalidator, times(1)).evictSessionMessages(sessionId);
+    }
+
+    @Test
+    void testCreateMessage_NumbersBatchFromSessionSequence() {
+        when(sessionRepository.lockForAppend(sessionId)).thenReturn(Optional.of(appendTarget("", false)));
+        when(sessionRepository.getReferenceById(sessionId)).thenReturn(session);
+        when(sequenceRepository.allocate(sessionId, 3)).thenReturn(12L);
+        when(messageRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<ChatMessage> result = chatMessageService.create(sessionId, List.of(request("a"), request("b"), request("c")));
+
+        assertEquals(List.of(10L, 11L, 12L), result.stream().map(ChatMessage::getSeq).toList());
+        verify(sequenceRepository, times(1)).allocate(sessionId, 3);
+        verify(statsRepository).addAppended(eq(sessionId), eq(10L), eq(12L), any(Instant.class));
+    }
+
+    @Test
+    void testCreateMessage_LargeChunksStoredOnceAndReferenced() {
+        String text = "Shared evidence passage about vector index tuning. ".repeat(4);
+        Map<String, Object> chunk = Map.of("id", "doc-1#p3", "score", 0.9, "text", text);
+        CreateMessageRequest first = new CreateMessageRequest();
+        first.setRole(SenderType.AI);
+        first.setContent("a");
+        first.setRetrievedContext(Map.of("chunks", List.of(chunk)));
+        CreateMessageRequest second = new CreateMessageRequest();
+        second.setRole(SenderType.AI);
+        second.setContent("b");
+        second.setRetrievedContext(Map.of("chunks", List.of(chunk)));
+        when(sessionRepository.lockForAppend(sessionId)).thenReturn(Optional.of(appendTarget("", false)));
+        when(sessionRepository.getReferenceById(sessionId)).thenReturn(session);
+        when(messageRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<ChatMessage> saved = chatMessageService.create(sessionId, List.of(first, second));
+
+        ArgumentCaptor<Map<String, String>> chunks = ArgumentCaptor.forClass(Map.class);
+        verify(chunkRepository).insertMissing(chunks.capture());
+        assertEquals(1, chunks.getValue().size());
+        assertTrue(chunks.getValue().values().iterator().next().contains("vector index tuning"));
+        assertFalse(saved.get(0).getRetrievedContext().contains("vector index tuning"));
+        assertTrue(saved.get(0).getRetrievedContext().contains("\"id\":\"doc-1#p3\""));
+        assertEquals(saved.get(0).getRetrievedContext(), saved.get(1).getRetrievedContext());
+
+        Map<UUID, String> contexts = chatMessageService.retrievedContexts(saved.stream().map(MessageView::of).toList());
+        assertTrue(contexts.get(saved.get(0).getId()).contains("vector index tuning"));
+        verify(chunkRepository, never()).findByHashes(any());
     }
 
     @Test
@@ -80,9 +222,113 @@ class ChatMessageServiceTest {
         req.setRole(SenderType.USER);
         req.setContent("Hello");
 
-        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.empty());
+        when(sessionRepository.lockForAppend(sessionId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> chatMessageService.create(sessionId, List.of(req)));
+        verify(messageRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testCreateMessage_OtherOwnersSessionIsNotFound() {
+        when(sessionRepository.lockForAppend(sessionId)).thenReturn(Optional.of(appendTarget("someone-else", false)));
+
+        assertThrows(ResourceNotFoundException.class, () -> chatMessageService.create(sessionId, List.of(request("Hello"))));
+        verify(messageRepository, never()).saveAll(anyList());
+        verify(existenceFilter, never()).recordMissing(any());
+    }
+
+    @Test
+    void testScrollMessages_OtherOwnersSessionIsNotFound() {
+        session.setOwnerId("someone-else");
+        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(session));
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> chatMessageService.scroll(sessionId, null, ScrollDirection.FORWARD, 20));
+        verifyNoInteractions(messageRepository);
+        verify(existenceFilter, never()).recordMissing(any());
+    }
+
+    @Test
+    void testCreateMessage_ArchivedSessionRejectsAppend() {
+        CreateMessageRequest req = new CreateMessageRequest();
+        req.setRole(SenderType.USER);
+        req.setContent("Hello");
+
+        when(sessionRepository.lockForAppend(sessionId)).thenReturn(Optional.of(appendTarget("", true)));
+
+        assertThrows(SessionArchivedException.class, () -> chatMessageService.create(sessionId, List.of(req)));
+        verify(messageRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testAppend_NewIdempotencyKeyIsClaimedAndCompleted() {
+        CreateMessageRequest req = request("Hello");
+        byte[] fingerprint = IdempotencyKeyStore.fingerprint(List.of(req));
+        ChatMessage saved = message(Instant.now());
+        when(keyStore.find(sessionId, "retry-1")).thenReturn(Optional.empty());
+        when(sessionRepository.lockForAppend(sessionId)).thenReturn(Optional.of(appendTarget("", false)));
+        when(keyStore.claim(eq(sessionId), eq("retry-1"), aryEq(fingerprint))).thenReturn(true);
+        when(sessionRepository.getReferenceById(sessionId)).thenReturn(session);
+        when(messageRepository.saveAll(anyList())).thenReturn(List.of(saved));
+
+        ChatMessageService.Appended result = chatMessageService.append(sessionId, "retry-1", List.of(req));
+
+        assertFalse(result.replayed());
+        verify(keyStore).complete(eq(sessionId), eq("retry-1"), aryEq(fingerprint), eq(List.of(saved.getId())));
+    }
+
+    @Test
+    void testAppend_RetryReplaysWithoutWriting() {
+        CreateMessageRequest req = request("Hello");
+        ChatMessage first = message(Instant.parse("2025-01-01T00:00:00Z"));
+        ChatMessage second = message(Instant.parse("2025-01-01T00:00:01Z"));
+        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(session));
+        when(keyStore.find(sessionId, "retry-1")).thenReturn(Optional.of(
+                new AppendKey(IdempotencyKeyStore.fingerprint(List.of(req)), List.of(first.getId(), second.getId()))));
+        when(messageRepository.findAllById(anyList())).thenReturn(List.of(second, first));
+
+        ChatMessageService.Appended result = chatMessageService.append(sessionId, "retry-1", List.of(req));
+
+        assertTrue(result.replayed());
+        assertEquals(List.of(first, second), result.messages());
+        verify(sessionRepository, never()).lockForAppend(any());
+        verify(messageRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testAppend_KeyReusedForDifferentBodyIsRejected() {
+        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(session));
+        when(keyStore.find(sessionId, "retry-1")).thenReturn(Optional.of(
+                new AppendKey(IdempotencyKeyStore.fingerprint(List.of(request("Hello"))), List.of(UUID.randomUUID()))));
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> chatMessageService.append(sessionId, "retry-1", List.of(request("Goodbye"))));
+        verify(messageRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testAppend_ConcurrentRetryThatLostTheClaimReplays() {
+        CreateMessageRequest req = request("Hello");
+        ChatMessage saved = message(Instant.now());
+        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(session));
+        when(keyStore.find(sessionId, "retry-1")).thenReturn(Optional.empty(), Optional.of(
+                new AppendKey(IdempotencyKeyStore.fingerprint(List.of(req)), List.of(saved.getId()))));
+        when(sessionRepository.lockForAppend(sessionId)).thenReturn(Optional.of(appendTarget("", false)));
+        when(keyStore.claim(eq(sessionId), eq("retry-1"), any())).thenReturn(false);
+        when(messageRepository.findAllById(anyList())).thenReturn(List.of(saved));
+
+        ChatMessageService.Appended result = chatMessageService.append(sessionId, "retry-1", List.of(req));
+
+        assertTrue(result.replayed());
+        assertEquals(List.of(saved), result.messages());
+        verify(messageRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testAppend_InvalidIdempotencyKey() {
+        assertThrows(IllegalArgumentException.class,
+                () -> chatMessageService.append(sessionId, "has space", List.of(request("Hello"))));
+        verifyNoInteractions(keyStore);
     }
 
     @Test
@@ -107,17 +353,276 @@ class ChatMessageServiceTest {
 
 
     @Test
-    void testListMessages_Success() {
-        Pageable pageable = mock(Pageable.class);
+    void testListMessages_SingleQueryWhenPageHasRows() {
+        Pageable pageable = PageRequest.of(0, 20);
+        MessageView view = MessageView.of(message(Instant.parse("2025-01-01T00:00:00Z")));
+        when(messageRepository.findViews(sessionId, "", Instant.EPOCH, pageable)).thenReturn(List.of(view));
+
+        Page<MessageView> result = chatMessageService.list(sessionId, ALL_FIELDS, pageable);
+
+        assertEquals(List.of(view), result.getContent());
+        verifyNoInteractions(sessionRepository);
+    }
+
+    @Test
+    void testListMessages_TotalFromMaintainedCountInsteadOfCountQuery() {
+        Pageable pageable = PageRequest.of(0, 2);
+        List<MessageView> rows = List.of(MessageView.of(message(Instant.parse("2025-01-01T00:00:00Z"))),
+                MessageView.of(message(Instant.parse("2025-01-01T00:00:01Z"))));
+        when(messageRepository.findViews(sessionId, "", Instant.EPOCH, pageable)).thenReturn(rows);
+        when(statsRepository.messageCount(sessionId)).thenReturn(5L);
+
+        Page<MessageView> result = chatMessageService.list(sessionId, ALL_FIELDS, pageable);
+
+        assertEquals(5, result.getTotalElements());
+        assertEquals(3, result.getTotalPages());
+    }
+
+    @Test
+    void testListMessages_PartitionBoundFromUuidV7SessionId() {
+        UUID v7 = UuidV7.generate();
+        Pageable pageable = PageRequest.of(0, 20);
+        Instant since = ChatMessageService.pruneFrom(UuidV7.timestamp(v7));
+        when(messageRepository.findViews(v7, "", since, pageable))
+                .thenReturn(List.of(MessageView.of(message(Instant.now()))));
+
+        assertEquals(1, chatMessageService.list(v7, ALL_FIELDS, pageable).getNumberOfElements());
+        verify(messageRepository).findViews(v7, "", since, pageable);
+    }
+
+    @Test
+    void testListMessages_EmptyPageOfMissingSessionIsNotFound() {
+        Pageable pageable = PageRequest.of(0, 20);
+        when(messageRepository.findViews(sessionId, "", Instant.EPOCH, pageable)).thenReturn(List.of());
+        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> chatMessageService.list(sessionId, ALL_FIELDS, pageable));
+        verify(existenceFilter).recordMissing(sessionId);
+    }
+
+    @Test
+    void testListMessages_KnownMissingSessionSkipsQueries() {
+        Pageable pageable = PageRequest.of(0, 20);
+        doThrow(new ResourceNotFoundException("session.not.found")).when(existenceFilter).rejectKnownMissing(sessionId);
+
+        assertThrows(ResourceNotFoundException.class, () -> chatMessageService.list(sessionId, ALL_FIELDS, pageable));
+        verifyNoInteractions(messageRepository, sessionRepository);
+    }
+
+    @Test
+    void testListMessages_EmptySessionReturnsEmptyPage() {
+        Pageable pageable = PageRequest.of(0, 20);
+        when(messageRepository.findViews(sessionId, "", Instant.EPOCH, pageable)).thenReturn(List.of());
         when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(session));
 
-        ChatMessage message = new ChatMessage();
-        Page<ChatMessage> page = new PageImpl<>(java.util.List.of(message));
-        when(messageRepository.findBySessionOrderByCreatedAtAsc(session, pageable)).thenReturn(page);
+        assertTrue(chatMessageService.list(sessionId, ALL_FIELDS, pageable).isEmpty());
+        verifyNoInteractions(archive);
+    }
 
-        Page<ChatMessage> result = chatMessageService.list(sessionId, pageable);
+    @Test
+    void testListMessages_ArchivedSessionServedFromArchive() {
+        session.setArchivedAt(Instant.now());
+        session.setArchiveSegment(1);
+        List<ChatMessage> archived = List.of(
+                message(Instant.parse("2025-01-01T00:00:00Z")),
+                message(Instant.parse("2025-01-01T00:00:01Z")),
+                message(Instant.parse("2025-01-01T00:00:02Z")));
+        Pageable pageable = PageRequest.of(1, 2);
+        when(messageRepository.findViews(sessionId, "", Instant.EPOCH, pageable)).thenReturn(List.of());
+        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(session));
+        when(archive.slice(session, 2, 2)).thenReturn(archived.subList(2, 3));
+
+        Page<MessageView> result = chatMessageService.list(sessionId, ALL_FIELDS, pageable);
 
-        assertFalse(result.isEmpty());
-        verify(messageRepository).findBySessionOrderByCreatedAtAsc(session, pageable);
+        assertEquals(List.of(MessageView.of(archived.get(2))), result.getContent());
+        assertEquals(3, result.getTotalElements());
+    }
+
+    @Test
+    void testListMessages_SparseFieldsSelectOnlyTheirColumns() {
+        Pageable pageable = PageRequest.of(0, 20);
+        Set<MessageField> fields = EnumSet.of(MessageField.ID, MessageField.ROLE, MessageField.CONTENT);
+        MessageView view = new MessageView(UUID.randomUUID(), null, null, SenderType.USER, "Hello", null, null, null);
+        when(sparseViewRepository.findMessageViews(sessionId, "", Instant.EPOCH, fields, pageable))
+                .thenReturn(List.of(view));
+
+        assertEquals(List.of(view), chatMessageService.list(sessionId, fields, pageable).getContent());
+        verify(messageRepository, never()).findViews(any(), any(), any(), any());
+    }
+
+    @Test
+    void testListMessages_SparseFieldsAppliedToArchivedSession() {
+        session.setArchivedAt(Instant.now());
+        session.setArchiveSegment(1);
+        ChatMessage archived = message(Instant.parse("2025-01-01T00:00:00Z"));
+        archived.setMetadata("{\"client\":\"web\"}");
+        Pageable pageable = PageRequest.of(0, 20);
+        Set<MessageField> fields = EnumSet.of(MessageField.ID, MessageField.CONTENT);
+        when(sparseViewRepository.findMessageViews(sessionId, "", Instant.EPOCH, fields, pageable)).thenReturn(List.of());
+        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(session));
+        when(archive.slice(session, 0, 20)).thenReturn(List.of(archived));
+
+        MessageView view = chatMessageService.list(sessionId, fields, pageable).getContent().get(0);
+
+        assertEquals(archived.getId(), view.id());
+        assertEquals(archived.getContent(), view.content());
+        assertNull(view.metadata());
+        assertNull(view.createdAt());
+    }
+
+    @Test
+    void testScrollMessages_ArchivedSessionSeeksInArchive() {
+        session.setArchivedAt(Instant.now());
+        session.setArchiveSegment(1);
+        ChatMessage first = message(Instant.parse("2025-01-01T00:00:00Z"));
+        ChatMessage second = message(Instant.parse("2025-01-01T00:00:01Z"));
+        ChatMessage third = message(Instant.parse("2025-01-01T00:00:02Z"));
+        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(session));
+        when(archive.after(session, 0, 3)).thenReturn(List.of(first, second, third));
+        when(archive.after(session, second.getSeq(), 3)).thenReturn(List.of(third));
+        when(archive.before(session, third.getSeq(), 3)).thenReturn(List.of(second, first));
+
+        CursorPageResponse<ChatMessage> page = chatMessageService.scroll(sessionId, null, ScrollDirection.FORWARD, 2);
+        assertEquals(List.of(first, second), page.getContent());
+        assertTrue(page.isHasNext());
+
+        CursorPageResponse<ChatMessage> next = chatMessageService.scroll(sessionId, page.getNext(), ScrollDirection.FORWARD, 2);
+        assertEquals(List.of(third), next.getContent());
+        assertFalse(next.isHasNext());
+        assertTrue(next.isHasPrevious());
+
+        CursorPageResponse<ChatMessage> prev = chatMessageService.scroll(sessionId, next.getPrev(), ScrollDirection.FORWARD, 2);
+        assertEquals(List.of(first, second), prev.getContent());
+        verify(archive, never()).read(any());
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void testScrollMessages_ForwardFromOldestReturnsNextCursor() {
+        ChatMessage first = message(Instant.parse("2025-01-01T00:00:00Z"));
+        ChatMessage second = message(Instant.parse("2025-01-01T00:00:01Z"));
+        ChatMessage lookAhead = message(Instant.parse("2025-01-01T00:00:02Z"));
+        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(session));
+        when(messageRepository.findOldest(eq(sessionId), eq(ChatMessageService.pruneFrom(session.getCreatedAt())), any(Pageable.class))).thenReturn(List.of(first, second, lookAhead));
+
+        CursorPageResponse<ChatMessage> page = chatMessageService.scroll(sessionId, null, ScrollDirection.FORWARD, 2);
+
+        assertEquals(List.of(first, second), page.getContent());
+        assertTrue(page.isHasNext());
+        assertFalse(page.isHasPrevious());
+        assertNull(page.getPrev());
+        CursorCodec.SequenceCursor next = CursorCodec.decodeSequence(page.getNext());
+        assertEquals(ScrollDirection.FORWARD, next.direction());
+        assertEquals(second.getSeq(), next.seq());
+        verify(messageRepository, never()).findBySessionAndCreatedAtGreaterThanEqualOrderBySeqAsc(any(), any(), any());
+    }
+
+    @Test
+    void testScrollMessages_BackwardCursorSeeksBeforeAndKeepsAscendingOrder() {
+        ChatMessage older = message(Instant.parse("2025-01-01T00:00:04Z"));
+        ChatMessage newer = message(Instant.parse("2025-01-01T00:00:04Z"));
+        String cursor = CursorCodec.encode(ScrollDirection.BACKWARD, newer.getSeq() + 1);
+        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(session));
+        when(messageRepository.findBefore(eq(sessionId), any(Instant.class), eq(newer.getSeq() + 1), any(Pageable.class)))
+                .thenReturn(List.of(newer, older));
+
+        CursorPageResponse<ChatMessage> page = chatMessageService.scroll(sessionId, cursor, ScrollDirection.FORWARD, 5);
+
+        assertEquals(List.of(older, newer), page.getContent());
+        assertTrue(page.isHasNext());
+        assertFalse(page.isHasPrevious());
+        assertEquals(newer.getSeq(), CursorCodec.decodeSequence(page.getNext()).seq());
+    }
+
+    @Test
+    void testScrollMessages_SessionNotFound() {
+        when(sessionRepository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class,
+                () -> chatMessageService.scroll(sessionId, null, ScrollDirection.FORWARD, 20));
+    }
+
+    @Test
+    void testProjectMessages_PushesValidatedPathsToRepository() {
+        MessageView m = MessageView.of(message(Instant.now()));
+        when(projectionRepository.project(anyList(), anyList()))
+                .thenReturn(Map.of(m.id(), "{\"retrievedContext.chunks[*].id\": [\"d1\"]}"));
+
+        Map<UUID, String> result = chatMessageService.project(List.of(m), List.of("retrievedContext.chunks[*].id"));
+
+        assertEquals(1, result.size());
+        verify(projectionRepository).project(eq(List.of(m.id())),
+                argThat(p -> p.size() == 1 && p.get(0).jsonPath().equals("$.\"chunks\"[*].\"id\"")));
+    }
+
+    @Test
+    void testProjectMessages_ArchivedMessagesProjectedFromDocuments() {
+        ChatMessage archived = message(Instant.now());
+        archived.setRetrievedContext("{\"chunks\": [{\"id\": \"d1\"}]}");
+        MessageView m = MessageView.of(archived);
+        when(projectionRepository.project(anyList(), anyList())).thenReturn(Map.of());
+        when(projectionRepository.projectDocuments(eq(List.of(m)), anyList()))
+                .thenReturn(Map.of(m.id(), "{\"retrievedContext.chunks[*].id\": [\"d1\"]}"));
+
+        Map<UUID, String> result = chatMessageService.project(List.of(m), List.of("retrievedContext.chunks[*].id"));
+
+        assertEquals("{\"retrievedContext.chunks[*].id\": [\"d1\"]}", result.get(m.id()));
+    }
+
+    @Test
+    void testProjectMessages_ArchivedChunkReferencesResolvedBeforeProjection() {
+        String hash = "ab".repeat(32);
+        ChatMessage archived = message(Instant.now());
+        archived.setRetrievedContext("{\"chunks\": [{\"id\": \"d1\", \"score\": 0.9, \"$chunk\": \"" + hash + "\"}]}");
+        MessageView m = MessageView.of(archived);
+        when(chunkRepository.findByHashes(List.of(hash))).thenReturn(Map.of(hash, "{\"text\": \"chunk body\"}"));
+        when(projectionRepository.project(anyList(), anyList())).thenReturn(Map.of());
+        when(projectionRepository.projectDocuments(anyList(), anyList()))
+                .thenReturn(Map.of(m.id(), "{\"retrievedContext.chunks[*].text\": [\"chunk body\"]}"));
+
+        Map<UUID, String> result = chatMessageService.project(List.of(m), List.of("retrievedContext.chunks[*].text"));
+
+        assertEquals("{\"retrievedContext.chunks[*].text\": [\"chunk body\"]}", result.get(m.id()));
+        verify(projectionRepository).projectDocuments(argThat(docs -> docs.size() == 1
+                        && docs.get(0).retrievedContext().contains("\"text\":\"chunk body\"")
+                        && !docs.get(0).retrievedContext().contains(RetrievedChunkStore.REF_FIELD)),
+                argThat(p -> p.get(0).jsonPath().equals("$.\"chunks\"[*].\"text\"")));
+    }
+
+    @Test
+    void testProjectMessages_NoProjectionSkipsQuery() {
+        assertTrue(chatMessageService.project(List.of(MessageView.of(message(Instant.now()))), null).isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> chatMessageService.project(List.of(), List.of("content")));
+        verifyNoInteractions(projectionRepository);
+    }
+
+    private static ChatSessionRepository.AppendTarget appendTarget(String ownerId, boolean archived) {
+        return new ChatSessionRepository.AppendTarget() {
+            @Override
+            public String getOwnerId() {
+                return ownerId;
+            }
+
+            @Override
+            public boolean getArchived() {
+                return archived;
+            }
+        };
+    }
+
+    private ChatMessage message(Instant createdAt) {
+        ChatMessage m = new ChatMessage();
+        m.setId(UUID.randomUUID());
+        m.setSeq(nextSeq++);
+        m.setSession(session);
+        m.setCreatedAt(createdAt);
+        return m;
+    }
+
+    private static CreateMessageRequest request(String content) {
+        CreateMessageRequest req = new CreateMessageRequest();
+        req.setRole(SenderType.USER);
+        req.setContent(content);
+        return req;
     }
-}
\ No newline at end of file
+}
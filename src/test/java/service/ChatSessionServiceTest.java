@@ -1,11 +1,20 @@
 package service;
 
+import com.rag.chat.cache.SessionCacheInvalidator;
+import com.rag.chat.cache.SessionExistenceFilter;
+import com.rag.chat.dto.request.BatchUpdateSessionsRequest;
 import com.rag.chat.dto.request.CreateSessionRequest;
 import com.rag.chat.dto.request.UpdateSessionRequest;
+import com.rag.chat.dto.response.CursorPageResponse;
 import com.rag.chat.entity.ChatSession;
+import com.rag.chat.enums.ScrollDirection;
 import com.rag.chat.exception.ResourceNotFoundException;
 import com.rag.chat.repository.ChatSessionRepository;
+import com.rag.chat.repository.SessionBatchRepository;
+import com.rag.chat.repository.SessionStatsRepository;
 import com.rag.chat.service.ChatSessionService;
+import com.rag.chat.util.CursorCodec;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -15,13 +24,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class ChatSessionServiceTest {
@@ -29,6 +42,17 @@ class ChatSessionServiceTest {
     @Mock
     private ChatSessionRepository repository;
 
+    @Mock
+    private SessionCacheInvalidator cacheInvalidator;
+
+    @Mock
+    private SessionExistenceFilter existenceFilter;
+
+    @Mock
+    private SessionStatsRepository statsRepository;
+
+    @Mock
+    private SessionBatchRepository batchRepository;
 
     @InjectMocks
     private ChatSessionService chatSessionService;
@@ -49,6 +73,11 @@ class ChatSessionServiceTest {
 
     }
 
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     void create_shouldSaveAndReturnSession() {
         CreateSessionRequest req = new CreateSessionRequest();
@@ -64,9 +93,24 @@ class ChatSessionServiceTest {
 
         assertNotNull(result.getId());
         assertEquals("Test Session", result.getTitle());
+        assertEquals("", result.getOwnerId());
         verify(repository, times(1)).save(any(ChatSession.class));
     }
 
+    @Test
+    void create_shouldOwnSessionByJwtSubject() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("user-42", null, List.of()));
+        when(repository.save(any(ChatSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CreateSessionRequest req = new CreateSessionRequest();
+        req.setTitle("Owned");
+
+        ChatSession result = chatSessionService.create(req);
+
+        assertEquals("user-42", result.getOwnerId());
+    }
+
 
     @Test
     void getOrThrow_shouldReturnSessionIfExists() {
@@ -79,6 +123,25 @@ class ChatSessionServiceTest {
     void getOrThrow_shouldThrowIfNotFound() {
         when(repository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> chatSessionService.getOrThrow(sessionId));
+        verify(existenceFilter).recordMissing(sessionId);
+    }
+
+    @Test
+    void getOrThrow_shouldThrowForOtherOwnersSession() {
+        chatSession.setOwnerId("someone-else");
+        when(repository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(chatSession));
+        assertThrows(ResourceNotFoundException.class, () -> chatSessionService.getOrThrow(sessionId));
+        verify(existenceFilter, never()).recordMissing(sessionId);
+    }
+
+    @Test
+    void getOrThrow_knownMissingId_shouldNotQuery() {
+        doThrow(new ResourceNotFoundException("session.not.found")).when(existenceFilter).rejectKnownMissing(sessionId);
+
+        ResourceNotFoundException e = assertThrows(ResourceNotFoundException.class, () -> chatSessionService.getOrThrow(sessionId));
+
+        assertEquals(0, e.getStackTrace().length);
+        verifyNoInteractions(repository);
     }
 
     @Test
@@ -86,12 +149,12 @@ class ChatSessionServiceTest {
         Pageable pageable = PageRequest.of(0, 10);
         Page<ChatSession> page = new PageImpl<>(List.of(chatSession), pageable, 1);
 
-        when(repository.findByFavoriteIsTrueAndDeletedAtIsNull(pageable)).thenReturn(page);
+        when(repository.findByOwnerIdAndFavoriteIsTrueAndDeletedAtIsNull("user-42", pageable)).thenReturn(page);
 
-        Page<ChatSession> result = chatSessionService.list(pageable);
+        Page<ChatSession> result = chatSessionService.list("user-42", pageable);
 
         assertEquals(1, result.getTotalElements());
-        verify(repository, times(1)).findByFavoriteIsTrueAndDeletedAtIsNull(pageable);
+        verify(repository, times(1)).findByOwnerIdAndFavoriteIsTrueAndDeletedAtIsNull("user-42", pageable);
     }
 
     @Test
@@ -126,6 +189,22 @@ class ChatSessionServiceTest {
         assertTrue(result.isFavorite());
     }
 
+    @Test
+    void update_shouldSetAndClearRetention() {
+        when(repository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.of(chatSession));
+        when(repository.save(any(ChatSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        UpdateSessionRequest set = new UpdateSessionRequest();
+        set.setRetentionDays(30);
+        assertEquals(30, chatSessionService.update(sessionId, set).getRetentionDays());
+
+        assertEquals(30, chatSessionService.update(sessionId, new UpdateSessionRequest()).getRetentionDays());
+
+        UpdateSessionRequest clear = new UpdateSessionRequest();
+        clear.setRetentionDays(0);
+        assertNull(chatSessionService.update(sessionId, clear).getRetentionDays());
+    }
+
     @Test
     void update_shouldThrowIfSessionNotFound() {
         UpdateSessionRequest req = new UpdateSessionRequest();
@@ -145,6 +224,8 @@ class ChatSessionServiceTest {
 
         assertNotNull(chatSession.getDeletedAt());
         verify(repository, times(1)).save(chatSession);
+        verify(cacheInvalidator).evictSessionMessages(sessionId);
+        verify(existenceFilter).recordDeleted(sessionId);
     }
 
     @Test
@@ -152,4 +233,125 @@ class ChatSessionServiceTest {
         when(repository.findByIdAndDeletedAtIsNull(sessionId)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> chatSessionService.delete(sessionId));
     }
+
+    @Test
+    void getAll_shouldSkipKnownMissingAndRecordMisses() {
+        UUID knownMissing = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        when(existenceFilter.isKnownMissing(knownMissing)).thenReturn(true);
+        when(batchRepository.findLive(List.of(sessionId, missing))).thenReturn(List.of(chatSession));
+
+        List<ChatSession> result = chatSessionService.getAll(List.of(sessionId, knownMissing, missing, sessionId));
+
+        assertEquals(List.of(chatSession), result);
+        verify(existenceFilter).recordMissing(missing);
+        verify(existenceFilter, never()).recordMissing(sessionId);
+    }
+
+    @Test
+    void getAll_shouldLeaveOutOtherOwnersSessionsWithoutRecordingThemMissing() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("user-42", null, List.of()));
+        chatSession.setOwnerId("user-42");
+        ChatSession foreign = new ChatSession();
+        foreign.setId(UUID.randomUUID());
+        foreign.setOwnerId("user-7");
+        when(batchRepository.findLive(List.of(sessionId, foreign.getId()))).thenReturn(List.of(chatSession, foreign));
+
+        List<ChatSession> result = chatSessionService.getAll(List.of(sessionId, foreign.getId()));
+
+        assertEquals(List.of(chatSession), result);
+        verify(existenceFilter, never()).recordMissing(any());
+    }
+
+    @Test
+    void deleteAll_shouldLeaveOtherOwnersSessionsUntouched() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("user-42", null, List.of()));
+        UUID foreign = UUID.randomUUID();
+        when(batchRepository.softDelete(eq(Set.of(sessionId, foreign)), eq("user-42"), any(Instant.class)))
+                .thenReturn(List.of(sessionId));
+
+        List<UUID> deleted = chatSessionService.deleteAll(List.of(sessionId, foreign));
+
+        assertEquals(List.of(sessionId), deleted);
+        verify(cacheInvalidator).evictSessions(List.of(sessionId));
+        verify(cacheInvalidator).evictSessionMessages(List.of(sessionId));
+        verify(existenceFilter).recordDeleted(List.of(sessionId));
+        verify(existenceFilter, never()).recordDeleted(foreign);
+    }
+
+    @Test
+    void updateAll_shouldRunOneStatementAndEvictUpdatedSessions() {
+        UUID other = UUID.randomUUID();
+        BatchUpdateSessionsRequest req = new BatchUpdateSessionsRequest();
+        req.setIds(List.of(sessionId, other));
+        req.setFavorite(true);
+        when(batchRepository.update(Set.of(sessionId, other), "", null, true, null)).thenReturn(List.of(sessionId));
+
+        List<UUID> updated = chatSessionService.updateAll(req);
+
+        assertEquals(List.of(sessionId), updated);
+        verify(cacheInvalidator).evictSessions(List.of(sessionId));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void deleteAll_shouldSoftDeleteAndEvictOnce() {
+        UUID other = UUID.randomUUID();
+        when(batchRepository.softDelete(eq(Set.of(sessionId, other)), eq(""), any(Instant.class))).thenReturn(List.of(sessionId, other));
+
+        List<UUID> deleted = chatSessionService.deleteAll(List.of(sessionId, other));
+
+        assertEquals(List.of(sessionId, other), deleted);
+        verify(cacheInvalidator).evictSessions(deleted);
+        verify(cacheInvalidator).evictSessionMessages(deleted);
+        verify(existenceFilter).recordDeleted(deleted);
+    }
+
+    @Test
+    void scroll_shouldStartFromMostRecentFavorites() {
+        ChatSession older = new ChatSession();
+        older.setId(UUID.randomUUID());
+        older.setUpdatedAt(chatSession.getUpdatedAt().minusSeconds(60));
+
+        when(repository.findFavoritesNewest(eq("user-42"), any(Pageable.class))).thenReturn(List.of(chatSession, older));
+
+        CursorPageResponse<ChatSession> page = chatSessionService.scroll("user-42", null, ScrollDirection.FORWARD, 1);
+
+        assertEquals(List.of(chatSession), page.getContent());
+        assertTrue(page.isHasNext());
+        CursorCodec.Cursor next = CursorCodec.decode(page.getNext());
+        assertEquals(chatSession.getId(), next.id());
+        assertEquals(chatSession.getUpdatedAt(), next.timestamp());
+        verify(repository, never()).findByOwnerIdAndFavoriteIsTrueAndDeletedAtIsNull(any(), any(Pageable.class));
+    }
+
+    @Test
+    void scroll_shouldSeekAfterCursor() {
+        Instant ts = Instant.now();
+        UUID id = UUID.randomUUID();
+        String cursor = CursorCodec.encode(ScrollDirection.FORWARD, ts, id);
+        when(repository.findFavoritesAfter(eq("user-42"), eq(ts), eq(id), any(Pageable.class))).thenReturn(List.of(chatSession));
+
+        CursorPageResponse<ChatSession> page = chatSessionService.scroll("user-42", cursor, ScrollDirection.FORWARD, 10);
+
+        assertEquals(1, page.getSize());
+        assertFalse(page.isHasNext());
+        assertTrue(page.isHasPrevious());
+        assertEquals(chatSession.getId(), CursorCodec.decode(page.getPrev()).id());
+    }
+
+    @Test
+    void recent_shouldSeekAllOwnedSessions() {
+        Instant ts = Instant.now();
+        UUID id = UUID.randomUUID();
+        String cursor = CursorCodec.encode(ScrollDirection.FORWARD, ts, id);
+        when(repository.findRecentAfter(eq("user-42"), eq(ts), eq(id), any(Pageable.class))).thenReturn(List.of(chatSession));
+
+        CursorPageResponse<ChatSession> page = chatSessionService.recent("user-42", cursor, ScrollDirection.FORWARD, 10);
+
+        assertEquals(List.of(chatSession), page.getContent());
+        verify(repository, never()).findFavoritesAfter(any(), any(), any(), any(Pageable.class));
+    }
 }
@@ -0,0 +1,187 @@
+package service;
+
+import com.rag.chat.activity.SessionActivityTracker;
+import com.rag.chat.archive.SessionArchive;
+import com.rag.chat.cache.SessionCacheInvalidator;
+import com.rag.chat.config.IdempotencyProperties;
+import com.rag.chat.config.PurgeProperties;
+import com.rag.chat.repository.MessageAppendKeyRepository;
+import com.rag.chat.repository.SessionPurgeRepository;
+import com.rag.chat.repository.SessionPurgeRepository.PurgeCandidate;
+import com.rag.chat.service.ChatMessageService;
+import com.rag.chat.service.SessionPurger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SessionPurgerTest {
+
+    private static final long ARCHIVE_LOCK_KEY = 0x63686174_61726368L; // SessionArchiver's "chatarch"
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SessionPurgeRepository purgeRepository = mock(SessionPurgeRepository.class);
+    private final SessionCacheInvalidator cacheInvalidator = mock(SessionCacheInvalidator.class);
+    private final SessionActivityTracker activityTracker = mock(SessionActivityTracker.class);
+    private final SessionArchive archive = mock(SessionArchive.class);
+    private final MessageAppendKeyRepository appendKeyRepository = mock(MessageAppendKeyRepository.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResultSet lockResult = mock(ResultSet.class);
+    private final ResultSet archiveLockResult = mock(ResultSet.class);
+
+    private final PurgeProperties properties = new PurgeProperties(true, Duration.ofDays(30), 2, 1,
+            Duration.ofSeconds(10), Duration.ZERO, Duration.ofMinutes(1), null);
+
+    private SessionPurger purger;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(startsWith("SELECT pg_try_advisory_lock"))).thenReturn(lockResult);
+        when(lockResult.next()).thenReturn(true);
+        when(lockResult.getBoolean(1)).thenReturn(true);
+        when(statement.executeQuery("SELECT pg_try_advisory_lock(" + ARCHIVE_LOCK_KEY + ")")).thenReturn(archiveLockResult);
+        when(archiveLockResult.next()).thenReturn(true);
+        when(archiveLockResult.getBoolean(1)).thenReturn(true);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        when(purgeRepository.expireRetention(any(), anyInt())).thenReturn(List.of());
+        purger = new SessionPurger(jdbcTemplate, purgeRepository, cacheInvalidator, activityTracker, archive, properties,
+                appendKeyRepository, new IdempotencyProperties(Duration.ofDays(1), 0), meterRegistry);
+    }
+
+    @Test
+    void purgesMessagesInKeysetBatchesThenTheSession() {
+        PurgeCandidate candidate = new PurgeCandidate(UUID.randomUUID(), Instant.parse("2025-01-02T00:00:00Z"),
+                Instant.parse("2025-01-01T00:00:00Z"), null);
+        Instant t1 = Instant.parse("2025-01-01T00:00:01Z");
+        Instant t2 = Instant.parse("2025-01-01T00:00:02Z");
+        Instant t3 = Instant.parse("2025-01-01T00:00:03Z");
+        when(purgeRepository.countPurgeable(any())).thenReturn(1L);
+        when(purgeRepository.findPurgeable(any(), eq(PurgeCandidate.START), anyInt())).thenReturn(List.of(candidate));
+        when(purgeRepository.findPurgeable(any(), eq(candidate), anyInt())).thenReturn(List.of());
+        Instant since = ChatMessageService.pruneFrom(candidate.createdAt());
+        when(purgeRepository.deleteMessages(candidate.id(), since, 2)).thenReturn(List.of(t1, t2));
+        when(purgeRepository.deleteMessages(candidate.id(), t2, 2)).thenReturn(List.of(t3));
+        when(purgeRepository.deleteSession(eq(candidate.id()), any())).thenReturn(1);
+
+        SessionPurger.Result result = purger.purge();
+
+        assertEquals(new SessionPurger.Result(0, 1, 3, true), result);
+        verify(purgeRepository).deleteMessages(candidate.id(), t2, 2);
+        verify(purgeRepository).deleteSession(eq(candidate.id()), any());
+        assertEquals(3, meterRegistry.counter("chat.purge.messages").count());
+        assertEquals(1, meterRegistry.counter("chat.purge.sessions").count());
+        assertEquals(0, meterRegistry.get("chat.purge.backlog").gauge().value());
+    }
+
+    @Test
+    void archivedSessionIsErasedFromItsSegmentBeforeItsRowIsDeleted() {
+        PurgeCandidate candidate = archivedCandidate();
+        when(purgeRepository.deleteSession(eq(candidate.id()), any())).thenReturn(1);
+
+        SessionPurger.Result result = purger.purge();
+
+        assertEquals(new SessionPurger.Result(0, 1, 0, true), result);
+        var order = inOrder(archive, purgeRepository);
+        order.verify(archive).erase(7, candidate.id());
+        order.verify(purgeRepository).deleteSession(eq(candidate.id()), any());
+    }
+
+    @Test
+    void archivedSessionIsDeferredWhileArchivalHoldsItsLock() throws Exception {
+        PurgeCandidate candidate = archivedCandidate();
+        when(archiveLockResult.getBoolean(1)).thenReturn(false);
+
+        SessionPurger.Result result = purger.purge();
+
+        assertEquals(new SessionPurger.Result(0, 0, 0, false), result);
+        verifyNoInteractions(archive);
+        verify(purgeRepository, never()).deleteSession(any(), any());
+    }
+
+    private PurgeCandidate archivedCandidate() {
+        PurgeCandidate candidate = new PurgeCandidate(UUID.randomUUID(), Instant.parse("2025-01-02T00:00:00Z"),
+                Instant.parse("2025-01-01T00:00:00Z"), 7);
+        when(purgeRepository.countPurgeable(any())).thenReturn(1L);
+        when(purgeRepository.findPurgeable(any(), eq(PurgeCandidate.START), anyInt())).thenReturn(List.of(candidate));
+        when(purgeRepository.findPurgeable(any(), eq(candidate), anyInt())).thenReturn(List.of());
+        when(purgeRepository.deleteMessages(eq(candidate.id()), any(), anyInt())).thenReturn(List.of());
+        return candidate;
+    }
+
+    @Test
+    void expiredRetentionSessionsAreSoftDeletedAndEvicted() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        when(purgeRepository.expireRetention(any(), anyInt())).thenReturn(List.of(a, b), List.of(c));
+        when(purgeRepository.findPurgeable(any(), any(), anyInt())).thenReturn(List.of());
+
+        SessionPurger.Result result = purger.purge();
+
+        assertEquals(3, result.expired());
+        verify(purgeRepository, times(2)).expireRetention(any(), anyInt());
+        verify(cacheInvalidator).evictSessionMessages(List.of(a, b));
+        verify(cacheInvalidator).evictSessionMessages(List.of(c));
+        verify(cacheInvalidator).evictSessionPages();
+        assertEquals(3, meterRegistry.counter("chat.purge.sessions.expired").count());
+    }
+
+    @Test
+    void expiredIdempotencyKeysAreDeletedInBatches() {
+        Instant created = Instant.parse("2025-01-01T00:00:00Z");
+        when(appendKeyRepository.deleteExpired(any(), eq(2))).thenReturn(List.of(created, created), List.of(created));
+        when(purgeRepository.findPurgeable(any(), any(), anyInt())).thenReturn(List.of());
+
+        purger.purge();
+
+        verify(appendKeyRepository, times(2)).deleteExpired(any(), eq(2));
+        assertEquals(3, meterRegistry.counter("chat.purge.idempotency.keys").count());
+    }
+
+    @Test
+    void skipsWhenAnotherInstanceHoldsTheLock() throws Exception {
+        when(lockResult.getBoolean(1)).thenReturn(false);
+
+        assertEquals(new SessionPurger.Result(0, 0, 0, true), purger.purge());
+        verifyNoInteractions(purgeRepository);
+    }
+
+    @Test
+    void throttleHalvesSlowBatchesAndGrowsBackWhenFast() {
+        PurgeProperties throttled = new PurgeProperties(true, null, 1000, 100,
+                Duration.ofMillis(200), Duration.ofMillis(50), null, null);
+        SessionPurger.Throttle throttle = new SessionPurger.Throttle(throttled);
+
+        assertEquals(Duration.ofMillis(700), throttle.record(Duration.ofMillis(700)));
+        assertEquals(500, throttle.batchSize());
+        throttle.record(Duration.ofMillis(900));
+        throttle.record(Duration.ofMillis(900));
+        throttle.record(Duration.ofMillis(900));
+        assertEquals(100, throttle.batchSize());
+
+        assertEquals(Duration.ofMillis(50), throttle.record(Duration.ofMillis(20)));
+        assertEquals(200, throttle.batchSize());
+        for (int i = 0; i < 20; i++) {
+            throttle.record(Duration.ofMillis(20));
+        }
+        assertEquals(1000, throttle.batchSize());
+    }
+}
@@ -0,0 +1,48 @@
+package util;
+
+import com.rag.chat.enums.ScrollDirection;
+import com.rag.chat.util.CursorCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorCodecTest {
+
+    @Test
+    void encodeDecode_roundTripsPosition() {
+        Instant ts = Instant.parse("2025-09-12T11:39:01.123456789Z");
+        UUID id = UUID.randomUUID();
+
+        String cursor = CursorCodec.encode(ScrollDirection.BACKWARD, ts, id);
+        CursorCodec.Cursor decoded = CursorCodec.decode(cursor);
+
+        assertEquals(ScrollDirection.BACKWARD, decoded.direction());
+        assertEquals(ts, decoded.timestamp());
+        assertEquals(id, decoded.id());
+        assertFalse(cursor.contains(id.toString()));
+    }
+
+    @Test
+    void encodeDecode_roundTripsSequencePosition() {
+        String cursor = CursorCodec.encode(ScrollDirection.FORWARD, 42L);
+        CursorCodec.SequenceCursor decoded = CursorCodec.decodeSequence(cursor);
+
+        assertEquals(ScrollDirection.FORWARD, decoded.direction());
+        assertEquals(42L, decoded.seq());
+        String timestampCursor = CursorCodec.encode(ScrollDirection.FORWARD, Instant.now(), UUID.randomUUID());
+        assertEquals("cursor.invalid",
+                assertThrows(IllegalArgumentException.class, () -> CursorCodec.decodeSequence(timestampCursor)).getMessage());
+    }
+
+    @Test
+    void decode_malformedCursor_throwsInvalidCursorKey() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode("not-a-cursor!"));
+        assertEquals("cursor.invalid", ex.getMessage());
+
+        String wrongShape = java.util.Base64.getUrlEncoder().encodeToString("X.1.2".getBytes());
+        assertThrows(IllegalArgumentException.class, () -> CursorCodec.decode(wrongShape));
+    }
+}
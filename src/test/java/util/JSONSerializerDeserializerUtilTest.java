@@ -1,6 +1,7 @@
 package util;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.rag.chat.dto.response.MessageResponse;
 import com.rag.chat.util.JSONSerializerDeserializerUtil;
 import org.junit.jupiter.api.Test;
 
@@ -68,4 +69,22 @@ class JSONSerializerDeserializerUtilTest {
         String json = JSONSerializerDeserializerUtil.serialize(unserializable, "unserializableField");
         assertNull(json);
     }
-}
\ No newline at end of file
+
+    @Test
+    void raw_blankOrNull_returnsNull() {
+        assertNull(JSONSerializerDeserializerUtil.raw(null));
+        assertNull(JSONSerializerDeserializerUtil.raw("  "));
+    }
+
+    @Test
+    void raw_responseWritesStoredJsonVerbatim() throws Exception {
+        String stored = JSONSerializerDeserializerUtil.serialize(new TestPOJO("x", 1), "testPojo");
+        MessageResponse response = MessageResponse.builder()
+                .retrievedContext(JSONSerializerDeserializerUtil.raw(stored))
+                .build();
+
+        String json = JSONSerializerDeserializerUtil.MAPPER.writeValueAsString(response);
+
+        assertEquals("{\"retrievedContext\":" + stored + "}", json);
+    }
+}
@@ -0,0 +1,48 @@
+package util;
+
+import com.rag.chat.util.JsonProjection;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonProjectionTest {
+
+    @Test
+    void parse_wildcardMemberPath_buildsQuotedJsonPath() {
+        JsonProjection projection = JsonProjection.parse("retrievedContext.chunks[*].id");
+
+        assertEquals("retrieved_context", projection.column());
+        assertEquals("$.\"chunks\"[*].\"id\"", projection.jsonPath());
+        assertEquals("retrievedContext.chunks[*].id", projection.expression());
+    }
+
+    @Test
+    void parse_metadataIndexPath_mapsToMetadataColumn() {
+        JsonProjection projection = JsonProjection.parse("metadata.tags[0]");
+
+        assertEquals("metadata", projection.column());
+        assertEquals("$.\"tags\"[0]", projection.jsonPath());
+    }
+
+    @Test
+    void parse_unsupportedExpressions_throwInvalidProjectionKey() {
+        for (String expression : List.of("content.x", "retrievedContext", "metadata.a\" || true", "metadata.a[?(@.x)]", "metadata..a")) {
+            IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> JsonProjection.parse(expression));
+            assertEquals("projection.invalid", ex.getMessage());
+        }
+        assertThrows(IllegalArgumentException.class, () -> JsonProjection.parse(null));
+    }
+
+    @Test
+    void parseAll_deduplicatesAndCapsCount() {
+        assertEquals(1, JsonProjection.parseAll(List.of("metadata.a", "metadata.a")).size());
+        assertTrue(JsonProjection.parseAll(null).isEmpty());
+
+        List<String> tooMany = Collections.nCopies(JsonProjection.MAX_PROJECTIONS + 1, "metadata.a").stream()
+                .map(s -> s + Math.random()).toList();
+        assertThrows(IllegalArgumentException.class, () -> JsonProjection.parseAll(tooMany));
+    }
+}
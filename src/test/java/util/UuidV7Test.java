@@ -0,0 +1,40 @@
+package util;
+
+import com.rag.chat.util.UuidV7;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7Test {
+
+    @Test
+    void generate_setsVersionVariantAndCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7.generate();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        Instant ts = UuidV7.timestamp(id);
+        assertNotNull(ts);
+        assertTrue(ts.toEpochMilli() >= before && ts.toEpochMilli() <= System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void generate_isStrictlyIncreasingWithinTheSameMillisecond() {
+        UUID previous = UuidV7.generate();
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = UuidV7.generate();
+            assertTrue(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()) > 0);
+            previous = next;
+        }
+    }
+
+    @Test
+    void timestamp_nonV7Id_returnsNull() {
+        assertNull(UuidV7.timestamp(UUID.randomUUID()));
+        assertNull(UuidV7.timestamp(null));
+    }
+}